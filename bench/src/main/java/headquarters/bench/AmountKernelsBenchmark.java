@@ -0,0 +1,69 @@
+package headquarters.bench;
+
+import headquarters.bank.Money;
+import headquarters.bank.kernel.AmountKernels;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the scalar and the vector kernels on accounts of different sizes.
+ * The vector kernels are only available, if the bank was installed with the profile "vector".
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Benchmark)
+public class AmountKernelsBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    @Param({"scalar", "vector"})
+    String implementation;
+
+    private AmountKernels kernels;
+    private long[] amounts, creditFactors, debitFactors, calculated;
+    private int[] selected;
+
+    @Setup
+    public void setUp() {
+        kernels = implementation.equals("vector") ? AmountKernels.vector() : AmountKernels.scalar();
+        Random random = new Random(42);
+        amounts = new long[size];
+        creditFactors = new long[size];
+        debitFactors = new long[size];
+        calculated = new long[size];
+        selected = new int[size];
+        for (int i = 0; i < size; i++) {
+            amounts[i] = random.nextInt(2_000_001) - 1_000_000;
+            creditFactors[i] = Money.BASIS_POINTS_PER_UNIT - 3000;
+            debitFactors[i] = Money.BASIS_POINTS_PER_UNIT + 2000;
+        }
+        kernels.calculate(amounts, creditFactors, debitFactors, calculated, size);
+    }
+
+    @Benchmark
+    public long balance() {
+        return kernels.sum(calculated, size);
+    }
+
+    @Benchmark
+    public long credits() {
+        return kernels.sumCredits(calculated, size);
+    }
+
+    @Benchmark
+    public int positiveTransactions() {
+        return kernels.selectBySign(calculated, size, true, selected);
+    }
+
+    @Benchmark
+    public long[] calculate() {
+        kernels.calculate(amounts, creditFactors, debitFactors, calculated, size);
+        return calculated;
+    }
+}
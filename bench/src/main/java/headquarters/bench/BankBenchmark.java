@@ -0,0 +1,121 @@
+package headquarters.bench;
+
+import headquarters.bank.Bank;
+import headquarters.bank.PrivateBank;
+import headquarters.bank.PrivateBankAlt;
+import headquarters.bank.Transaction;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures the operations of the bank on one account of different sizes, for the indexed PrivateBank and for
+ * PrivateBankAlt, which keeps only the transaction lists. The PrivateBank writes the account into a temporary
+ * directory after every change, so its add and remove include writing the account.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BankBenchmark {
+
+    @Param({"100", "1000"})
+    int size;
+
+    @Param({"PrivateBank", "PrivateBankAlt"})
+    String implementation;
+
+    Bank bank;
+    Transaction probe;
+    private Transaction contained;
+    private Path directory;
+
+    @Setup
+    public void setUp() throws Exception {
+        if (implementation.equals("PrivateBank")) {
+            directory = Files.createTempDirectory("bank-bench");
+            bank = new PrivateBank("Bench", 0.05, 0.1, directory + directory.getFileSystem().getSeparator());
+        } else {
+            bank = new PrivateBankAlt("Bench", 0.05, 0.1);
+        }
+        List<Transaction> transactions = Ledgers.generate(size, 42);
+        bank.createAccount(Ledgers.ACCOUNT, transactions);
+        contained = transactions.get(size / 2);
+        probe = Ledgers.probe(7);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (directory != null) {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    /**
+     * Removes the probe before every call, so that it can be added
+     */
+    @State(Scope.Thread)
+    public static class ProbeAbsent {
+        @Setup(Level.Invocation)
+        public void setUp(BankBenchmark benchmark) throws Exception {
+            if (benchmark.bank.containsTransaction(Ledgers.ACCOUNT, benchmark.probe)) {
+                benchmark.bank.removeTransaction(Ledgers.ACCOUNT, benchmark.probe);
+            }
+        }
+    }
+
+    /**
+     * Adds the probe before every call, so that it can be removed
+     */
+    @State(Scope.Thread)
+    public static class ProbePresent {
+        @Setup(Level.Invocation)
+        public void setUp(BankBenchmark benchmark) throws Exception {
+            if (!benchmark.bank.containsTransaction(Ledgers.ACCOUNT, benchmark.probe)) {
+                benchmark.bank.addTransaction(Ledgers.ACCOUNT, benchmark.probe);
+            }
+        }
+    }
+
+    @Benchmark
+    public void addTransaction(ProbeAbsent state) throws Exception {
+        bank.addTransaction(Ledgers.ACCOUNT, probe);
+    }
+
+    @Benchmark
+    public void removeTransaction(ProbePresent state) throws Exception {
+        bank.removeTransaction(Ledgers.ACCOUNT, probe);
+    }
+
+    @Benchmark
+    public boolean containsTransaction() {
+        return bank.containsTransaction(Ledgers.ACCOUNT, contained);
+    }
+
+    @Benchmark
+    public double getAccountBalance() {
+        return bank.getAccountBalance(Ledgers.ACCOUNT);
+    }
+
+    @Benchmark
+    public List<Transaction> getTransactionsSorted() {
+        return bank.getTransactionsSorted(Ledgers.ACCOUNT, true);
+    }
+
+    @Benchmark
+    public List<Transaction> getTransactionsByType() {
+        return bank.getTransactionsByType(Ledgers.ACCOUNT, false);
+    }
+}
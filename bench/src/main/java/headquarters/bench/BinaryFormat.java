@@ -0,0 +1,60 @@
+package headquarters.bench;
+
+import headquarters.bank.Transaction;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One file of binary records per account: the number of transactions followed by their
+ * {@link TransactionRecords records}
+ */
+final class BinaryFormat implements StorageFormat {
+    private static final String SUFFIX = ".bin";
+
+    @Override
+    public String name() {
+        return "binary";
+    }
+
+    @Override
+    public void write(Map<String, List<Transaction>> ledger, Path directory) throws IOException {
+        for (Map.Entry<String, List<Transaction>> account : ledger.entrySet()) {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(
+                    directory.resolve(account.getKey() + SUFFIX))))) {
+                out.writeInt(account.getValue().size());
+                for (Transaction transaction : account.getValue()) {
+                    TransactionRecords.write(out, transaction);
+                }
+            }
+        }
+    }
+
+    @Override
+    public Map<String, List<Transaction>> load(Path directory) throws IOException {
+        Map<String, List<Transaction>> ledger = new HashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                    int size = in.readInt();
+                    List<Transaction> transactions = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        transactions.add(TransactionRecords.read(in));
+                    }
+                    ledger.put(StorageFormat.accountOf(file, SUFFIX), transactions);
+                }
+            }
+        }
+        return ledger;
+    }
+}
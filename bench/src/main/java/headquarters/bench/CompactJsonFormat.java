@@ -0,0 +1,127 @@
+package headquarters.bench;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import headquarters.bank.Payment;
+import headquarters.bank.Transaction;
+import headquarters.bank.Transfer;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One JSON file per account with the fields of the Serializer, but without white space and streamed: the
+ * transactions are written and read token by token, without building a tree of every transaction. The files can
+ * still be read by the Serializer.
+ */
+final class CompactJsonFormat implements StorageFormat {
+    private static final String SUFFIX = ".json";
+
+    @Override
+    public String name() {
+        return "compact-json";
+    }
+
+    @Override
+    public void write(Map<String, List<Transaction>> ledger, Path directory) throws IOException {
+        for (Map.Entry<String, List<Transaction>> account : ledger.entrySet()) {
+            try (JsonWriter writer = new JsonWriter(Files.newBufferedWriter(
+                    directory.resolve(account.getKey() + SUFFIX)))) {
+                writer.beginArray();
+                for (Transaction transaction : account.getValue()) {
+                    write(writer, transaction);
+                }
+                writer.endArray();
+            }
+        }
+    }
+
+    @Override
+    public Map<String, List<Transaction>> load(Path directory) throws IOException {
+        Map<String, List<Transaction>> ledger = new HashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                List<Transaction> transactions = new ArrayList<>();
+                try (JsonReader reader = new JsonReader(Files.newBufferedReader(file))) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        transactions.add(read(reader));
+                    }
+                    reader.endArray();
+                }
+                ledger.put(StorageFormat.accountOf(file, SUFFIX), transactions);
+            }
+        }
+        return ledger;
+    }
+
+    private static void write(JsonWriter writer, Transaction transaction) throws IOException {
+        writer.beginObject();
+        writer.name("CLASSNAME").value(transaction.getClass().getSimpleName());
+        writer.name("INSTANCE").beginObject();
+        if (transaction instanceof Payment payment) {
+            writer.name("incomingInterestBp").value(payment.getIncomingInterestBasisPoints());
+            writer.name("outgoingInterestBp").value(payment.getOutgoingInterestBasisPoints());
+        } else {
+            Transfer transfer = (Transfer) transaction;
+            writer.name("sender").value(transfer.getSender());
+            writer.name("recipient").value(transfer.getRecipient());
+        }
+        writer.name("date").value(transaction.getDate());
+        writer.name("amountCents").value(transaction.getAmountCents());
+        writer.name("description").value(transaction.getDescription());
+        writer.endObject();
+        writer.endObject();
+    }
+
+    /**
+     * Reads a transaction, whose fields may come in any order
+     */
+    private static Transaction read(JsonReader reader) throws IOException {
+        String className = null;
+        String date = null;
+        long amountCents = 0;
+        String description = null;
+        int incomingInterestBp = 0;
+        int outgoingInterestBp = 0;
+        String sender = null;
+        String recipient = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "CLASSNAME" -> className = reader.nextString();
+                case "INSTANCE" -> {
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        switch (reader.nextName()) {
+                            case "date" -> date = reader.nextString();
+                            case "amountCents" -> amountCents = reader.nextLong();
+                            case "description" -> description = reader.nextString();
+                            case "incomingInterestBp" -> incomingInterestBp = reader.nextInt();
+                            case "outgoingInterestBp" -> outgoingInterestBp = reader.nextInt();
+                            case "sender" -> sender = reader.nextString();
+                            case "recipient" -> recipient = reader.nextString();
+                            default -> reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if ("Payment".equals(className)) {
+            return TransactionRecords.payment(date, amountCents, description, incomingInterestBp,
+                    outgoingInterestBp);
+        }
+        byte kind = "IncomingTransfer".equals(className) ? TransactionRecords.INCOMING_TRANSFER
+                : "OutgoingTransfer".equals(className) ? TransactionRecords.OUTGOING_TRANSFER : -1;
+        return TransactionRecords.transfer(kind, date, amountCents, description, sender, recipient);
+    }
+}
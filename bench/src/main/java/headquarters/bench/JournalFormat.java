@@ -0,0 +1,193 @@
+package headquarters.bench;
+
+import headquarters.bank.Transaction;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A journal of binary entries plus snapshots. Every change is appended to the journal and flushed on its own,
+ * like a bank would persist every added transaction. After a number of entries the whole ledger is written as a
+ * snapshot, and a new journal of the next generation is started. A load reads the latest snapshot and replays
+ * the journal of its generation, an incomplete last entry is ignored.
+ * <p>
+ * An entry is the name of the account, followed by {@link #CREATE} or by {@link #ADD} and the
+ * {@link TransactionRecords record} of the transaction. A snapshot contains the number of accounts, then the
+ * name, the number of transactions and the records of every account.
+ */
+final class JournalFormat implements StorageFormat {
+    private static final byte CREATE = 0;
+    private static final byte ADD = 1;
+    private static final String JOURNAL = "journal-";
+    private static final String SNAPSHOT = "snapshot-";
+    private static final String SUFFIX = ".bin";
+
+    private final int snapshotEvery;
+
+    /**
+     * @param snapshotEvery number of journal entries, after which a snapshot is written
+     */
+    JournalFormat(int snapshotEvery) {
+        if (snapshotEvery < 1) {
+            throw new IllegalArgumentException("A snapshot needs at least one entry");
+        }
+        this.snapshotEvery = snapshotEvery;
+    }
+
+    @Override
+    public String name() {
+        return "journal";
+    }
+
+    @Override
+    public void write(Map<String, List<Transaction>> ledger, Path directory) throws IOException {
+        Map<String, List<Transaction>> written = new HashMap<>();
+        int generation = 0;
+        long entries = 0;
+        DataOutputStream journal = openJournal(directory, generation);
+        try {
+            for (Map.Entry<String, List<Transaction>> account : ledger.entrySet()) {
+                List<Transaction> transactions = new ArrayList<>();
+                written.put(account.getKey(), transactions);
+                append(journal, account.getKey(), null);
+                if (++entries % snapshotEvery == 0) {
+                    journal = nextGeneration(written, directory, journal, ++generation);
+                }
+                for (Transaction transaction : account.getValue()) {
+                    append(journal, account.getKey(), transaction);
+                    transactions.add(transaction);
+                    if (++entries % snapshotEvery == 0) {
+                        journal = nextGeneration(written, directory, journal, ++generation);
+                    }
+                }
+            }
+        } finally {
+            journal.close();
+        }
+    }
+
+    @Override
+    public Map<String, List<Transaction>> load(Path directory) throws IOException {
+        int generation = -1;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SNAPSHOT + "*" + SUFFIX)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                generation = Math.max(generation, Integer.parseInt(
+                        fileName.substring(SNAPSHOT.length(), fileName.length() - SUFFIX.length())));
+            }
+        }
+        Map<String, List<Transaction>> ledger = new HashMap<>();
+        if (generation < 0) {
+            generation = 0;
+        } else {
+            readSnapshot(directory.resolve(SNAPSHOT + generation + SUFFIX), ledger);
+        }
+        Path journal = directory.resolve(JOURNAL + generation + SUFFIX);
+        if (Files.exists(journal)) {
+            replay(journal, ledger);
+        }
+        return ledger;
+    }
+
+    /**
+     * Appends the entry of a new account or of an added transaction and flushes it
+     */
+    private static void append(DataOutputStream journal, String account, Transaction transaction)
+            throws IOException {
+        journal.writeUTF(account);
+        if (transaction == null) {
+            journal.writeByte(CREATE);
+        } else {
+            journal.writeByte(ADD);
+            TransactionRecords.write(journal, transaction);
+        }
+        journal.flush();
+    }
+
+    /**
+     * Writes the snapshot of a new generation and starts its journal, then the files of the previous generation
+     * are deleted
+     *
+     * @return journal of the new generation
+     */
+    private static DataOutputStream nextGeneration(Map<String, List<Transaction>> ledger, Path directory,
+                                                   DataOutputStream journal, int generation) throws IOException {
+        journal.close();
+        writeSnapshot(ledger, directory, generation);
+        DataOutputStream next = openJournal(directory, generation);
+        Files.delete(directory.resolve(JOURNAL + (generation - 1) + SUFFIX));
+        Files.deleteIfExists(directory.resolve(SNAPSHOT + (generation - 1) + SUFFIX));
+        return next;
+    }
+
+    private static DataOutputStream openJournal(Path directory, int generation) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(
+                directory.resolve(JOURNAL + generation + SUFFIX))));
+    }
+
+    /**
+     * Writes the snapshot under a temporary name first, so a load never sees an incomplete snapshot
+     */
+    private static void writeSnapshot(Map<String, List<Transaction>> ledger, Path directory, int generation)
+            throws IOException {
+        Path temporary = directory.resolve(SNAPSHOT + generation + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(temporary)))) {
+            out.writeInt(ledger.size());
+            for (Map.Entry<String, List<Transaction>> account : ledger.entrySet()) {
+                out.writeUTF(account.getKey());
+                out.writeInt(account.getValue().size());
+                for (Transaction transaction : account.getValue()) {
+                    TransactionRecords.write(out, transaction);
+                }
+            }
+        }
+        Files.move(temporary, directory.resolve(SNAPSHOT + generation + SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void readSnapshot(Path snapshot, Map<String, List<Transaction>> ledger) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot)))) {
+            int accounts = in.readInt();
+            for (int i = 0; i < accounts; i++) {
+                String account = in.readUTF();
+                int size = in.readInt();
+                List<Transaction> transactions = new ArrayList<>(size);
+                for (int j = 0; j < size; j++) {
+                    transactions.add(TransactionRecords.read(in));
+                }
+                ledger.put(account, transactions);
+            }
+        }
+    }
+
+    private static void replay(Path journal, Map<String, List<Transaction>> ledger) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journal)))) {
+            while (true) {
+                String account = in.readUTF();
+                byte operation = in.readByte();
+                if (operation == CREATE) {
+                    ledger.put(account, new ArrayList<>());
+                } else if (operation == ADD) {
+                    Transaction transaction = TransactionRecords.read(in);
+                    ledger.get(account).add(transaction);
+                } else {
+                    throw new IOException("Unknown journal entry " + operation + " in " + journal);
+                }
+            }
+        } catch (EOFException e) {
+            // end of the journal, or an entry, which was not completely written
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package headquarters.bench;
+
+import headquarters.bank.IncomingTransfer;
+import headquarters.bank.OutgoingTransfer;
+import headquarters.bank.Payment;
+import headquarters.bank.Transaction;
+import headquarters.bank.exceptions.TransactionAttributeException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates the accounts of the benchmarks. The same seed always gives the same transactions, so the results
+ * of different builds are comparable.
+ */
+final class Ledgers {
+    static final String ACCOUNT = "Bench";
+
+    private Ledgers() {
+    }
+
+    /**
+     * Generates distinct transactions of one account, half payments and half transfers, spread over ten years
+     *
+     * @param size number of transactions
+     * @param seed seed of the random numbers
+     * @return new transactions
+     * @throws TransactionAttributeException never, the generated attributes are valid
+     */
+    static List<Transaction> generate(int size, long seed) throws TransactionAttributeException {
+        Random random = new Random(seed);
+        List<Transaction> transactions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            transactions.add(transaction(random, i));
+        }
+        return transactions;
+    }
+
+    /**
+     * Generates a transaction, which differs from all generated by {@link #generate(int, long)}
+     *
+     * @param seed seed of the random numbers
+     * @return new transaction
+     * @throws TransactionAttributeException never, the generated attributes are valid
+     */
+    static Transaction probe(long seed) throws TransactionAttributeException {
+        return transaction(new Random(seed), -1);
+    }
+
+    private static Transaction transaction(Random random, int number) throws TransactionAttributeException {
+        String date = String.format("%02d.%02d.%d", 1 + random.nextInt(28), 1 + random.nextInt(12),
+                2013 + random.nextInt(10));
+        double amount = (random.nextInt(200_000) + 1) / 100.0;
+        String description = "transaction " + number;
+        return switch (random.nextInt(4)) {
+            case 0 -> new Payment(date, amount, description, 0, 0);
+            case 1 -> new Payment(date, -amount, description, 0, 0);
+            case 2 -> new IncomingTransfer(date, amount, description, "Sender" + random.nextInt(100), ACCOUNT);
+            default -> new OutgoingTransfer(date, amount, description, ACCOUNT, "Recipient" + random.nextInt(100));
+        };
+    }
+}
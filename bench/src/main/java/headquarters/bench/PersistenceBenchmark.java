@@ -0,0 +1,77 @@
+package headquarters.bench;
+
+import headquarters.bank.PrivateBank;
+import headquarters.bank.Transaction;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures the round trip of an account through its JSON file: writing a new account with all its
+ * transactions and reading the directory into a new PrivateBank. Only PrivateBank is persistent.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PersistenceBenchmark {
+
+    @Param({"100", "1000"})
+    int size;
+
+    private Path directory;
+    private String directoryName;
+    private PrivateBank bank;
+    private List<Transaction> transactions;
+
+    @Setup
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("bank-bench");
+        directoryName = directory + directory.getFileSystem().getSeparator();
+        new PrivateBank("Bench", 0.05, 0.1, directoryName).createAccount(Ledgers.ACCOUNT, Ledgers.generate(size, 42));
+        bank = new PrivateBank("Bench", 0.05, 0.1, Files.createDirectory(directory.resolve("write"))
+                + directory.getFileSystem().getSeparator());
+    }
+
+    /**
+     * Generates new transactions for every write, because the transactions of an account belong to its bank
+     */
+    @Setup(Level.Invocation)
+    public void generate() throws Exception {
+        transactions = Ledgers.generate(size, 42);
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteWritten() throws Exception {
+        if (bank.getAllAccounts().contains(Ledgers.ACCOUNT)) {
+            bank.deleteAccount(Ledgers.ACCOUNT);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted((p1, p2) -> p2.compareTo(p1))::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public PrivateBank writeAccount() throws Exception {
+        bank.createAccount(Ledgers.ACCOUNT, transactions);
+        return bank;
+    }
+
+    @Benchmark
+    public PrivateBank readAccounts() throws Exception {
+        return new PrivateBank("Bench", 0.05, 0.1, directoryName);
+    }
+}
@@ -0,0 +1,66 @@
+package headquarters.bench;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import headquarters.bank.Serializer;
+import headquarters.bank.Transaction;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The current format of PrivateBank: one pretty printed JSON file per account, written and read with the
+ * Serializer like in writeAccount and readAccounts. Unlike PrivateBank, every account is written once and the
+ * load builds no indexes, so only the format is compared.
+ */
+final class PrettyJsonFormat implements StorageFormat {
+    private static final String SUFFIX = ".json";
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeHierarchyAdapter(Transaction.class, new Serializer()).setPrettyPrinting().create();
+    private static final Type TRANSACTION_LIST = new TypeToken<List<Transaction>>() {
+    }.getType();
+
+    @Override
+    public String name() {
+        return "pretty-json";
+    }
+
+    @Override
+    public void write(Map<String, List<Transaction>> ledger, Path directory) throws IOException {
+        for (Map.Entry<String, List<Transaction>> account : ledger.entrySet()) {
+            List<Transaction> transactions = account.getValue();
+            try (Writer writer = Files.newBufferedWriter(directory.resolve(account.getKey() + SUFFIX))) {
+                writer.write('[');
+                for (int i = 0; i < transactions.size(); i++) {
+                    if (i > 0) {
+                        writer.write(", ");
+                    }
+                    GSON.toJson(transactions.get(i), writer);
+                }
+                writer.write(']');
+            }
+        }
+    }
+
+    @Override
+    public Map<String, List<Transaction>> load(Path directory) throws IOException {
+        Map<String, List<Transaction>> ledger = new HashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                try (Reader reader = Files.newBufferedReader(file)) {
+                    ledger.put(StorageFormat.accountOf(file, SUFFIX), GSON.fromJson(reader, TRANSACTION_LIST));
+                }
+            }
+        }
+        return ledger;
+    }
+}
@@ -0,0 +1,48 @@
+package headquarters.bench;
+
+import headquarters.bank.Transaction;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A way to persist the transactions of all accounts of a bank in a directory, as compared by the
+ * {@link StorageShootout}
+ */
+interface StorageFormat {
+
+    /**
+     * @return name of the format in the options and the report
+     */
+    String name();
+
+    /**
+     * Writes all accounts with their transactions
+     *
+     * @param ledger    transactions by account
+     * @param directory empty directory, which receives the files
+     * @throws IOException if a file could not be written
+     */
+    void write(Map<String, List<Transaction>> ledger, Path directory) throws IOException;
+
+    /**
+     * Reads all accounts with their transactions
+     *
+     * @param directory directory, which was written by this format
+     * @return new transactions by account
+     * @throws IOException if a file could not be read
+     */
+    Map<String, List<Transaction>> load(Path directory) throws IOException;
+
+    /**
+     * @param file   file of an account
+     * @param suffix suffix of the files of the format
+     * @return name of the account
+     */
+    static String accountOf(Path file, String suffix) {
+        String fileName = file.getFileName().toString();
+        return fileName.substring(0, fileName.length() - suffix.length());
+    }
+}
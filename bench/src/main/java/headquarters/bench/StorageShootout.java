@@ -0,0 +1,276 @@
+package headquarters.bench;
+
+import headquarters.bank.PrivateBank;
+import headquarters.bank.Transaction;
+import headquarters.load.SyntheticBank;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.ref.Reference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Compares the ways to persist the accounts: writes the same synthetic ledgers with every format and reads them
+ * back. For every ledger and format it reports the bytes on disk, the write throughput, the time of a cold load
+ * in a new JVM, the time of a warm load after the JIT compiler is done and the peak heap during the cold load.
+ * All options have the form --name=value:
+ *
+ * <pre>
+ * --ledgers=AxT,...     ledgers of A accounts with T transactions each (10x100,100x100,100x1000)
+ * --formats=name,...    pretty-json, compact-json, binary and/or journal (all)
+ * --repeats=n           measured writes and warm loads, after as many warm-up runs (5)
+ * --colds=n             cold loads, each in a new JVM (3)
+ * --heap=size           maximum heap of the JVMs of the cold loads (1g)
+ * --snapshot=n          journal entries between two snapshots of the journal (10000)
+ * --seed=n              seed of the ledgers (42)
+ * </pre>
+ * <p>
+ * The reported times are medians. The files are read from the page cache of the operating system, so a cold
+ * load is cold for the JVM only. The peak heap is the sum of the peaks of the heap pools after a full
+ * collection, so it depends on the collector and on the heap size of the cold JVMs. Run it from the jar of the
+ * benchmarks:
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar headquarters.bench.StorageShootout --ledgers=1000x100
+ * </pre>
+ */
+public class StorageShootout {
+    private static final Set<String> OPTIONS = Set.of("ledgers", "formats", "repeats", "colds", "heap", "snapshot",
+            "seed");
+    private static final String FORMATS = "pretty-json,compact-json,binary,journal";
+    private static final int SNAPSHOT_EVERY = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 3 && args[0].equals("load")) {
+            coldLoad(format(args[1], SNAPSHOT_EVERY), Path.of(args[2]));
+            return;
+        }
+        Map<String, String> options = parse(args);
+        int repeats = Integer.parseInt(options.getOrDefault("repeats", "5"));
+        int colds = Integer.parseInt(options.getOrDefault("colds", "3"));
+        String heap = options.getOrDefault("heap", "1g");
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        List<StorageFormat> formats = new ArrayList<>();
+        for (String name : options.getOrDefault("formats", FORMATS).split(",")) {
+            formats.add(format(name, Integer.parseInt(options.getOrDefault("snapshot",
+                    String.valueOf(SNAPSHOT_EVERY)))));
+        }
+
+        Path root = Files.createTempDirectory("storage-shootout");
+        try {
+            checkPrettyJson(root);
+            for (String size : options.getOrDefault("ledgers", "10x100,100x100,100x1000").split(",")) {
+                String[] dimensions = size.split("x");
+                SyntheticBank synthetic = SyntheticBank.withSeed(seed).accounts(Integer.parseInt(dimensions[0]))
+                        .transactionsPerAccount(Integer.parseInt(dimensions[1]));
+                Map<String, List<Transaction>> ledger = new LinkedHashMap<>();
+                for (int i = 0; i < synthetic.getAccountCount(); i++) {
+                    ledger.put(synthetic.accountName(i), synthetic.transactions(i));
+                }
+                long transactions = (long) synthetic.getAccountCount() * synthetic.getTransactionsPerAccount();
+
+                System.out.printf("%nLedger of %d accounts with %d transactions each (seed %d)%n",
+                        synthetic.getAccountCount(), synthetic.getTransactionsPerAccount(), seed);
+                System.out.printf("%-13s %12s %9s %12s %10s %13s %13s %13s%n", "format", "bytes", "bytes/tx",
+                        "write tx/s", "write MB/s", "cold load ms", "warm load ms", "peak heap MB");
+                for (StorageFormat format : formats) {
+                    Path directory = root.resolve(format.name() + "-" + size);
+                    Files.createDirectory(directory);
+                    long write = measureWrite(format, ledger, directory, repeats);
+                    if (!ledger.equals(format.load(directory))) {
+                        throw new IllegalStateException(format.name() + " does not restore the ledger");
+                    }
+                    long bytes = sizeOf(directory);
+                    long warmLoad = measureWarmLoad(format, directory, repeats);
+                    long[] coldLoad = measureColdLoad(format, directory, colds, heap);
+                    System.out.printf("%-13s %12d %9.1f %12.0f %10.1f %13.1f %13.1f %13.1f%n", format.name(), bytes,
+                            transactions == 0 ? 0 : (double) bytes / transactions, transactions * 1e9 / write,
+                            bytes * 1e9 / write / (1 << 20), coldLoad[0] / 1e6, warmLoad / 1e6,
+                            coldLoad[1] / (double) (1 << 20));
+                    delete(directory);
+                }
+            }
+        } finally {
+            delete(root);
+        }
+    }
+
+    private static StorageFormat format(String name, int snapshotEvery) {
+        return switch (name) {
+            case "pretty-json" -> new PrettyJsonFormat();
+            case "compact-json" -> new CompactJsonFormat();
+            case "binary" -> new BinaryFormat();
+            case "journal" -> new JournalFormat(snapshotEvery);
+            default -> throw new IllegalArgumentException("Unknown format " + name + ", expected one of " + FORMATS);
+        };
+    }
+
+    /**
+     * Makes sure, that the pretty JSON of the shoot-out is the format of PrivateBank, by comparing the files of
+     * the same account byte by byte
+     */
+    private static void checkPrettyJson(Path root) throws Exception {
+        SyntheticBank synthetic = SyntheticBank.withSeed(1).accounts(1).transactionsPerAccount(20);
+        String account = synthetic.accountName(0);
+        Path bankDirectory = Files.createDirectory(root.resolve("private-bank"));
+        new PrivateBank("Shootout", 0, 0, bankDirectory + File.separator)
+                .createAccount(account, synthetic.transactions(0));
+        Path formatDirectory = Files.createDirectory(root.resolve("pretty-json"));
+        new PrettyJsonFormat().write(Map.of(account, synthetic.transactions(0)), formatDirectory);
+        if (Files.mismatch(bankDirectory.resolve(account + ".json"), formatDirectory.resolve(account + ".json"))
+                >= 0) {
+            throw new IllegalStateException("pretty-json differs from the files of PrivateBank");
+        }
+        delete(bankDirectory);
+        delete(formatDirectory);
+    }
+
+    /**
+     * @return median nanoseconds of a write of the whole ledger, the directory keeps the files of the last one
+     */
+    private static long measureWrite(StorageFormat format, Map<String, List<Transaction>> ledger, Path directory,
+                                     int repeats) throws IOException {
+        long[] nanos = new long[repeats];
+        for (int i = -repeats; i < repeats; i++) {
+            clear(directory);
+            long start = System.nanoTime();
+            format.write(ledger, directory);
+            if (i >= 0) {
+                nanos[i] = System.nanoTime() - start;
+            }
+        }
+        return median(nanos);
+    }
+
+    /**
+     * @return median nanoseconds of a load in this JVM
+     */
+    private static long measureWarmLoad(StorageFormat format, Path directory, int repeats) throws IOException {
+        long[] nanos = new long[repeats];
+        for (int i = -repeats; i < repeats; i++) {
+            long start = System.nanoTime();
+            Reference.reachabilityFence(format.load(directory));
+            if (i >= 0) {
+                nanos[i] = System.nanoTime() - start;
+            }
+        }
+        return median(nanos);
+    }
+
+    /**
+     * Loads the directory in new JVMs, which run {@link #coldLoad}
+     *
+     * @return median nanoseconds and median peak heap in bytes of the loads
+     */
+    private static long[] measureColdLoad(StorageFormat format, Path directory, int colds, String heap)
+            throws IOException, InterruptedException {
+        long[] nanos = new long[colds];
+        long[] peaks = new long[colds];
+        for (int i = 0; i < colds; i++) {
+            Process process = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                    "-Xmx" + heap, "-cp", System.getProperty("java.class.path"), StorageShootout.class.getName(),
+                    "load", format.name(), directory.toString())
+                    .redirectError(ProcessBuilder.Redirect.INHERIT).start();
+            String line;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                line = reader.readLine();
+            }
+            if (process.waitFor() != 0 || line == null) {
+                throw new IllegalStateException("Cold load of " + format.name() + " failed");
+            }
+            String[] values = line.split(" ");
+            nanos[i] = Long.parseLong(values[0]);
+            peaks[i] = Long.parseLong(values[1]);
+        }
+        return new long[]{median(nanos), median(peaks)};
+    }
+
+    /**
+     * Loads a directory once in a new JVM and prints the nanoseconds and the peak heap in bytes of the load
+     */
+    private static void coldLoad(StorageFormat format, Path directory) throws IOException {
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool);
+            }
+        }
+        System.gc();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        long start = System.nanoTime();
+        Map<String, List<Transaction>> ledger = format.load(directory);
+        long nanos = System.nanoTime() - start;
+        long peak = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+        Reference.reachabilityFence(ledger);
+        System.out.println(nanos + " " + peak);
+    }
+
+    private static long median(long[] values) {
+        if (values.length == 0) {
+            return 0;
+        }
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static long sizeOf(Path directory) throws IOException {
+        long bytes = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                bytes += Files.size(file);
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Reads the options of the form --name=value
+     */
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0 || !OPTIONS.contains(arg.substring(2, separator))) {
+                throw new IllegalArgumentException("Unknown option " + arg + ", expected --name=value with a name of "
+                        + OPTIONS);
+            }
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    private static void clear(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package headquarters.bench;
+
+import headquarters.bank.IncomingTransfer;
+import headquarters.bank.Money;
+import headquarters.bank.OutgoingTransfer;
+import headquarters.bank.Payment;
+import headquarters.bank.Transaction;
+import headquarters.bank.Transfer;
+import headquarters.bank.exceptions.TransactionAttributeException;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Binary records of the transactions, as written by the {@link BinaryFormat} and the {@link JournalFormat}. A
+ * record starts with the kind of the transaction, followed by the date, the amount in cents and the description,
+ * then the interests in basis points of a payment or the sender and the recipient of a transfer.
+ */
+final class TransactionRecords {
+    static final byte PAYMENT = 0;
+    static final byte INCOMING_TRANSFER = 1;
+    static final byte OUTGOING_TRANSFER = 2;
+
+    private TransactionRecords() {
+    }
+
+    /**
+     * Writes the record of a transaction
+     *
+     * @param out         stream of the records
+     * @param transaction transaction to be written
+     * @throws IOException if the stream could not be written
+     */
+    static void write(DataOutput out, Transaction transaction) throws IOException {
+        out.writeByte(kindOf(transaction));
+        out.writeUTF(transaction.getDate());
+        out.writeLong(transaction.getAmountCents());
+        out.writeUTF(transaction.getDescription());
+        if (transaction instanceof Payment payment) {
+            out.writeShort(payment.getIncomingInterestBasisPoints());
+            out.writeShort(payment.getOutgoingInterestBasisPoints());
+        } else {
+            Transfer transfer = (Transfer) transaction;
+            out.writeUTF(transfer.getSender());
+            out.writeUTF(transfer.getRecipient());
+        }
+    }
+
+    /**
+     * Reads the record of a transaction
+     *
+     * @param in stream of the records
+     * @return new transaction
+     * @throws IOException if the stream could not be read or the record is invalid
+     */
+    static Transaction read(DataInput in) throws IOException {
+        byte kind = in.readByte();
+        String date = in.readUTF();
+        long amountCents = in.readLong();
+        String description = in.readUTF();
+        if (kind == PAYMENT) {
+            return payment(date, amountCents, description, in.readShort(), in.readShort());
+        }
+        return transfer(kind, date, amountCents, description, in.readUTF(), in.readUTF());
+    }
+
+    /**
+     * @param transaction payment or transfer
+     * @return kind of the transaction in its record
+     */
+    static byte kindOf(Transaction transaction) {
+        if (transaction instanceof Payment) {
+            return PAYMENT;
+        }
+        return transaction instanceof IncomingTransfer ? INCOMING_TRANSFER : OUTGOING_TRANSFER;
+    }
+
+    /**
+     * Creates a payment from the values of its record
+     *
+     * @throws IOException if the values are invalid
+     */
+    static Payment payment(String date, long amountCents, String description, int incomingInterestBp,
+                           int outgoingInterestBp) throws IOException {
+        try {
+            return new Payment(date, Money.toDouble(amountCents), description, Money.toInterest(incomingInterestBp),
+                    Money.toInterest(outgoingInterestBp));
+        } catch (TransactionAttributeException e) {
+            throw new IOException("Invalid payment " + description, e);
+        }
+    }
+
+    /**
+     * Creates a transfer from the values of its record
+     *
+     * @throws IOException if the kind or the values are invalid
+     */
+    static Transfer transfer(byte kind, String date, long amountCents, String description, String sender,
+                             String recipient) throws IOException {
+        try {
+            return switch (kind) {
+                case INCOMING_TRANSFER -> new IncomingTransfer(date, Money.toDouble(amountCents), description,
+                        sender, recipient);
+                case OUTGOING_TRANSFER -> new OutgoingTransfer(date, Money.toDouble(amountCents), description,
+                        sender, recipient);
+                default -> throw new IOException("Unknown kind of transaction " + kind);
+            };
+        } catch (TransactionAttributeException e) {
+            throw new IOException("Invalid transfer " + description, e);
+        }
+    }
+}
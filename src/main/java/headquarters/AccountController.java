@@ -1,10 +1,8 @@
 package headquarters;
 
 import headquarters.bank.*;
-import headquarters.bank.exceptions.AccountDoesNotExistException;
-import headquarters.bank.exceptions.TransactionAlreadyExistException;
 import headquarters.bank.exceptions.TransactionAttributeException;
-import headquarters.bank.exceptions.TransactionDoesNotExistException;
+import javafx.beans.binding.Bindings;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -30,7 +28,8 @@ import java.util.ResourceBundle;
  * Account Controller represents the account page,
  * with functions like adding a new transaction, deleting one, seeing a current balance,
  * and also sorting list of transactions in ascending, descending order, but also with
- * a functions of showing only positive or negative transfers
+ * a functions of showing only positive or negative transfers. The list shows the rows of the account model,
+ * which are read already sorted and filtered from the bank, so the FX thread never sorts the transactions.
  */
 public class AccountController implements Initializable {
 
@@ -44,10 +43,15 @@ public class AccountController implements Initializable {
     private Label message;
 
     @FXML
-    private ListView<Transaction> transactionsList;
+    private Label pending;
+
+    @FXML
+    private ListView<TransactionRow> transactionsList;
 
     private MenuItem deleteItem = new MenuItem("Löschen");
 
+    private BankModel.AccountModel model;
+
 
     @FXML
     public void backToMain() throws IOException {
@@ -62,13 +66,13 @@ public class AccountController implements Initializable {
         accountName.setText(account);
     }
 
-    public void setAccountBalance(PrivateBank pb, String account) {
-        accountBalance.setText("Account balance: " + pb.getAccountBalance(account));
-    }
-
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        transactionsList.getItems().addAll(Mainview.p.getTransactions(MainController.accountName));
+        pending.visibleProperty().bind(Mainview.service.pendingWritesProperty().greaterThan(0));
+        pending.textProperty().bind(Bindings.format("Speichert... (%d)", Mainview.service.pendingWritesProperty()));
+        model = Mainview.model.getAccount(MainController.accountName);
+        transactionsList.setItems(model.getTransactions());
+        accountBalance.textProperty().bind(model.balanceText());
         ContextMenu contextMenu = new ContextMenu();
 
         deleteItem.setOnAction((event) -> {
@@ -87,19 +91,12 @@ public class AccountController implements Initializable {
 
                 Optional<ButtonType> result = dialog.showAndWait();
                 if (result.get() == ButtonType.OK) {
-                    Transaction item = transactionsList.getSelectionModel().getSelectedItem();
-                    try {
-                        Mainview.p.removeTransaction(MainController.accountName, item);
-                        transactionsList.getItems().remove(item);
-                    } catch (AccountDoesNotExistException | IOException | TransactionDoesNotExistException ex) {
-                        Alert msg = new Alert(Alert.AlertType.ERROR);
-                        msg.setTitle("Fehler");
-                        msg.setHeaderText("Es ist ein Fehler aufgetreten");
-                        msg.setContentText(ex.getMessage());
-
-                        msg.showAndWait();
-                    }
-                    setAccountBalance(Mainview.p, MainController.accountName);
+                    TransactionRow item = transactionsList.getSelectionModel().getSelectedItem();
+                    model.removeTransaction(item).whenComplete((removed, failure) -> {
+                        if (failure != null) {
+                            showError(BankService.causeOf(failure));
+                        }
+                    });
                 } else {
                     dialog.close();
                 }
@@ -192,8 +189,7 @@ public class AccountController implements Initializable {
                     Payment p = new Payment(dateText.getText(),
                             Double.parseDouble(amountText.getText()), descriptionText.getText(),
                             Double.parseDouble(incIntText.getText()), Double.parseDouble(outIntText.getText()));
-                    Mainview.p.addTransaction(accountName.getText(), p);
-                    transactionsList.getItems().add(p);
+                    submitTransaction(p);
                 } else if (choices.getValue().equals("Transfer")) {
                     if (invalidInput(inputTransferValues)) {
                         throw new TransactionAttributeException("Keine Eingabe beim Transfer");
@@ -202,23 +198,19 @@ public class AccountController implements Initializable {
                         OutgoingTransfer oT = new OutgoingTransfer(dateText.getText(),
                                 Double.parseDouble(amountText.getText()), descriptionText.getText(),
                                 senderText.getText(), recipientText.getText());
-                        Mainview.p.addTransaction(accountName.getText(), oT);
-                        transactionsList.getItems().add(oT);
+                        submitTransaction(oT);
                     } else if (recipientText.getText().equals(accountName.getText())) {
                         IncomingTransfer iT = new IncomingTransfer(dateText.getText(),
                                 Double.parseDouble(amountText.getText()), descriptionText.getText(),
                                 senderText.getText(), recipientText.getText());
-                        Mainview.p.addTransaction(accountName.getText(), iT);
-                        transactionsList.getItems().add(iT);
+                        submitTransaction(iT);
                         message.setText("");
                     } else {
                         throw new TransactionAttributeException("Weder Incoming noch Outgoing Transfer");
                     }
                 }
             }
-            setAccountBalance(Mainview.p, accountName.getText());
-        } catch (TransactionAlreadyExistException | AccountDoesNotExistException |
-                TransactionAttributeException | NumberFormatException | IOException ex) {
+        } catch (TransactionAttributeException | NumberFormatException ex) {
             Alert alert = new Alert(Alert.AlertType.ERROR);
             alert.setTitle("Fehler");
             alert.setHeaderText("Es ist ein Fehler aufgetreten");
@@ -229,6 +221,29 @@ public class AccountController implements Initializable {
     }
 
 
+    /**
+     * Shows a new transaction at once and adds it to the bank in the background. If the bank does not accept
+     * it, the model removes it again and the error is shown.
+     *
+     * @param transaction the new transaction
+     */
+    private void submitTransaction(Transaction transaction) {
+        model.addTransaction(transaction).whenComplete((result, failure) -> {
+            if (failure != null) {
+                showError(BankService.causeOf(failure));
+            }
+        });
+    }
+
+    private void showError(Throwable ex) {
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle("Fehler");
+        alert.setHeaderText("Es ist ein Fehler aufgetreten");
+        alert.setContentText(ex.getMessage());
+
+        alert.show();
+    }
+
     private boolean invalidInput(String[] inputValues) {
         for (String s : inputValues) {
             if (s.isBlank()) {
@@ -239,20 +254,18 @@ public class AccountController implements Initializable {
     }
 
     public void ascend(ActionEvent actionEvent) {
-        transactionsList.getItems().setAll(Mainview.p.getTransactionsSorted(MainController.accountName, true));
+        model.show(BankModel.TransactionView.AMOUNT_ASC);
     }
 
     public void descend(ActionEvent actionEvent) {
-        transactionsList.getItems().setAll(Mainview.p.getTransactionsSorted(MainController.accountName, false));
+        model.show(BankModel.TransactionView.AMOUNT_DESC);
     }
 
     public void positive(ActionEvent actionEvent) {
-        transactionsList.getItems().setAll(Mainview.p.getTransactionsByType(MainController.accountName, true));
+        model.show(BankModel.TransactionView.POSITIVE);
     }
 
     public void negative(ActionEvent actionEvent) {
-        transactionsList.getItems().setAll(Mainview.p.getTransactionsByType(MainController.accountName, false));
+        model.show(BankModel.TransactionView.NEGATIVE);
     }
 }
-
-
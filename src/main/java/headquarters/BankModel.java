@@ -0,0 +1,630 @@
+package headquarters;
+
+import headquarters.bank.AccountNameIndex;
+import headquarters.bank.Bank;
+import headquarters.bank.BankEvent;
+import headquarters.bank.Money;
+import headquarters.bank.PrivateBank;
+import headquarters.bank.Transaction;
+import javafx.application.Platform;
+import javafx.beans.binding.Bindings;
+import javafx.beans.binding.StringBinding;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.beans.property.ReadOnlyLongProperty;
+import javafx.beans.property.ReadOnlyLongWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Observable model of the bank for the UI. The accounts, the transactions of the opened accounts and their
+ * balances are JavaFX collections and properties, which are read once from the bank and afterwards only
+ * changed incrementally by the events of the bank. While the bank is still loaded, the names of the accounts
+ * are already listed from its directory. The transactions are shown as immutable rows, which the bank thread
+ * reads already sorted and filtered from the indexes of the bank, so the FX thread never reads a transaction
+ * of the bank and never sorts. Changes are shown at once and taken back, if the bank does not accept them.
+ * All methods have to be called on the FX thread.
+ */
+public class BankModel {
+    /**
+     * Background thread, which lists the account names and adds the transactions of an opened account page
+     * by page
+     */
+    private static final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "transaction-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final BankService service;
+    private final ObservableList<String> accounts = FXCollections.observableArrayList();
+    private final ObservableList<String> readOnlyAccounts = FXCollections.unmodifiableObservableList(accounts);
+    private final Map<String, AccountModel> accountModels = new HashMap<>();
+    /**
+     * represents the sequence number of the snapshot of the accounts, -1 until it is read
+     */
+    private long sequence = -1;
+    /**
+     * represents the events, which arrived before the snapshot of the accounts
+     */
+    private final List<BankEvent> early = new ArrayList<>();
+    private final ReadOnlyBooleanWrapper loading = new ReadOnlyBooleanWrapper(true);
+    /**
+     * represents the prefix index over the shown account names, updated with every change of the names
+     */
+    private final AccountNameIndex accountNames = new AccountNameIndex();
+
+    /**
+     * Lists the names of the accounts from the directory of the bank, subscribes to the bank and reads the
+     * accounts in the background, as soon as the bank is loaded
+     *
+     * @param service       service, which loads and owns the bank
+     * @param directoryName directory of the JSON files of the accounts
+     */
+    public BankModel(BankService service, String directoryName) {
+        this.service = service;
+        accounts.addListener((ListChangeListener<String>) change -> {
+            while (change.next()) {
+                for (String removed : change.getRemoved()) {
+                    accountNames.remove(removed);
+                }
+                for (String added : change.getAddedSubList()) {
+                    accountNames.add(added);
+                }
+            }
+        });
+        loader.execute(() -> discoverAccounts(directoryName));
+        service.read(bank -> {
+            bank.subscribe(events -> Platform.runLater(() -> apply(events)));
+            return new Snapshot<>(bank.getAllAccounts(), bank.getEventSequence());
+        }).whenComplete((snapshot, failure) -> {
+            loading.set(false);
+            if (snapshot != null) {
+                showSnapshot(snapshot.data());
+                sequence = snapshot.sequence();
+                apply(early);
+                early.clear();
+            }
+        });
+    }
+
+    /**
+     * @return true, until the accounts of the bank are read, the listed names may still change until then
+     */
+    public ReadOnlyBooleanProperty loadingProperty() {
+        return loading.getReadOnlyProperty();
+    }
+
+    /**
+     * Passes the names of the account files to the FX thread in pages, as long as the bank is loaded
+     */
+    private void discoverAccounts(String directoryName) {
+        List<String> page = new ArrayList<>();
+        try {
+            PrivateBank.listAccounts(directoryName, account -> {
+                page.add(account);
+                if (page.size() == TransactionPageLoader.PAGE_SIZE) {
+                    showDiscovered(new ArrayList<>(page));
+                    page.clear();
+                }
+            });
+        } catch (IOException e) {
+            // the accounts are shown, when the bank is loaded
+        }
+        showDiscovered(page);
+    }
+
+    private void showDiscovered(List<String> discovered) {
+        Platform.runLater(() -> {
+            if (sequence < 0) {
+                accounts.addAll(discovered);
+            }
+        });
+    }
+
+    /**
+     * Replaces the listed names by the accounts of the bank and keeps the order of the names, which are
+     * contained in both
+     */
+    private void showSnapshot(List<String> bankAccounts) {
+        Set<String> contained = new HashSet<>(bankAccounts);
+        accounts.removeIf(account -> !contained.remove(account));
+        for (String account : bankAccounts) {
+            if (contained.contains(account)) {
+                accounts.add(account);
+            }
+        }
+    }
+
+    /**
+     * @return names of all accounts, in the order they were read or created
+     */
+    public ObservableList<String> getAccounts() {
+        return readOnlyAccounts;
+    }
+
+    /**
+     * Searches the shown accounts, whose names start with a prefix, ignoring the case, in O(log n + limit)
+     *
+     * @param prefix start of the names
+     * @param limit  maximal number of names
+     * @return the first matching names, sorted ignoring the case
+     */
+    public List<String> searchAccounts(String prefix, int limit) {
+        return accountNames.search(prefix, limit);
+    }
+
+    /**
+     * Returns the model of an account, its transactions are read in the background, when it is opened first
+     *
+     * @param account name of the account
+     * @return model of the account
+     */
+    public AccountModel getAccount(String account) {
+        return accountModels.computeIfAbsent(account, AccountModel::new);
+    }
+
+    /**
+     * Shows a new account at once and creates it in the background
+     *
+     * @param account name of the account
+     * @return future, which completes on the FX thread, exceptionally if the bank did not create the account
+     */
+    public CompletableFuture<Void> createAccount(String account) {
+        boolean shown = !accounts.contains(account);
+        if (shown) {
+            accounts.add(account);
+        }
+        return service.write(bank -> bank.createAccount(account)).whenComplete((result, failure) -> {
+            if (failure != null && shown) {
+                accounts.remove(account);
+            }
+        });
+    }
+
+    /**
+     * Hides an account at once and deletes it in the background
+     *
+     * @param account name of the account
+     * @return future, which completes on the FX thread, exceptionally if the bank did not delete the account
+     */
+    public CompletableFuture<Void> deleteAccount(String account) {
+        int index = accounts.indexOf(account);
+        if (index >= 0) {
+            accounts.remove(index);
+        }
+        return service.write(bank -> bank.deleteAccount(account)).whenComplete((result, failure) -> {
+            if (failure != null && index >= 0) {
+                accounts.add(Math.min(index, accounts.size()), account);
+            }
+        });
+    }
+
+    /**
+     * Applies a batch of events of the bank, events, which are already contained in a snapshot, are skipped
+     */
+    private void apply(List<BankEvent> events) {
+        if (sequence < 0) {
+            early.addAll(events);
+            return;
+        }
+        for (BankEvent event : events) {
+            if (event.sequence() <= sequence) {
+                continue;
+            }
+            sequence = event.sequence();
+            switch (event.type()) {
+                case ACCOUNT_CREATED -> {
+                    if (!accounts.contains(event.account())) {
+                        accounts.add(event.account());
+                    }
+                }
+                case ACCOUNT_DELETED -> {
+                    accounts.remove(event.account());
+                    AccountModel model = accountModels.remove(event.account());
+                    if (model != null) {
+                        model.close();
+                    }
+                }
+                case TRANSACTION_ADDED, TRANSACTION_REMOVED -> {
+                    AccountModel model = accountModels.get(event.account());
+                    if (model != null) {
+                        model.apply(event);
+                    }
+                }
+                case ACCOUNT_REPRICED -> {
+                    AccountModel model = accountModels.get(event.account());
+                    if (model != null) {
+                        model.readBalance();
+                        model.readTransactions();
+                    }
+                }
+                case RATES_CHANGED -> {
+                    // the balances only change, when the payments are repriced with the new rates
+                }
+            }
+        }
+    }
+
+    /**
+     * Data read from the bank together with the sequence number of the last event it contains
+     */
+    private record Snapshot<T>(T data, long sequence) {
+    }
+
+    /**
+     * Builds the rows of transactions on the bank thread, which owns them
+     */
+    private static List<TransactionRow> rows(List<Transaction> transactions) {
+        List<TransactionRow> rows = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            rows.add(TransactionRow.of(transaction));
+        }
+        return rows;
+    }
+
+    /**
+     * Selection and order of the shown transactions of an account. Every view is read from the indexes of the
+     * bank, equal amounts stay in the order they were added, like in the indexes.
+     */
+    public enum TransactionView {
+        /**
+         * all transactions in the order they were added
+         */
+        ADDED,
+        /**
+         * all transactions ascending by their calculated amount
+         */
+        AMOUNT_ASC,
+        /**
+         * all transactions descending by their calculated amount
+         */
+        AMOUNT_DESC,
+        /**
+         * the transactions with a positive calculated amount or zero, ascending
+         */
+        POSITIVE,
+        /**
+         * the transactions with a negative calculated amount, ascending
+         */
+        NEGATIVE;
+
+        /**
+         * Reads the transactions of the view on the bank thread
+         */
+        private List<Transaction> read(Bank bank, String account) {
+            return switch (this) {
+                case ADDED -> bank.getTransactions(account);
+                case AMOUNT_ASC -> bank.getTransactionsSorted(account, true);
+                case AMOUNT_DESC -> bank.getTransactionsSorted(account, false);
+                case POSITIVE -> bank.getTransactionsByType(account, true);
+                case NEGATIVE -> bank.getTransactionsByType(account, false);
+            };
+        }
+
+        private boolean shows(TransactionRow row) {
+            return switch (this) {
+                case POSITIVE -> row.cents() >= 0;
+                case NEGATIVE -> row.cents() < 0;
+                default -> true;
+            };
+        }
+
+        /**
+         * Finds the position of a row, which was just added to the account, with a binary search. It goes behind
+         * the rows with the same amount, because they were added before.
+         */
+        private int positionOf(List<TransactionRow> rows, TransactionRow row) {
+            if (this == ADDED) {
+                return rows.size();
+            }
+            int low = 0;
+            int high = rows.size();
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                long cents = rows.get(middle).cents();
+                if (this == AMOUNT_DESC ? cents >= row.cents() : cents <= row.cents()) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Observable transactions and balance of one account. The transactions are the rows of the chosen view.
+     */
+    public final class AccountModel {
+        private final String account;
+        private final ObservableList<TransactionRow> transactions = FXCollections.observableArrayList();
+        private final ObservableList<TransactionRow> readOnlyTransactions =
+                FXCollections.unmodifiableObservableList(transactions);
+        private final ReadOnlyLongWrapper balanceCents = new ReadOnlyLongWrapper();
+        private TransactionView view = TransactionView.ADDED;
+        /**
+         * represents the sequence number of the snapshot of the rows, -1 until all pages are added
+         */
+        private long loadedSequence = -1;
+        /**
+         * represents the sequence number of the last event, whose change the rows contain, -1 while the rows
+         * are read
+         */
+        private long shownSequence = -1;
+        /**
+         * represents the number of the last read of the rows, the results of older reads are dropped
+         */
+        private int reads;
+        /**
+         * represents the sequence number of the last read balance, events up to it are already contained
+         */
+        private long balanceSequence = -1;
+        /**
+         * represents the number of balance reads, which are not completed yet
+         */
+        private int balanceReads;
+        /**
+         * represents the events, which arrived while the balance was read, they are added to the read balance,
+         * if it does not contain them yet
+         */
+        private final List<BankEvent> balanceEvents = new ArrayList<>();
+        /**
+         * represents the events, which arrived while the rows were loaded
+         */
+        private final List<BankEvent> early = new ArrayList<>();
+        /**
+         * represents the rows, which were shown at once and added by the bank, by the sequence number of their
+         * event, which replaces them with the row of the bank
+         */
+        private final Map<Long, TransactionRow> shownAdds = new HashMap<>();
+        /**
+         * represents the loader of the rows, null until the snapshot is read
+         */
+        private TransactionPageLoader pages;
+        /**
+         * represents whether the account was deleted, so its transactions are not loaded anymore
+         */
+        private boolean closed;
+
+        private AccountModel(String account) {
+            this.account = account;
+            readTransactions();
+            readBalance();
+        }
+
+        /**
+         * @return the rows of the transactions of the account in the chosen view
+         */
+        public ObservableList<TransactionRow> getTransactions() {
+            return readOnlyTransactions;
+        }
+
+        /**
+         * Chooses the view of the transactions, the rows of the view are read from the bank in the background
+         *
+         * @param view selection and order of the shown transactions
+         */
+        public void show(TransactionView view) {
+            if (this.view != view) {
+                this.view = view;
+                readTransactions();
+            }
+        }
+
+        /**
+         * @return balance of the account in cents
+         */
+        public ReadOnlyLongProperty balanceCentsProperty() {
+            return balanceCents.getReadOnlyProperty();
+        }
+
+        /**
+         * @return text of the balance for a label
+         */
+        public StringBinding balanceText() {
+            return Bindings.createStringBinding(() -> "Account balance: " + Money.toDouble(balanceCents.get()),
+                    balanceCents);
+        }
+
+        /**
+         * Shows a new transaction at once and adds it in the background. The shown row is built from a copy,
+         * because the transaction itself belongs to the bank, as soon as it is passed.
+         *
+         * @param transaction the new transaction
+         * @return future, which completes on the FX thread, exceptionally if the bank did not add it
+         */
+        public CompletableFuture<Void> addTransaction(Transaction transaction) {
+            TransactionRow row = TransactionRow.of(transaction);
+            if (view.shows(row)) {
+                transactions.add(view.positionOf(transactions, row), row);
+            }
+            return service.writeAndRead(bank -> {
+                bank.addTransaction(account, transaction);
+                return bank.getEventSequence();
+            }).whenComplete((sequence, failure) -> {
+                if (failure != null || sequence <= shownSequence) {
+                    // either the row is not added or the rows already contain the row of the bank
+                    removeRow(row);
+                } else {
+                    shownAdds.put(sequence, row);
+                }
+            }).thenApply(sequence -> null);
+        }
+
+        /**
+         * Hides a transaction at once and removes it in the background
+         *
+         * @param row the row of the removed transaction
+         * @return future, which completes on the FX thread, exceptionally if the bank did not remove it
+         */
+        public CompletableFuture<Void> removeTransaction(TransactionRow row) {
+            int index = removeRow(row);
+            return service.write(bank -> bank.removeTransaction(account, row.transaction())).whenComplete((result, failure) -> {
+                if (failure != null && index >= 0) {
+                    transactions.add(Math.min(index, transactions.size()), row);
+                }
+            });
+        }
+
+        /**
+         * Stops loading the transactions, after the account was deleted
+         */
+        private void close() {
+            closed = true;
+            if (pages != null) {
+                pages.cancel();
+            }
+        }
+
+        /**
+         * Reads the rows of the view again, e.g. after the view was chosen or the payments were repriced. The
+         * bank thread reads and sorts them, the loader hands them to the FX thread page by page, the first page
+         * replaces the shown rows.
+         */
+        private void readTransactions() {
+            if (pages != null) {
+                pages.cancel();
+                pages = null;
+            }
+            loadedSequence = -1;
+            shownSequence = -1;
+            int read = ++reads;
+            TransactionView shown = view;
+            service.read(bank -> new Snapshot<>(rows(shown.read(bank, account)), bank.getEventSequence()))
+                    .thenAccept(snapshot -> {
+                        if (closed || read != reads) {
+                            return;
+                        }
+                        TransactionPageLoader loader = new TransactionPageLoader(snapshot.data(), transactions);
+                        pages = loader;
+                        // the pages are passed to the FX thread before the loader succeeds
+                        loader.setOnSucceeded(event -> {
+                            if (pages == loader) {
+                                showSnapshot(snapshot.sequence());
+                            }
+                        });
+                        BankModel.loader.execute(loader);
+                    });
+        }
+
+        /**
+         * Applies the events, which arrived while the rows were loaded, after all pages were added
+         */
+        private void showSnapshot(long sequence) {
+            loadedSequence = sequence;
+            shownSequence = sequence;
+            // the snapshot already contains the rows of the bank for these rows shown at once
+            for (Iterator<Map.Entry<Long, TransactionRow>> it = shownAdds.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<Long, TransactionRow> shown = it.next();
+                if (shown.getKey() <= sequence) {
+                    removeRow(shown.getValue());
+                    it.remove();
+                }
+            }
+            for (BankEvent earlyEvent : early) {
+                applyToTransactions(earlyEvent);
+            }
+            early.clear();
+        }
+
+        /**
+         * Reads the balance again, e.g. after the payments of the account were repriced
+         */
+        private void readBalance() {
+            balanceReads++;
+            service.read(bank -> new Snapshot<>(bank.getAccountBalanceCents(account), bank.getEventSequence()))
+                    .thenAccept(snapshot -> {
+                        long balance = snapshot.data();
+                        for (BankEvent event : balanceEvents) {
+                            if (event.sequence() > snapshot.sequence()) {
+                                balance += centsOf(event);
+                            }
+                        }
+                        balanceCents.set(balance);
+                        balanceSequence = snapshot.sequence();
+                        if (--balanceReads == 0) {
+                            balanceEvents.clear();
+                        }
+                    });
+        }
+
+        private void apply(BankEvent event) {
+            if (balanceReads > 0) {
+                balanceEvents.add(event);
+            }
+            if (event.sequence() > balanceSequence) {
+                balanceCents.set(balanceCents.get() + centsOf(event));
+            }
+            applyToTransactions(event);
+        }
+
+        /**
+         * Applies an added or removed transaction to the rows. The transaction of the event is a copy, which
+         * nobody else changes, so its row is built on the FX thread.
+         */
+        private void applyToTransactions(BankEvent event) {
+            if (loadedSequence < 0) {
+                early.add(event);
+                return;
+            }
+            if (event.sequence() <= loadedSequence) {
+                return;
+            }
+            shownSequence = event.sequence();
+            if (event.type() == BankEvent.Type.TRANSACTION_ADDED) {
+                TransactionRow shown = shownAdds.remove(event.sequence());
+                if (shown != null) {
+                    removeRow(shown);
+                }
+                TransactionRow row = TransactionRow.ofCopy(event.transaction());
+                if (view.shows(row)) {
+                    transactions.add(view.positionOf(transactions, row), row);
+                }
+            } else {
+                // a row hidden at once is not found anymore
+                for (int i = 0; i < transactions.size(); i++) {
+                    if (transactions.get(i).transaction().equals(event.transaction())) {
+                        transactions.remove(i);
+                        break;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Removes the row itself, not an equal one
+         *
+         * @return former position of the row, -1 if it was not shown
+         */
+        private int removeRow(TransactionRow row) {
+            for (int i = 0; i < transactions.size(); i++) {
+                if (transactions.get(i) == row) {
+                    transactions.remove(i);
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Returns the change of the balance by an event, calculated by the bank thread, which owns the transaction
+         */
+        private long centsOf(BankEvent event) {
+            return event.type() == BankEvent.Type.TRANSACTION_ADDED ? event.cents() : -event.cents();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package headquarters;
+
+import headquarters.bank.Bank;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Background service, which owns the bank of the UI. The bank is loaded and all reads and writes are executed
+ * one after another on the bank thread, so neither loading the accounts nor the slow file writes of the bank
+ * block the FX thread. Reads and writes submitted while the bank is loaded wait for it. The returned futures
+ * complete on the FX thread, so the controllers can update their views in the callbacks.
+ */
+public class BankService {
+    /**
+     * Change of the bank, which may throw the checked exceptions of the bank
+     */
+    @FunctionalInterface
+    public interface Command {
+        void execute(Bank bank) throws Exception;
+    }
+
+    /**
+     * Change of the bank, which returns a value read from the bank right after the change
+     */
+    @FunctionalInterface
+    public interface Update<T> {
+        T execute(Bank bank) throws Exception;
+    }
+
+    /**
+     * represents the bank, only touched by the bank thread after it was loaded
+     */
+    private Bank bank;
+    private final ExecutorService bankThread = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "bank");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /**
+     * represents the number of submitted writes, which are not completed yet, only changed on the FX thread
+     */
+    private final ReadOnlyIntegerWrapper pendingWrites = new ReadOnlyIntegerWrapper();
+
+    private final CompletableFuture<Void> loaded;
+
+    /**
+     * Starts loading the bank on the bank thread
+     *
+     * @param loader creates the bank, e.g. by reading all accounts
+     */
+    public BankService(Callable<? extends Bank> loader) {
+        loaded = CompletableFuture.runAsync(() -> {
+            try {
+                bank = loader.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, bankThread).whenCompleteAsync((result, failure) -> {
+        }, Platform::runLater);
+    }
+
+    /**
+     * @return future, which completes on the FX thread after the bank was loaded, exceptionally if it could
+     * not be loaded
+     */
+    public CompletableFuture<Void> loaded() {
+        return loaded;
+    }
+
+    /**
+     * Reads from the bank on the bank thread
+     *
+     * @param query reads the result from the bank
+     * @param <T>   type of the result
+     * @return future of the result, which completes on the FX thread
+     */
+    public <T> CompletableFuture<T> read(Function<Bank, T> query) {
+        return CompletableFuture.supplyAsync(() -> query.apply(loadedBank()), bankThread)
+                .whenCompleteAsync((result, failure) -> {
+                }, Platform::runLater);
+    }
+
+    /**
+     * Submits a change of the bank, which is executed on the bank thread after all changes submitted before.
+     * The number of pending writes is increased until the change is completed.
+     *
+     * @param command change of the bank
+     * @return future, which completes on the FX thread, exceptionally with the exception of the command
+     */
+    public CompletableFuture<Void> write(Command command) {
+        return writeAndRead(bank -> {
+            command.execute(bank);
+            return null;
+        });
+    }
+
+    /**
+     * Submits a change of the bank like {@link #write(Command)}, which returns a value read on the bank thread
+     * right after the change, e.g. the sequence number of its event
+     *
+     * @param update change of the bank, which returns the value
+     * @param <T>    type of the value
+     * @return future of the value, which completes on the FX thread, exceptionally with the exception of the
+     * change
+     */
+    public <T> CompletableFuture<T> writeAndRead(Update<T> update) {
+        pendingWrites.set(pendingWrites.get() + 1);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return update.execute(loadedBank());
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, bankThread).whenCompleteAsync((result, failure) -> pendingWrites.set(pendingWrites.get() - 1),
+                Platform::runLater);
+    }
+
+    private Bank loadedBank() {
+        if (bank == null) {
+            throw new IllegalStateException("The bank could not be loaded");
+        }
+        return bank;
+    }
+
+    /**
+     * @return number of submitted writes, which are not completed yet
+     */
+    public ReadOnlyIntegerProperty pendingWritesProperty() {
+        return pendingWrites.getReadOnlyProperty();
+    }
+
+    /**
+     * Unwraps the exception of a failed future
+     *
+     * @param failure exception passed to a callback of a future
+     * @return the exception thrown by the bank
+     */
+    public static Throwable causeOf(Throwable failure) {
+        return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+    }
+}
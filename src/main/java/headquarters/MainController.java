@@ -6,6 +6,10 @@ import headquarters.bank.exceptions.AccountDoesNotExistException;
 import headquarters.bank.exceptions.TransactionAlreadyExistException;
 import headquarters.bank.exceptions.TransactionAttributeException;
 import javafx.beans.binding.Bindings;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.WeakListChangeListener;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -18,7 +22,6 @@ import javafx.stage.Stage;
 
 import java.io.IOException;
 import java.net.URL;
-import java.util.List;
 import java.util.Optional;
 import java.util.ResourceBundle;
 
@@ -28,12 +31,37 @@ import java.util.ResourceBundle;
  * transactions
  */
 public class MainController implements Initializable {
-    private List<String> accounts = Mainview.p.getAllAccounts();
     public static String accountName;
 
     @FXML
     private ListView<String> mainListView;
 
+    @FXML
+    private Label pending;
+
+    @FXML
+    private Label mainListLabel;
+
+    @FXML
+    private TextField search;
+
+    /**
+     * represents the maximal number of accounts shown for a search
+     */
+    private static final int SEARCH_LIMIT = 200;
+
+    private final ObservableList<String> searchResults = FXCollections.observableArrayList();
+
+    /**
+     * updates the search results, when the accounts change. The accounts of the model outlive the page, which
+     * is loaded again on every visit, so the listener is only weakly registered and held by this controller.
+     */
+    private final ListChangeListener<String> accountsListener = change -> {
+        if (!search.getText().isBlank()) {
+            showSearchResults();
+        }
+    };
+
     private Parent root;
 
     public MainController() throws TransactionAlreadyExistException, AccountAlreadyExistsException, AccountDoesNotExistException, TransactionAttributeException, IOException {
@@ -41,7 +69,22 @@ public class MainController implements Initializable {
 
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        mainListView.getItems().addAll(accounts);
+        pending.visibleProperty().bind(Mainview.service.pendingWritesProperty().greaterThan(0));
+        pending.textProperty().bind(Bindings.format("Speichert... (%d)", Mainview.service.pendingWritesProperty()));
+        mainListView.setItems(Mainview.model.getAccounts());
+        Label placeholder = new Label();
+        placeholder.textProperty().bind(Bindings.when(Mainview.model.loadingProperty())
+                .then("Accounts werden geladen...").otherwise("Keine Accounts"));
+        mainListView.setPlaceholder(placeholder);
+        search.textProperty().addListener((obs, oldText, text) -> showSearchResults());
+        Mainview.model.getAccounts().addListener(new WeakListChangeListener<>(accountsListener));
+        mainListLabel.textProperty().bind(Bindings.when(Mainview.model.loadingProperty())
+                .then("Mainview (lädt...)").otherwise("Mainview"));
+        Mainview.service.loaded().whenComplete((result, failure) -> {
+            if (failure != null) {
+                showError(BankService.causeOf(failure));
+            }
+        });
 
         mainListView.setCellFactory(lv -> {
 
@@ -64,7 +107,6 @@ public class MainController implements Initializable {
 
                 AccountController accountController = loader.getController();
                 accountController.setAccountName(accountName);
-                accountController.setAccountBalance(Mainview.p, accountName);
 
                 Stage s = Mainview.stage;
                 Scene scene = new Scene(root);
@@ -90,17 +132,12 @@ public class MainController implements Initializable {
                 Optional<ButtonType> result = dialog.showAndWait();
                 if (result.get() == ButtonType.OK) {
                     String item = cell.getItem();
-                    try {
-                        Mainview.p.deleteAccount(item);
-                        mainListView.getItems().remove(item);
-                    } catch (AccountDoesNotExistException | IOException ex) {
-                        Alert alert = new Alert(Alert.AlertType.ERROR);
-                        alert.setTitle("Fehler");
-                        alert.setHeaderText("Es ist ein Fehler aufgetreten");
-                        alert.setContentText(ex.getMessage());
-
-                        alert.showAndWait();
-                    }
+                    // the account disappears at once and comes back, if the bank could not delete it
+                    Mainview.model.deleteAccount(item).whenComplete((deleted, failure) -> {
+                        if (failure != null) {
+                            showError(BankService.causeOf(failure));
+                        }
+                    });
                 } else {
                     dialog.close();
                 }
@@ -123,6 +160,20 @@ public class MainController implements Initializable {
     }
 
 
+    /**
+     * Shows all accounts for an empty search field, otherwise only the first accounts, whose names start
+     * with the search text
+     */
+    private void showSearchResults() {
+        String prefix = search.getText().trim();
+        if (prefix.isEmpty()) {
+            mainListView.setItems(Mainview.model.getAccounts());
+        } else {
+            searchResults.setAll(Mainview.model.searchAccounts(prefix, SEARCH_LIMIT));
+            mainListView.setItems(searchResults);
+        }
+    }
+
     public void createAccount(ActionEvent actionEvent) {
 
         TextInputDialog inputDialog = new TextInputDialog();
@@ -143,19 +194,24 @@ public class MainController implements Initializable {
                 alert.showAndWait();
             } else {
                 String accName = inputDialog.getResult();
-                try {
-                    Mainview.p.createAccount(accName);
-                    mainListView.getItems().add(accName);
-                } catch (AccountAlreadyExistsException | IOException ex) {
-                    Alert alert = new Alert(Alert.AlertType.ERROR);
-                    alert.setTitle("Fehler");
-                    alert.setHeaderText("Es ist ein Fehler aufgetreten");
-                    alert.setContentText(ex.getMessage());
-                    alert.showAndWait();
-                }
+                // the account is shown at once and removed again, if the bank could not create it
+                Mainview.model.createAccount(accName).whenComplete((result, failure) -> {
+                    if (failure != null) {
+                        showError(BankService.causeOf(failure));
+                    }
+                });
             }
         });
 
         inputDialog.showAndWait();
     }
+
+    private void showError(Throwable ex) {
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle("Fehler");
+        alert.setHeaderText("Es ist ein Fehler aufgetreten");
+        alert.setContentText(ex.getMessage());
+
+        alert.show();
+    }
 }
@@ -1,7 +1,7 @@
 package headquarters;
 
+import headquarters.bank.InstrumentedBank;
 import headquarters.bank.PrivateBank;
-import headquarters.bank.exceptions.*;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -24,15 +24,25 @@ public class Mainview extends Application {
     }
 
     /**
-     * Instantiation of the private bank and stage to be able to transition and use their values in
-     * another controllers
+     * Instantiation of the bank service, its model and the stage to be able to transition and use their values
+     * in another controllers. The controllers read and change the bank only through the service and show the
+     * observable model.
      */
-    public static PrivateBank p;
+    public static BankService service;
+    public static BankModel model;
     public static Stage stage;
 
+    /**
+     * Shows the main window at once, the bank is loaded in the background by the service. The bank is
+     * instrumented, so the metrics of its operations and of its account files are shown by JMX.
+     */
     @Override
-    public void start(Stage primaryStage) throws IOException, TransactionAlreadyExistException, AccountAlreadyExistsException, AccountDoesNotExistException, TransactionAttributeException {
-        p = new PrivateBank("Sparkasse", 0.3, 0.2);
+    public void start(Stage primaryStage) throws IOException {
+        service = new BankService(() -> {
+            PrivateBank bank = new PrivateBank("Sparkasse", 0.3, 0.2);
+            return new InstrumentedBank(bank.getName(), bank);
+        });
+        model = new BankModel(service, PrivateBank.DEFAULT_DIRECTORY);
         FXMLLoader fxmlLoader = new FXMLLoader(getClass().getClassLoader().getResource("mainpage.fxml"));
         Scene scene = new Scene(fxmlLoader.load(), 618, 512);
         stage = primaryStage;
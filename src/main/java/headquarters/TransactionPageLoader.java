@@ -0,0 +1,62 @@
+package headquarters;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Background task, which hands a snapshot of the rows of an account to the FX thread page by page.
+ * The next page is only posted after the FX thread added the previous one, so the FX thread handles input and
+ * rendering between the pages. The first page replaces the shown rows, it is shown, while the rest is still
+ * added, and the ListView only creates cells for the visible rows. The rows are already sorted and filtered,
+ * so the FX thread only appends them. The loader is cancelled, when its account is deleted or the rows are read
+ * again.
+ */
+class TransactionPageLoader extends Task<Integer> {
+    /**
+     * represents the number of rows, which are added to the list at once
+     */
+    static final int PAGE_SIZE = 500;
+    private final List<TransactionRow> snapshot;
+    private final ObservableList<TransactionRow> target;
+
+    /**
+     * @param snapshot rows of the account, built on the bank thread
+     * @param target   list, which is only changed on the FX thread
+     */
+    TransactionPageLoader(List<TransactionRow> snapshot, ObservableList<TransactionRow> target) {
+        this.snapshot = snapshot;
+        this.target = target;
+    }
+
+    @Override
+    protected Integer call() throws InterruptedException {
+        int size = snapshot.size();
+        int from = 0;
+        // the first page is posted, even if it is empty, so the shown rows are always replaced
+        do {
+            int to = Math.min(from + PAGE_SIZE, size);
+            List<TransactionRow> page = snapshot.subList(from, to);
+            boolean first = from == 0;
+            CountDownLatch added = new CountDownLatch(1);
+            // a page, which was already posted, is dropped, if the loader was cancelled meanwhile
+            Platform.runLater(() -> {
+                if (!isCancelled()) {
+                    if (first) {
+                        target.setAll(page);
+                    } else {
+                        target.addAll(page);
+                    }
+                }
+                added.countDown();
+            });
+            added.await();
+            updateProgress(to, size);
+            from = to;
+        } while (from < size && !isCancelled());
+        return size;
+    }
+}
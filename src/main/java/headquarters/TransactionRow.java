@@ -0,0 +1,40 @@
+package headquarters;
+
+import headquarters.bank.Transaction;
+
+/**
+ * Row of a transaction in the views. A row is built from a copy of the transaction, which is never changed,
+ * so the FX thread reads and sorts it, while the bank keeps changing its own transaction. The calculated amount
+ * and the text are taken from the transaction, when the row is built.
+ *
+ * @param transaction copy of the transaction, e.g. to remove the transaction from the bank
+ * @param cents       calculated amount of the transaction in cents
+ * @param text        shown text of the transaction
+ */
+public record TransactionRow(Transaction transaction, long cents, String text) {
+
+    /**
+     * Builds the row on the thread, which owns the transaction
+     *
+     * @param transaction the shown transaction, which is copied
+     * @return new row
+     */
+    static TransactionRow of(Transaction transaction) {
+        return ofCopy(Transaction.copyOf(transaction));
+    }
+
+    /**
+     * Builds the row of a copy, which nobody else changes, e.g. the transaction of an event
+     *
+     * @param copy the shown copy
+     * @return new row
+     */
+    static TransactionRow ofCopy(Transaction copy) {
+        return new TransactionRow(copy, copy.calculateCents(), copy.toString());
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
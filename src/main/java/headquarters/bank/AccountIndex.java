@@ -0,0 +1,329 @@
+package headquarters.bank;
+
+import headquarters.bank.kernel.AmountKernels;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Index of one account, which keeps the balance and all transactions sorted by their calculated amount.
+ * The negative transactions form the beginning of the sorted array and the positive ones the end, so the
+ * sorted view and both partitions are read without recalculating anything. The index registers itself
+ * at its transactions and is corrected, whenever the calculated amount of one of them changes.
+ * Equal amounts are kept in the order, in which the transactions were added to the account, and are read in
+ * this order in both directions, like a stable sort of the transactions of the account.
+ */
+class AccountIndex implements TransactionListener {
+    private final AmountKernels kernels = AmountKernels.PREFERRED;
+    /**
+     * transactions sorted ascending by calculated amount, equal amounts in the order they were added
+     */
+    private Transaction[] sorted = new Transaction[8];
+    /**
+     * calculated amounts of the sorted transactions in cents, the sort keys
+     */
+    private long[] keys = new long[8];
+    /**
+     * numbers of the sorted transactions in the order they were added, which order equal keys
+     */
+    private long[] added = new long[8];
+    /**
+     * represents the number of the next added transaction
+     */
+    private long nextAdded;
+    private int size;
+    private long balance;
+
+    /**
+     * Adds a transaction to the index
+     *
+     * @param transaction added to the account
+     */
+    void add(Transaction transaction) {
+        transaction.addListener(this);
+        long cents = transaction.calculateCents();
+        insert(transaction, cents, nextAdded++);
+        balance += cents;
+    }
+
+    /**
+     * Removes a transaction from the index
+     *
+     * @param transaction removed from the account
+     */
+    void remove(Transaction transaction) {
+        transaction.removeListener(this);
+        int position = positionOf(transaction, transaction.calculateCents());
+        if (position >= 0) {
+            balance -= keys[position];
+            delete(position);
+        }
+    }
+
+    /**
+     * Removes all transactions, e.g. because the account is deleted
+     */
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            sorted[i].removeListener(this);
+            sorted[i] = null;
+        }
+        size = 0;
+        balance = 0;
+    }
+
+    /**
+     * Calculates all keys again and sorts the transactions, after their amounts were changed without
+     * informing the index. The registrations at the transactions stay as they are.
+     *
+     * @param transactions all transactions of the account in the order they were added
+     */
+    void reorder(List<Transaction> transactions) {
+        TransactionColumns columns = TransactionColumns.of(transactions);
+        // the sort is stable, so equal keys keep the order of the account
+        columns.sortIndices(true);
+        for (int i = 0; i < size; i++) {
+            sorted[i] = transactions.get(columns.selected[i]);
+            keys[i] = columns.calculated[columns.selected[i]];
+            added[i] = columns.selected[i];
+        }
+        nextAdded = size;
+        balance = kernels.sum(keys, size);
+    }
+
+    @Override
+    public void amountChanged(Transaction transaction, long oldCents, long newCents) {
+        int position = positionOf(transaction, oldCents);
+        if (position >= 0) {
+            long number = added[position];
+            delete(position);
+            insert(transaction, newCents, number);
+            balance += newCents - oldCents;
+        }
+    }
+
+    /**
+     * @return balance of the account in cents
+     */
+    long getBalance() {
+        return balance;
+    }
+
+    /**
+     * @return sum of the positive calculated amounts in cents
+     */
+    long getCredits() {
+        return kernels.sumCredits(keys, size);
+    }
+
+    /**
+     * @return sum of the negative calculated amounts in cents
+     */
+    long getDebits() {
+        return kernels.sumDebits(keys, size);
+    }
+
+    /**
+     * Returns all transactions sorted by their calculated amount
+     *
+     * @param asc selects if the list is sorted in ascending or descending order
+     * @return new list of the sorted transactions
+     */
+    List<Transaction> getSorted(boolean asc) {
+        List<Transaction> result = new ArrayList<>(size);
+        for (Iterator<Transaction> it = iterator(Long.MIN_VALUE, Long.MAX_VALUE, asc); it.hasNext(); ) {
+            result.add(it.next());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the first transactions of the sorted order, read directly from the ends of the sorted array
+     *
+     * @param k   maximal number of returned transactions
+     * @param asc selects if the smallest or the largest amounts are returned
+     * @return new list of at most k transactions
+     */
+    List<Transaction> getTop(int k, boolean asc) {
+        int count = Math.min(k, size);
+        List<Transaction> result = new ArrayList<>(count);
+        Iterator<Transaction> it = iterator(Long.MIN_VALUE, Long.MAX_VALUE, asc);
+        for (int i = 0; i < count; i++) {
+            result.add(it.next());
+        }
+        return result;
+    }
+
+    /**
+     * Counts the transactions with a calculated amount between min and max (inclusive) with two binary searches
+     *
+     * @param min smallest calculated amount in cents
+     * @param max largest calculated amount in cents
+     * @return number of transactions in the range
+     */
+    int count(long min, long max) {
+        return Math.max(0, upperBound(max) - lowerBound(min));
+    }
+
+    /**
+     * Returns the transactions with a calculated amount between min and max (inclusive)
+     *
+     * @param min smallest calculated amount in cents
+     * @param max largest calculated amount in cents
+     * @param asc selects if the range is returned in ascending or descending order
+     * @return new list of the transactions in the range
+     */
+    List<Transaction> range(long min, long max, boolean asc) {
+        List<Transaction> result = new ArrayList<>(count(min, max));
+        for (Iterator<Transaction> it = iterator(min, max, asc); it.hasNext(); ) {
+            result.add(it.next());
+        }
+        return result;
+    }
+
+    /**
+     * Returns a cursor over the transactions with a calculated amount between min and max (inclusive), which
+     * reads the sorted array only as far as it is advanced. In descending order the groups of equal amounts
+     * are read from the largest amount, each group in the order it was added. The index must not be changed
+     * while the cursor is used.
+     *
+     * @param min smallest calculated amount in cents
+     * @param max largest calculated amount in cents
+     * @param asc selects if the range is returned in ascending or descending order
+     * @return cursor over the transactions in the range
+     */
+    Iterator<Transaction> iterator(long min, long max, boolean asc) {
+        int from = lowerBound(min);
+        int to = upperBound(max);
+        return new Iterator<>() {
+            private int next = asc ? from : to;
+            /**
+             * bounds of the group of equal amounts, which is read in descending order
+             */
+            private int groupStart = to, groupEnd = to;
+
+            @Override
+            public boolean hasNext() {
+                return asc ? next < to : next < groupEnd || groupStart > from;
+            }
+
+            @Override
+            public Transaction next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (!asc && next == groupEnd) {
+                    groupEnd = groupStart;
+                    groupStart = Math.max(from, lowerBound(keys[groupEnd - 1]));
+                    next = groupStart;
+                }
+                return sorted[next++];
+            }
+        };
+    }
+
+    /**
+     * Returns either the positive (including zero) or the negative transactions, ascending by amount
+     *
+     * @param positive selects if positive or negative transactions are listed
+     * @return new list of the transactions of one partition
+     */
+    List<Transaction> getPartition(boolean positive) {
+        int boundary = lowerBound(0);
+        int from = positive ? boundary : 0;
+        int to = positive ? size : boundary;
+        List<Transaction> result = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            result.add(sorted[i]);
+        }
+        return result;
+    }
+
+    /**
+     * @return number of transactions in the index
+     */
+    int size() {
+        return size;
+    }
+
+    private void insert(Transaction transaction, long cents, long number) {
+        if (size == sorted.length) {
+            sorted = Arrays.copyOf(sorted, size * 2);
+            keys = Arrays.copyOf(keys, size * 2);
+            added = Arrays.copyOf(added, size * 2);
+        }
+        int position = insertionPoint(cents, number);
+        System.arraycopy(sorted, position, sorted, position + 1, size - position);
+        System.arraycopy(keys, position, keys, position + 1, size - position);
+        System.arraycopy(added, position, added, position + 1, size - position);
+        sorted[position] = transaction;
+        keys[position] = cents;
+        added[position] = number;
+        size++;
+    }
+
+    private void delete(int position) {
+        System.arraycopy(sorted, position + 1, sorted, position, size - position - 1);
+        System.arraycopy(keys, position + 1, keys, position, size - position - 1);
+        System.arraycopy(added, position + 1, added, position, size - position - 1);
+        size--;
+        sorted[size] = null;
+    }
+
+    /**
+     * Returns the position among the equal keys, behind all transactions, which were added before the given
+     * number. An added transaction has the largest number and goes behind all equal keys.
+     */
+    private int insertionPoint(long cents, long number) {
+        int low = lowerBound(cents);
+        int high = upperBound(cents);
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (added[middle] < number) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds the position of the transaction itself among the transactions with the same key
+     */
+    private int positionOf(Transaction transaction, long cents) {
+        for (int i = lowerBound(cents); i < size && keys[i] == cents; i++) {
+            if (sorted[i] == transaction) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the first position, whose key is larger than the given key
+     */
+    private int upperBound(long cents) {
+        return cents == Long.MAX_VALUE ? size : lowerBound(cents + 1);
+    }
+
+    /**
+     * Returns the first position, whose key is not smaller than the given key
+     */
+    private int lowerBound(long cents) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] < cents) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,139 @@
+package headquarters.bank;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Prefix index over account names. The names are kept in a sorted array by their lower case form, so all
+ * names starting with a prefix form one range, which is found with two binary searches in O(log n). Adding
+ * and removing a name shifts the array behind its position.
+ */
+public class AccountNameIndex {
+    /**
+     * Order of the names in the index: by lower case form, equal forms by the names themselves
+     */
+    public static final Comparator<String> ORDER = Comparator.comparing(AccountNameIndex::keyOf)
+            .thenComparing(Comparator.naturalOrder());
+
+    /**
+     * lower case forms of the names, the sort keys
+     */
+    private String[] keys = new String[16];
+    /**
+     * names sorted by their keys, equal keys by the names themselves
+     */
+    private String[] names = new String[16];
+    private int size;
+
+    /**
+     * Adds a name, a name, which is already contained, is ignored
+     *
+     * @param name name of the account
+     */
+    public void add(String name) {
+        String key = keyOf(name);
+        int position = lowerBound(key, name);
+        if (position < size && names[position].equals(name)) {
+            return;
+        }
+        if (size == names.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            names = Arrays.copyOf(names, size * 2);
+        }
+        System.arraycopy(keys, position, keys, position + 1, size - position);
+        System.arraycopy(names, position, names, position + 1, size - position);
+        keys[position] = key;
+        names[position] = name;
+        size++;
+    }
+
+    /**
+     * Removes a name
+     *
+     * @param name name of the account
+     */
+    public void remove(String name) {
+        int position = lowerBound(keyOf(name), name);
+        if (position < size && names[position].equals(name)) {
+            System.arraycopy(keys, position + 1, keys, position, size - position - 1);
+            System.arraycopy(names, position + 1, names, position, size - position - 1);
+            size--;
+            keys[size] = null;
+            names[size] = null;
+        }
+    }
+
+    /**
+     * Returns the first names, which start with a prefix, ignoring the case, in O(log n + limit)
+     *
+     * @param prefix start of the names, the empty prefix matches all names
+     * @param limit  maximal number of names
+     * @return new list of the matching names, sorted ignoring the case
+     */
+    public List<String> search(String prefix, int limit) {
+        String key = keyOf(prefix);
+        int from = lowerBound(key, "");
+        int to = Math.min(upperBound(key), from + Math.max(0, limit));
+        return new ArrayList<>(Arrays.asList(names).subList(from, Math.max(from, to)));
+    }
+
+    /**
+     * Counts the names, which start with a prefix, ignoring the case, in O(log n)
+     *
+     * @param prefix start of the names
+     * @return number of matching names
+     */
+    public int count(String prefix) {
+        String key = keyOf(prefix);
+        return upperBound(key) - lowerBound(key, "");
+    }
+
+    /**
+     * @return number of names in the index
+     */
+    public int size() {
+        return size;
+    }
+
+    private static String keyOf(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the first position, whose key and name are not smaller than the given ones
+     */
+    private int lowerBound(String key, String name) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int comparison = keys[middle].compareTo(key);
+            if (comparison < 0 || (comparison == 0 && names[middle].compareTo(name) < 0)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the first position, whose key does not start with the given prefix and is larger than it
+     */
+    private int upperBound(String prefix) {
+        int low = lowerBound(prefix, "");
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle].startsWith(prefix)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -3,7 +3,16 @@ package headquarters.bank;
 import headquarters.bank.exceptions.*;
 
 import java.io.IOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.function.Function;
 
 /**
  * Interface for a generic bank. Provides multiple methods to handle the interaction between
@@ -74,6 +83,51 @@ public interface Bank {
      */
     double getAccountBalance(String account);
 
+    /**
+     * Calculates and returns the current account balance exactly in cents.
+     *
+     * @param account the selected account
+     * @return the current account balance in cents
+     */
+    default long getAccountBalanceCents(String account) {
+        long accountBalance = 0;
+        for (Transaction t : getTransactions(account)) {
+            accountBalance += t.calculateCents();
+        }
+        return accountBalance;
+    }
+
+    /**
+     * Calculates the balance of an account at the end of a day, i.e. of all transactions up to that date.
+     * Transactions with a date, which cannot be read, are not counted.
+     *
+     * @param account  the selected account
+     * @param asOfDate last day, whose transactions are counted
+     * @return the account balance at the end of the day
+     */
+    default double getAccountBalance(String account, LocalDate asOfDate) {
+        return Money.toDouble(getAccountBalanceCents(account, asOfDate));
+    }
+
+    /**
+     * Calculates the balance of an account at the end of a day exactly in cents. The default implementation
+     * sums up all transactions of the account up to that date.
+     *
+     * @param account  the selected account
+     * @param asOfDate last day, whose transactions are counted
+     * @return the account balance at the end of the day in cents
+     */
+    default long getAccountBalanceCents(String account, LocalDate asOfDate) {
+        long accountBalance = 0;
+        for (Transaction t : getTransactions(account)) {
+            LocalDate date = TransactionDates.parse(t.getDate());
+            if (date != null && !date.isAfter(asOfDate)) {
+                accountBalance += t.calculateCents();
+            }
+        }
+        return accountBalance;
+    }
+
     /**
      * Returns a list of transactions for an account.
      *
@@ -92,6 +146,163 @@ public interface Bank {
      */
     List<Transaction> getTransactionsSorted(String account, boolean asc);
 
+    /**
+     * Returns the first k transactions of the sorted list (-> calculated amounts) without sorting the whole
+     * account. In ascending order these are the largest debits, in descending order the largest credits.
+     * The default implementation keeps a bounded heap of k transactions and runs in O(n log k).
+     *
+     * @param account the selected account
+     * @param k       maximal number of returned transactions
+     * @param asc     selects if the smallest (ascending) or the largest (descending) amounts are returned
+     * @return at most k transactions, sorted in the selected order
+     */
+    default List<Transaction> getTopTransactions(String account, int k, boolean asc) {
+        if (k < 0) {
+            throw new IllegalArgumentException("Number of transactions must not be negative");
+        }
+        Comparator<Transaction> order = Comparator.comparingLong(Transaction::calculateCents);
+        if (!asc) {
+            order = order.reversed();
+        }
+        List<Transaction> transactions = getTransactions(account);
+        // the head of the heap is the transaction, which is dropped first, it never holds more than k + 1
+        PriorityQueue<Transaction> top = new PriorityQueue<>(Math.min(k, transactions.size()) + 1, order.reversed());
+        for (Transaction transaction : transactions) {
+            if (top.size() < k) {
+                top.add(transaction);
+            } else if (k > 0 && order.compare(transaction, top.peek()) < 0) {
+                top.poll();
+                top.add(transaction);
+            }
+        }
+        List<Transaction> result = new ArrayList<>(top);
+        result.sort(order);
+        return result;
+    }
+
+    /**
+     * Searches the transactions of an account by their descriptions. A transaction matches, if its description
+     * contains all terms of the query, ignoring case. A term ending with '*' matches every word starting with
+     * the term, e.g. "hot*" matches "Hotel". The default implementation scans all transactions of the account.
+     *
+     * @param account the selected account
+     * @param query   terms separated by spaces
+     * @return matching transactions of the account
+     */
+    default List<Transaction> searchTransactions(String account, String query) {
+        List<String> terms = DescriptionIndex.parse(query);
+        List<Transaction> result = new ArrayList<>();
+        for (Transaction transaction : getTransactions(account)) {
+            if (DescriptionIndex.matches(transaction.getDescription(), terms)) {
+                result.add(transaction);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Searches the transactions of all accounts by their descriptions, see {@link #searchTransactions(String, String)}
+     *
+     * @param query terms separated by spaces
+     * @return matching transactions by account, accounts without matches are left out
+     */
+    default Map<String, List<Transaction>> searchTransactions(String query) {
+        Map<String, List<Transaction>> result = new TreeMap<>();
+        for (String account : getAllAccounts()) {
+            List<Transaction> matches = searchTransactions(account, query);
+            if (!matches.isEmpty()) {
+                result.put(account, matches);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns all transfers of all accounts, in which the counterparty is sender or recipient. The default
+     * implementation scans all transactions of all accounts.
+     *
+     * @param counterparty name of the sender or recipient
+     * @return transfers by account, accounts without transfers of the counterparty are left out
+     */
+    default Map<String, List<Transfer>> getTransfersByCounterparty(String counterparty) {
+        Map<String, List<Transfer>> result = new TreeMap<>();
+        for (String account : getAllAccounts()) {
+            for (Transaction transaction : getTransactions(account)) {
+                if (transaction instanceof Transfer transfer && (counterparty.equals(transfer.getSender())
+                        || counterparty.equals(transfer.getRecipient()))) {
+                    result.computeIfAbsent(account, a -> new ArrayList<>()).add(transfer);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the inflow, outflow and net of an account per month for a range of months. Only months with
+     * transactions are listed, transactions with a date, which cannot be read, are left out. The default
+     * implementation calculates the rollups from all transactions of the account.
+     *
+     * @param account the selected account
+     * @param from    first month of the range
+     * @param to      last month of the range (inclusive)
+     * @return rollups of the months with transactions, in chronological order
+     */
+    default List<MonthlyRollup> getMonthlyRollups(String account, YearMonth from, YearMonth to) {
+        MonthlyRollups rollups = new MonthlyRollups();
+        rollups.rebuild(getTransactions(account));
+        return rollups.range(from, to);
+    }
+
+    /**
+     * Executes a query over the transactions of one account or of all accounts. The default implementation
+     * checks all filters in one scan over the transactions.
+     *
+     * @param query filters, order and limit of the query
+     * @return the matching transactions
+     */
+    default List<Transaction> query(TransactionQuery query) {
+        if (query.getAccount() != null) {
+            List<Transaction> transactions = getTransactions(query.getAccount());
+            return query.scan(transactions == null ? List.of() : transactions);
+        }
+        List<Transaction> transactions = new ArrayList<>();
+        for (String account : getAllAccounts()) {
+            transactions.addAll(getTransactions(account));
+        }
+        return query.scan(transactions);
+    }
+
+    /**
+     * Executes a query and maps every result, e.g. to its description or its calculated amount
+     *
+     * @param query      filters, order and limit of the query
+     * @param projection maps a transaction to the returned value
+     * @param <T>        type of the returned values
+     * @return the mapped matching transactions
+     */
+    default <T> List<T> query(TransactionQuery query, Function<? super Transaction, ? extends T> projection) {
+        List<Transaction> transactions = query(query);
+        List<T> result = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            result.add(projection.apply(transaction));
+        }
+        return result;
+    }
+
+    /**
+     * Describes how the bank executes a query, e.g. which index is used and which filters are checked afterwards
+     *
+     * @param query filters, order and limit of the query
+     * @return the plan of the query, one step per line
+     */
+    default String explain(TransactionQuery query) {
+        return "Query on " + (query.getAccount() == null ? "all accounts" : "account " + query.getAccount()) + "\n"
+                + "  access: scan\n"
+                + "  filter: " + query.describe(query.filters()) + "\n"
+                + (query.getOrder() == null ? "" : "  order: " + query.getOrder() + " (sort)\n")
+                + (query.getLimit() == Integer.MAX_VALUE ? "" : "  limit: " + query.getLimit() + "\n");
+    }
+
     /**
      * Returns a list of either positive or negative transactions (-> calculated amounts).
      *
@@ -117,5 +328,57 @@ public interface Bank {
      */
     List<String> getAllAccounts();
 
+    /**
+     * Searches the accounts, whose names start with a prefix, ignoring the case. The default implementation
+     * scans all account names.
+     *
+     * @param prefix start of the names, the empty prefix matches all accounts
+     * @param limit  maximal number of names
+     * @return the first matching names in {@link AccountNameIndex#ORDER}
+     */
+    default List<String> searchAccounts(String prefix, int limit) {
+        String key = prefix.toLowerCase(Locale.ROOT);
+        List<String> result = new ArrayList<>();
+        for (String account : getAllAccounts()) {
+            if (account.toLowerCase(Locale.ROOT).startsWith(key)) {
+                result.add(account);
+            }
+        }
+        result.sort(AccountNameIndex.ORDER);
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    /**
+     * Calculates the aggregates over all accounts in one parallel pass: total assets and liabilities, the
+     * distribution of the balances, the richest and poorest accounts and the transaction counts per type.
+     * The bank must not be changed while the report is calculated.
+     *
+     * @param topCount number of richest and poorest accounts in the report
+     * @return report over all accounts of the Bank
+     */
+    default BankReport createReport(int topCount) {
+        return BankReport.collect(this, getAllAccounts(), topCount).build();
+    }
+
+    /**
+     * Subscribes a listener, which receives all changes of the bank published afterwards. The events are
+     * delivered asynchronously and in batches, so a slow listener does not slow down the changes.
+     *
+     * @param listener the new listener
+     */
+    void subscribe(BankListener listener);
+
+    /**
+     * Unsubscribes a listener, events, which are not delivered yet, are dropped
+     *
+     * @param listener the removed listener
+     */
+    void unsubscribe(BankListener listener);
+
+    /**
+     * @return sequence number of the last published change, 0 if the bank was not changed yet
+     */
+    long getEventSequence();
+
 }
 
@@ -0,0 +1,48 @@
+package headquarters.bank;
+
+/**
+ * Change of a bank, which is published to the subscribed {@link BankListener}s. The sequence numbers of the
+ * events of one bank start with 1 and increase by one for every change, so a subscriber can tell, if it
+ * missed events or which changes it already applied.
+ *
+ * @param sequence    number of the change in the bank
+ * @param type        kind of the change
+ * @param account     the changed account, null for changes of the whole bank
+ * @param transaction copy of the added or removed transaction taken at the time of the change, so a subscriber
+ *                    never reads a transaction owned by the bank, null for changes of an account or the bank
+ * @param cents       calculated amount of the added or removed transaction in cents at the time of the change,
+ *                    0 for other changes
+ */
+public record BankEvent(long sequence, Type type, String account, Transaction transaction, long cents) {
+    /**
+     * Kinds of changes
+     */
+    public enum Type {
+        /**
+         * an account was created, the transactions it was created with follow as TRANSACTION_ADDED
+         */
+        ACCOUNT_CREATED,
+        /**
+         * an account was deleted together with all its transactions
+         */
+        ACCOUNT_DELETED,
+        /**
+         * a transaction was added to an account
+         */
+        TRANSACTION_ADDED,
+        /**
+         * a transaction was removed from an account
+         */
+        TRANSACTION_REMOVED,
+        /**
+         * the incoming or outgoing interest of the bank changed, the amounts of the payments only change, when
+         * they are repriced
+         */
+        RATES_CHANGED,
+        /**
+         * the payments of an account were repriced with the current interest, so the calculated amounts and the
+         * balance of the account changed
+         */
+        ACCOUNT_REPRICED
+    }
+}
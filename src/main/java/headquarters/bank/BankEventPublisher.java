@@ -0,0 +1,159 @@
+package headquarters.bank;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the events of a bank to its listeners. Publishing only numbers the event, copies its transaction
+ * and appends it to the queue of every subscription, the listeners are called later from daemon delivery threads with all events,
+ * which were queued in the meantime. So a slow listener only delays its own events and never the bank.
+ */
+class BankEventPublisher {
+    /**
+     * represents the maximal number of events in one batch
+     */
+    private static final int MAX_BATCH = 1024;
+    private final String name;
+    private final AtomicLong sequence = new AtomicLong();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    /**
+     * represents the delivery threads, created with the first subscription
+     */
+    private volatile ExecutorService delivery;
+
+    /**
+     * @param name used for the names of the delivery threads
+     */
+    BankEventPublisher(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Numbers an event and queues it for all listeners, synchronized so that the events are queued in the
+     * order of their numbers, even if they are published from more than one thread
+     *
+     * @param type        kind of the change
+     * @param account     the changed account, may be null
+     * @param transaction the added or removed transaction, may be null
+     * @return sequence number of the event
+     */
+    long publish(BankEvent.Type type, String account, Transaction transaction) {
+        return publish(type, account, transaction, transaction == null ? 0 : transaction.calculateCents());
+    }
+
+    /**
+     * Numbers an event with an amount, which was already calculated, e.g. when the event of another bank is
+     * forwarded
+     *
+     * @param type        kind of the change
+     * @param account     the changed account, may be null
+     * @param transaction the added or removed transaction, may be null
+     * @param cents       calculated amount of the transaction in cents, 0 without transaction
+     * @return sequence number of the event
+     */
+    synchronized long publish(BankEvent.Type type, String account, Transaction transaction, long cents) {
+        long number = sequence.incrementAndGet();
+        if (!subscriptions.isEmpty()) {
+            // the listeners read the transaction on other threads, while the bank may still change it
+            BankEvent event = new BankEvent(number, type, account,
+                    transaction == null ? null : Transaction.copyOf(transaction), cents);
+            for (Subscription subscription : subscriptions) {
+                subscription.offer(event);
+            }
+        }
+        return number;
+    }
+
+    /**
+     * @return sequence number of the last published event, 0 if no event was published
+     */
+    long getSequence() {
+        return sequence.get();
+    }
+
+    /**
+     * Subscribes a listener, which receives all events published afterwards
+     *
+     * @param listener the new listener
+     */
+    synchronized void subscribe(BankListener listener) {
+        if (delivery == null) {
+            delivery = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, name + "-events");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        subscriptions.add(new Subscription(listener));
+    }
+
+    /**
+     * Unsubscribes a listener, events, which are already queued for it, are dropped
+     *
+     * @param listener the removed listener
+     */
+    synchronized void unsubscribe(BankListener listener) {
+        for (Subscription subscription : subscriptions) {
+            if (subscription.listener == listener) {
+                subscription.active = false;
+                subscriptions.remove(subscription);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Queue of one listener, which is drained by at most one delivery thread at a time
+     */
+    private final class Subscription implements Runnable {
+        private final BankListener listener;
+        private final Queue<BankEvent> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean active = true;
+
+        private Subscription(BankListener listener) {
+            this.listener = listener;
+        }
+
+        private void offer(BankEvent event) {
+            queue.add(event);
+            if (scheduled.compareAndSet(false, true)) {
+                delivery.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            do {
+                while (!queue.isEmpty()) {
+                    List<BankEvent> batch = new ArrayList<>(Math.min(queue.size(), MAX_BATCH));
+                    BankEvent event;
+                    while (batch.size() < MAX_BATCH && (event = queue.poll()) != null) {
+                        batch.add(event);
+                    }
+                    if (active) {
+                        deliver(batch);
+                    }
+                }
+                scheduled.set(false);
+                // an event may have been queued after the queue was found empty, but before the flag was reset
+            } while (!queue.isEmpty() && scheduled.compareAndSet(false, true));
+        }
+
+        private void deliver(List<BankEvent> batch) {
+            try {
+                listener.eventsPublished(batch);
+            } catch (RuntimeException e) {
+                // a failing listener must not stop the delivery of the following batches
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package headquarters.bank;
+
+import java.util.List;
+
+/**
+ * Subscriber for the changes of a bank, see {@link Bank#subscribe(BankListener)}
+ */
+@FunctionalInterface
+public interface BankListener {
+    /**
+     * Is called from a delivery thread of the bank with all events, which were published since the last call.
+     * The calls for one listener never overlap and the events arrive in the order of their sequence numbers.
+     *
+     * @param events batch of events, not empty
+     */
+    void eventsPublished(List<BankEvent> events);
+}
@@ -0,0 +1,33 @@
+package headquarters.bank;
+
+import java.util.Map;
+
+/**
+ * Metrics of the whole {@link InstrumentedBank}, as shown by JMX
+ */
+public interface BankMetricsMXBean {
+    /**
+     * @return number of accounts in the bank
+     */
+    int getAccountCount();
+
+    /**
+     * @return number of transactions in all accounts
+     */
+    long getTransactionCount();
+
+    /**
+     * @return number of transactions of the largest account
+     */
+    int getLargestAccountSize();
+
+    /**
+     * @return number of calls of all operations
+     */
+    long getOperationCount();
+
+    /**
+     * @return number of failed calls by the simple name of the exception, e.g. "AccountDoesNotExistException"
+     */
+    Map<String, Long> getErrorsByType();
+}
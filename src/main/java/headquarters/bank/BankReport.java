@@ -0,0 +1,297 @@
+package headquarters.bank;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * BankReport represents the aggregates over all accounts of a bank: total assets and liabilities, the
+ * distribution of the balances, the richest and poorest accounts and the number of transactions per type.
+ * A report is calculated in one parallel pass over the accounts, every thread fills its own builder and
+ * the builders are combined at the end.
+ */
+public final class BankReport {
+    /**
+     * upper bounds (exclusive) of the balance buckets in cents, the last bucket has no upper bound
+     */
+    private static final long[] BUCKET_BOUNDS = {
+            -1_000_000_00L, -10_000_00L, -100_00L, 0L, 100_00L, 10_000_00L, 1_000_000_00L
+    };
+    /**
+     * orders accounts by balance and, for equal balances, by name
+     */
+    private static final Comparator<AccountBalance> BY_BALANCE =
+            Comparator.comparingLong(AccountBalance::balanceCents).thenComparing(AccountBalance::account);
+
+    private final int accountCount;
+    private final long totalAssetsCents;
+    private final long totalLiabilitiesCents;
+    private final long[] distribution;
+    private final List<AccountBalance> richest;
+    private final List<AccountBalance> poorest;
+    private final Map<String, Long> transactionCounts;
+
+    private BankReport(Builder builder) {
+        this.accountCount = builder.accountCount;
+        this.totalAssetsCents = builder.totalAssetsCents;
+        this.totalLiabilitiesCents = builder.totalLiabilitiesCents;
+        this.distribution = builder.distribution.clone();
+
+        List<AccountBalance> richest = new ArrayList<>(builder.richest);
+        richest.sort(BY_BALANCE.reversed());
+        this.richest = Collections.unmodifiableList(richest);
+        List<AccountBalance> poorest = new ArrayList<>(builder.poorest);
+        poorest.sort(BY_BALANCE);
+        this.poorest = Collections.unmodifiableList(poorest);
+
+        Map<String, Long> transactionCounts = new TreeMap<>();
+        builder.transactionCounts.forEach((type, count) -> transactionCounts.put(type.getSimpleName(), count[0]));
+        this.transactionCounts = Collections.unmodifiableMap(transactionCounts);
+    }
+
+    /**
+     * Account and its balance, as listed in the richest and poorest accounts
+     *
+     * @param account      name of the account
+     * @param balanceCents balance of the account in cents
+     */
+    public record AccountBalance(String account, long balanceCents) {
+        /**
+         * @return balance of the account
+         */
+        public double balance() {
+            return Money.toDouble(balanceCents);
+        }
+    }
+
+    /**
+     * @return number of accounts in the report
+     */
+    public int getAccountCount() {
+        return accountCount;
+    }
+
+    /**
+     * @return sum of all positive account balances in cents
+     */
+    public long getTotalAssetsCents() {
+        return totalAssetsCents;
+    }
+
+    /**
+     * @return sum of all positive account balances
+     */
+    public double getTotalAssets() {
+        return Money.toDouble(totalAssetsCents);
+    }
+
+    /**
+     * @return sum of all negative account balances in cents, as a positive number
+     */
+    public long getTotalLiabilitiesCents() {
+        return totalLiabilitiesCents;
+    }
+
+    /**
+     * @return sum of all negative account balances, as a positive number
+     */
+    public double getTotalLiabilities() {
+        return Money.toDouble(totalLiabilitiesCents);
+    }
+
+    /**
+     * Returns the upper bounds of the balance buckets in cents. Bucket i contains the balances, which are
+     * smaller than bound i and not smaller than bound i - 1, the last bucket contains all larger balances.
+     *
+     * @return copy of the bucket bounds in cents
+     */
+    public static long[] getBucketBounds() {
+        return BUCKET_BOUNDS.clone();
+    }
+
+    /**
+     * @return number of accounts per balance bucket, see {@link #getBucketBounds()}
+     */
+    public long[] getDistribution() {
+        return distribution.clone();
+    }
+
+    /**
+     * @return the accounts with the highest balances, richest first
+     */
+    public List<AccountBalance> getRichest() {
+        return richest;
+    }
+
+    /**
+     * @return the accounts with the lowest balances, poorest first
+     */
+    public List<AccountBalance> getPoorest() {
+        return poorest;
+    }
+
+    /**
+     * @return number of transactions per type, keyed by the simple class name of the transactions
+     */
+    public Map<String, Long> getTransactionCounts() {
+        return transactionCounts;
+    }
+
+    @Override
+    public String toString() {
+        return "BankReport: " +
+                "accounts=" + accountCount +
+                ", totalAssets=" + getTotalAssets() +
+                ", totalLiabilities=" + getTotalLiabilities() +
+                ", distribution=" + Arrays.toString(distribution) +
+                ", richest=" + richest +
+                ", poorest=" + poorest +
+                ", transactionCounts=" + transactionCounts;
+    }
+
+    /**
+     * Collects the report over the given accounts of a bank in parallel. The bank is only read, so it must not
+     * be changed while the report is collected.
+     *
+     * @param bank     bank, whose accounts are reported
+     * @param accounts accounts of the bank to be reported
+     * @param topCount number of richest and poorest accounts to be kept
+     * @return builder with the aggregates of all accounts
+     */
+    static Builder collect(Bank bank, List<String> accounts, int topCount) {
+        return accounts.parallelStream().collect(
+                () -> new Builder(topCount, accounts.size()),
+                (builder, account) -> builder.add(account, bank.getAccountBalanceCents(account),
+                        bank.getTransactions(account)),
+                Builder::combine);
+    }
+
+    /**
+     * Mutable aggregates of a part of the accounts. Every thread fills its own builder, so the builder is not
+     * synchronized.
+     */
+    static final class Builder {
+        private final int topCount;
+        private int accountCount;
+        private long totalAssetsCents;
+        private long totalLiabilitiesCents;
+        private final long[] distribution = new long[BUCKET_BOUNDS.length + 1];
+        /**
+         * bounded min-heap, the head is the poorest of the richest accounts
+         */
+        private final PriorityQueue<AccountBalance> richest;
+        /**
+         * bounded max-heap, the head is the richest of the poorest accounts
+         */
+        private final PriorityQueue<AccountBalance> poorest;
+        /**
+         * counters per transaction class, arrays so that counting does not box
+         */
+        private final Map<Class<?>, long[]> transactionCounts = new HashMap<>();
+
+        /**
+         * @param topCount number of richest and poorest accounts to be kept
+         * @param accounts number of accounts, which are added at most, so the heaps are not larger than needed
+         */
+        Builder(int topCount, int accounts) {
+            if (topCount < 0) {
+                throw new IllegalArgumentException("Number of top accounts must not be negative");
+            }
+            this.topCount = topCount;
+            int capacity = Math.min(topCount, accounts) + 1;
+            this.richest = new PriorityQueue<>(capacity, BY_BALANCE);
+            this.poorest = new PriorityQueue<>(capacity, BY_BALANCE.reversed());
+        }
+
+        /**
+         * Adds one account to the aggregates
+         *
+         * @param account      name of the account
+         * @param balanceCents balance of the account in cents
+         * @param transactions transactions of the account
+         */
+        void add(String account, long balanceCents, List<Transaction> transactions) {
+            accountCount++;
+            if (balanceCents > 0) {
+                totalAssetsCents += balanceCents;
+            } else {
+                totalLiabilitiesCents -= balanceCents;
+            }
+            distribution[bucketOf(balanceCents)]++;
+            offer(new AccountBalance(account, balanceCents));
+            for (Transaction transaction : transactions) {
+                transactionCounts.computeIfAbsent(transaction.getClass(), type -> new long[1])[0]++;
+            }
+        }
+
+        /**
+         * Adds the aggregates of another builder to this builder
+         *
+         * @param other builder of other accounts
+         */
+        void combine(Builder other) {
+            accountCount += other.accountCount;
+            totalAssetsCents += other.totalAssetsCents;
+            totalLiabilitiesCents += other.totalLiabilitiesCents;
+            for (int i = 0; i < distribution.length; i++) {
+                distribution[i] += other.distribution[i];
+            }
+            for (AccountBalance accountBalance : other.richest) {
+                offer(richest, accountBalance);
+            }
+            for (AccountBalance accountBalance : other.poorest) {
+                offer(poorest, accountBalance);
+            }
+            other.transactionCounts.forEach((type, count) ->
+                    transactionCounts.computeIfAbsent(type, t -> new long[1])[0] += count[0]);
+        }
+
+        /**
+         * @return number of the added accounts
+         */
+        int getAccountCount() {
+            return accountCount;
+        }
+
+        /**
+         * @return the immutable report of the aggregates
+         */
+        BankReport build() {
+            return new BankReport(this);
+        }
+
+        private void offer(AccountBalance accountBalance) {
+            offer(richest, accountBalance);
+            offer(poorest, accountBalance);
+        }
+
+        /**
+         * Adds an account to a bounded heap and drops the head, if the heap grew too large
+         */
+        private void offer(PriorityQueue<AccountBalance> heap, AccountBalance accountBalance) {
+            if (topCount == 0) {
+                return;
+            }
+            if (heap.size() < topCount) {
+                heap.add(accountBalance);
+            } else if (heap.comparator().compare(accountBalance, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(accountBalance);
+            }
+        }
+
+        private static int bucketOf(long balanceCents) {
+            int bucket = 0;
+            while (bucket < BUCKET_BOUNDS.length && balanceCents >= BUCKET_BOUNDS[bucket]) {
+                bucket++;
+            }
+            return bucket;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package headquarters.bank;
 
+import java.util.List;
+
 /**
  * Interface of the Bills, which to be calculated
  *
@@ -13,4 +15,64 @@ public interface CalculateBill {
      * @return transaction amount with account of interest tax
      */
     double calculate();
+
+    /**
+     * Calculates the transaction amount with account of interest tax exactly in cents
+     *
+     * @return transaction amount with account of interest tax in cents
+     */
+    long calculateCents();
+
+    /**
+     * Calculates the amounts of a whole list of bills in cents. Instead of calling calculateCents() on every
+     * bill, each of the known subtypes is handled in its own loop, in which the calculation is monomorphic
+     * and can be inlined. Other implementations are calculated with calculateCents() in a last loop.
+     *
+     * @param bills      bills to be calculated
+     * @param calculated receives the calculated amount of bills.get(i) at index i
+     * @throws IllegalArgumentException if the array is shorter than the list
+     */
+    static void calculateAll(List<? extends CalculateBill> bills, long[] calculated) {
+        int size = bills.size();
+        if (calculated.length < size) {
+            throw new IllegalArgumentException("Array of length " + calculated.length + " cannot hold " + size + " bills");
+        }
+        int others = 0;
+        for (int i = 0; i < size; i++) {
+            if (bills.get(i).getClass() == Payment.class) {
+                Payment payment = (Payment) bills.get(i);
+                calculated[i] = Payment.calculateCents(payment.amountCents, payment.getIncomingInterestBasisPoints(),
+                        payment.getOutgoingInterestBasisPoints());
+            } else {
+                others++;
+            }
+        }
+        if (others == 0) {
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            if (bills.get(i).getClass() == IncomingTransfer.class) {
+                calculated[i] = ((IncomingTransfer) bills.get(i)).amountCents;
+                others--;
+            }
+        }
+        if (others == 0) {
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            if (bills.get(i).getClass() == OutgoingTransfer.class) {
+                calculated[i] = -((OutgoingTransfer) bills.get(i)).amountCents;
+                others--;
+            }
+        }
+        if (others == 0) {
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            Class<?> type = bills.get(i).getClass();
+            if (type != Payment.class && type != IncomingTransfer.class && type != OutgoingTransfer.class) {
+                calculated[i] = bills.get(i).calculateCents();
+            }
+        }
+    }
 }
@@ -0,0 +1,199 @@
+package headquarters.bank;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Secondary index from the names of senders and recipients to the transfers of all accounts of a bank.
+ * Every transfer in an account is referenced once under its sender and once under its recipient, grouped by
+ * the account, so the transfers of a counterparty are found in time proportional to their number, in all
+ * accounts or in one account. The index registers itself at the indexed transfers and is corrected, whenever
+ * a sender or recipient changes.
+ */
+class CounterpartyIndex implements TransactionListener {
+    /**
+     * represents the referenced transfers of every counterparty by account
+     */
+    private Map<String, Map<String, List<Transfer>>> references = new HashMap<>();
+
+    /**
+     * Adds a transaction of an account to the index, transactions other than transfers are ignored
+     *
+     * @param account     account, in which the transaction is stored
+     * @param transaction added transaction
+     */
+    void add(String account, Transaction transaction) {
+        if (transaction instanceof Transfer transfer) {
+            addReference(references, account, transfer);
+            transfer.addListener(this);
+        }
+    }
+
+    /**
+     * Removes a transaction of an account from the index
+     *
+     * @param account     account, in which the transaction was stored
+     * @param transaction removed transaction
+     */
+    void remove(String account, Transaction transaction) {
+        if (transaction instanceof Transfer transfer) {
+            removeReferences(transfer.getSender(), transfer, account);
+            if (!Objects.equals(transfer.getSender(), transfer.getRecipient())) {
+                removeReferences(transfer.getRecipient(), transfer, account);
+            }
+            transfer.removeListener(this);
+        }
+    }
+
+    /**
+     * Builds the index again from all accounts. The accounts are grouped by counterparty in parallel, every
+     * thread fills its own map and the maps are merged afterwards.
+     *
+     * @param accountsToTransactions all accounts and their transactions
+     */
+    void rebuild(Map<String, List<Transaction>> accountsToTransactions) {
+        for (Map<String, List<Transfer>> counterpartyReferences : references.values()) {
+            for (List<Transfer> transfers : counterpartyReferences.values()) {
+                for (Transfer transfer : transfers) {
+                    transfer.removeListener(this);
+                }
+            }
+        }
+        references = accountsToTransactions.entrySet().parallelStream().collect(
+                HashMap::new,
+                (map, entry) -> {
+                    for (Transaction transaction : entry.getValue()) {
+                        if (transaction instanceof Transfer transfer) {
+                            addReference(map, entry.getKey(), transfer);
+                        }
+                    }
+                },
+                // every account is grouped by one thread, so the accounts of the merged maps are distinct
+                (map, other) -> other.forEach((counterparty, otherReferences) ->
+                        map.merge(counterparty, otherReferences, (byAccount, otherByAccount) -> {
+                            byAccount.putAll(otherByAccount);
+                            return byAccount;
+                        })));
+        // a transfer can be stored in several accounts, so the listeners are registered by one thread
+        for (Map.Entry<String, List<Transaction>> entry : accountsToTransactions.entrySet()) {
+            for (Transaction transaction : entry.getValue()) {
+                if (transaction instanceof Transfer) {
+                    transaction.addListener(this);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns all transfers, in which the counterparty is sender or recipient
+     *
+     * @param counterparty name of the sender or recipient
+     * @return transfers by account, accounts without transfers of the counterparty are left out
+     */
+    Map<String, List<Transfer>> get(String counterparty) {
+        Map<String, List<Transfer>> result = new TreeMap<>();
+        references.getOrDefault(counterparty, Map.of())
+                .forEach((account, transfers) -> result.put(account, new ArrayList<>(transfers)));
+        return result;
+    }
+
+    /**
+     * Returns the transfers of one account, in which the counterparty is sender or recipient
+     *
+     * @param counterparty name of the sender or recipient
+     * @param account      the selected account
+     * @return transfers of the account
+     */
+    List<Transfer> get(String counterparty, String account) {
+        return new ArrayList<>(references.getOrDefault(counterparty, Map.of()).getOrDefault(account, List.of()));
+    }
+
+    /**
+     * @param counterparty name of the sender or recipient
+     * @return number of references to transfers of the counterparty
+     */
+    int count(String counterparty) {
+        int count = 0;
+        for (List<Transfer> transfers : references.getOrDefault(counterparty, Map.of()).values()) {
+            count += transfers.size();
+        }
+        return count;
+    }
+
+    /**
+     * @param counterparty name of the sender or recipient
+     * @param account      the selected account
+     * @return number of references to transfers of the counterparty in the account
+     */
+    int count(String counterparty, String account) {
+        return references.getOrDefault(counterparty, Map.of()).getOrDefault(account, List.of()).size();
+    }
+
+    @Override
+    public void counterpartiesChanged(Transfer transfer, String oldSender, String oldRecipient) {
+        List<String> accounts = removeReferences(oldSender, transfer, null);
+        if (!Objects.equals(oldSender, oldRecipient)) {
+            removeReferences(oldRecipient, transfer, null);
+        }
+        for (String account : accounts) {
+            addReference(references, account, transfer);
+        }
+    }
+
+    /**
+     * Adds a reference under the sender and, if it is another name, under the recipient of the transfer
+     */
+    private static void addReference(Map<String, Map<String, List<Transfer>>> references, String account,
+                                     Transfer transfer) {
+        references.computeIfAbsent(transfer.getSender(), c -> new HashMap<>())
+                .computeIfAbsent(account, a -> new ArrayList<>()).add(transfer);
+        if (!Objects.equals(transfer.getSender(), transfer.getRecipient())) {
+            references.computeIfAbsent(transfer.getRecipient(), c -> new HashMap<>())
+                    .computeIfAbsent(account, a -> new ArrayList<>()).add(transfer);
+        }
+    }
+
+    /**
+     * Removes the references to a transfer under a counterparty, either in one account or in all accounts
+     *
+     * @return accounts of the removed references
+     */
+    private List<String> removeReferences(String counterparty, Transfer transfer, String account) {
+        List<String> accounts = new ArrayList<>();
+        Map<String, List<Transfer>> counterpartyReferences = references.get(counterparty);
+        if (counterpartyReferences == null) {
+            return accounts;
+        }
+        Iterator<Map.Entry<String, List<Transfer>>> entries = counterpartyReferences.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<String, List<Transfer>> entry = entries.next();
+            if (account != null && !entry.getKey().equals(account)) {
+                continue;
+            }
+            List<Transfer> transfers = entry.getValue();
+            for (int i = transfers.size() - 1; i >= 0; i--) {
+                if (transfers.get(i) == transfer) {
+                    accounts.add(entry.getKey());
+                    // the order of the references does not matter, so the last one fills the gap
+                    Transfer last = transfers.remove(transfers.size() - 1);
+                    if (i < transfers.size()) {
+                        transfers.set(i, last);
+                    }
+                    break;
+                }
+            }
+            if (transfers.isEmpty()) {
+                entries.remove();
+            }
+        }
+        if (counterpartyReferences.isEmpty()) {
+            references.remove(counterparty);
+        }
+        return accounts;
+    }
+}
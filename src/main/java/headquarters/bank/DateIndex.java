@@ -0,0 +1,400 @@
+package headquarters.bank;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+/**
+ * Index of one account, which keeps the transactions ordered by their date. It is a treap with one node per
+ * day, every node knows the sum of the calculated amounts and the number of transactions in its subtree, so
+ * the balance up to a day and the number of transactions in a range of days are found in O(log n). Back-dated
+ * transactions are inserted at their day like all others. Transactions with a date, which cannot be read,
+ * are kept aside and belong to no day.
+ */
+class DateIndex implements TransactionListener {
+    /**
+     * Day of the treap with all transactions of the account on that day
+     */
+    private static final class Node {
+        private final long day;
+        private final int priority;
+        private final List<Transaction> transactions = new ArrayList<>(1);
+        private long dayCents;
+        private long sumCents;
+        private int count;
+        private Node left;
+        private Node right;
+
+        private Node(long day, int priority) {
+            this.day = day;
+            this.priority = priority;
+        }
+    }
+
+    private final SplittableRandom random = new SplittableRandom();
+    private Node root;
+    /**
+     * represents the transactions with a date, which cannot be read
+     */
+    private final List<Transaction> undated = new ArrayList<>();
+
+    /**
+     * Adds a transaction to the index
+     *
+     * @param transaction added to the account
+     */
+    void add(Transaction transaction) {
+        transaction.addListener(this);
+        insert(transaction, TransactionDates.dayOf(transaction.getDate()), transaction.calculateCents());
+    }
+
+    /**
+     * Removes a transaction from the index
+     *
+     * @param transaction removed from the account
+     */
+    void remove(Transaction transaction) {
+        transaction.removeListener(this);
+        delete(transaction, TransactionDates.dayOf(transaction.getDate()), transaction.calculateCents());
+    }
+
+    /**
+     * Removes all transactions, e.g. because the account is deleted
+     */
+    void clear() {
+        for (Transaction transaction : range(Long.MIN_VALUE, Long.MAX_VALUE, true)) {
+            transaction.removeListener(this);
+        }
+        for (Transaction transaction : undated) {
+            transaction.removeListener(this);
+        }
+        root = null;
+        undated.clear();
+    }
+
+    /**
+     * Calculates the sums of all days again, after the amounts were changed without informing the index
+     */
+    void recalculate() {
+        recalculate(root);
+    }
+
+    @Override
+    public void amountChanged(Transaction transaction, long oldCents, long newCents) {
+        long day = TransactionDates.dayOf(transaction.getDate());
+        if (day != TransactionDates.NO_DAY) {
+            adjust(root, day, newCents - oldCents);
+        }
+    }
+
+    @Override
+    public void dateChanged(Transaction transaction, String oldDate) {
+        long cents = transaction.calculateCents();
+        delete(transaction, TransactionDates.dayOf(oldDate), cents);
+        insert(transaction, TransactionDates.dayOf(transaction.getDate()), cents);
+    }
+
+    /**
+     * Sums up the calculated amounts of all transactions up to a day (inclusive) in O(log n)
+     *
+     * @param day days since 01.01.1970
+     * @return balance at the end of the day in cents
+     */
+    long balanceAsOf(long day) {
+        long balance = 0;
+        Node node = root;
+        while (node != null) {
+            if (node.day <= day) {
+                balance += sumOf(node.left) + node.dayCents;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return balance;
+    }
+
+    /**
+     * Counts the transactions between two days (inclusive) in O(log n)
+     *
+     * @param from first day
+     * @param to   last day
+     * @return number of transactions in the range
+     */
+    int count(long from, long to) {
+        if (from > to) {
+            return 0;
+        }
+        return countUpTo(to) - (from == Long.MIN_VALUE ? 0 : countUpTo(from - 1));
+    }
+
+    /**
+     * Returns the transactions between two days (inclusive), transactions of the same day in the order they
+     * were added
+     *
+     * @param from first day
+     * @param to   last day
+     * @param asc  selects if the days are returned in ascending or descending order
+     * @return new list of the transactions in the range
+     */
+    List<Transaction> range(long from, long to, boolean asc) {
+        List<Transaction> result = new ArrayList<>();
+        collect(root, from, to, asc, result);
+        return result;
+    }
+
+    /**
+     * Returns a cursor over the transactions between two days (inclusive), which walks the treap only as far
+     * as it is advanced. The index must not be changed while the cursor is used.
+     *
+     * @param from first day
+     * @param to   last day
+     * @param asc  selects if the days are returned in ascending or descending order
+     * @return cursor over the transactions in the range
+     */
+    Iterator<Transaction> iterator(long from, long to, boolean asc) {
+        return new RangeIterator(from, to, asc);
+    }
+
+    private int countUpTo(long day) {
+        int count = 0;
+        Node node = root;
+        while (node != null) {
+            if (node.day <= day) {
+                count += countOf(node.left) + node.transactions.size();
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    private void collect(Node node, long from, long to, boolean asc, List<Transaction> result) {
+        if (node == null) {
+            return;
+        }
+        boolean inRange = node.day >= from && node.day <= to;
+        Node first = asc ? node.left : node.right;
+        Node second = asc ? node.right : node.left;
+        if (asc ? node.day > from : node.day < to) {
+            collect(first, from, to, asc, result);
+        }
+        if (inRange) {
+            result.addAll(node.transactions);
+        }
+        if (asc ? node.day < to : node.day > from) {
+            collect(second, from, to, asc, result);
+        }
+    }
+
+    /**
+     * In-order walk over the days of a range, the path holds the days, whose transactions and second subtree
+     * are not read yet
+     */
+    private final class RangeIterator implements Iterator<Transaction> {
+        private final long from;
+        private final long to;
+        private final boolean asc;
+        private final ArrayDeque<Node> path = new ArrayDeque<>();
+        private List<Transaction> day = List.of();
+        private int next;
+
+        private RangeIterator(long from, long to, boolean asc) {
+            this.from = from;
+            this.to = to;
+            this.asc = asc;
+            descend(root);
+        }
+
+        /**
+         * Pushes the node and its first children, skipping the subtrees before the range
+         */
+        private void descend(Node node) {
+            while (node != null) {
+                if (asc ? node.day < from : node.day > to) {
+                    node = asc ? node.right : node.left;
+                } else {
+                    path.push(node);
+                    node = asc ? node.left : node.right;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == day.size()) {
+                if (path.isEmpty()) {
+                    return false;
+                }
+                Node node = path.pop();
+                if (asc ? node.day > to : node.day < from) {
+                    // all following days are behind the range
+                    path.clear();
+                    return false;
+                }
+                day = node.transactions;
+                next = 0;
+                descend(asc ? node.right : node.left);
+            }
+            return true;
+        }
+
+        @Override
+        public Transaction next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return day.get(next++);
+        }
+    }
+
+    private void insert(Transaction transaction, long day, long cents) {
+        if (day == TransactionDates.NO_DAY) {
+            undated.add(transaction);
+        } else {
+            root = insert(root, day, transaction, cents);
+        }
+    }
+
+    private void delete(Transaction transaction, long day, long cents) {
+        if (day == TransactionDates.NO_DAY) {
+            for (int i = 0; i < undated.size(); i++) {
+                if (undated.get(i) == transaction) {
+                    undated.remove(i);
+                    return;
+                }
+            }
+        } else {
+            root = delete(root, day, transaction, cents);
+        }
+    }
+
+    private Node insert(Node node, long day, Transaction transaction, long cents) {
+        if (node == null) {
+            node = new Node(day, random.nextInt());
+            node.transactions.add(transaction);
+            node.dayCents = cents;
+        } else if (day == node.day) {
+            node.transactions.add(transaction);
+            node.dayCents += cents;
+        } else if (day < node.day) {
+            node.left = insert(node.left, day, transaction, cents);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, day, transaction, cents);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private Node delete(Node node, long day, Transaction transaction, long cents) {
+        if (node == null) {
+            return null;
+        }
+        if (day < node.day) {
+            node.left = delete(node.left, day, transaction, cents);
+        } else if (day > node.day) {
+            node.right = delete(node.right, day, transaction, cents);
+        } else {
+            for (int i = 0; i < node.transactions.size(); i++) {
+                if (node.transactions.get(i) == transaction) {
+                    node.transactions.remove(i);
+                    node.dayCents -= cents;
+                    break;
+                }
+            }
+            if (node.transactions.isEmpty()) {
+                return merge(node.left, node.right);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private void adjust(Node node, long day, long cents) {
+        if (node == null) {
+            return;
+        }
+        if (day < node.day) {
+            adjust(node.left, day, cents);
+        } else if (day > node.day) {
+            adjust(node.right, day, cents);
+        } else {
+            node.dayCents += cents;
+        }
+        update(node);
+    }
+
+    private void recalculate(Node node) {
+        if (node == null) {
+            return;
+        }
+        recalculate(node.left);
+        recalculate(node.right);
+        node.dayCents = 0;
+        for (Transaction transaction : node.transactions) {
+            node.dayCents += transaction.calculateCents();
+        }
+        update(node);
+    }
+
+    /**
+     * Merges two treaps, all days of the first one are before the days of the second one
+     */
+    private static Node merge(Node first, Node second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        if (first.priority > second.priority) {
+            first.right = merge(first.right, second);
+            update(first);
+            return first;
+        }
+        second.left = merge(first, second.left);
+        update(second);
+        return second;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static void update(Node node) {
+        node.sumCents = node.dayCents + sumOf(node.left) + sumOf(node.right);
+        node.count = node.transactions.size() + countOf(node.left) + countOf(node.right);
+    }
+
+    private static long sumOf(Node node) {
+        return node == null ? 0 : node.sumCents;
+    }
+
+    private static int countOf(Node node) {
+        return node == null ? 0 : node.count;
+    }
+}
@@ -0,0 +1,415 @@
+package headquarters.bank;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Inverted index over the descriptions of all transactions of a bank. Every transaction in an account is a
+ * document with an int id, the descriptions are split into lower case tokens and every token points to a
+ * sorted int array of the ids of the documents containing it. The posting lists are kept for the whole bank
+ * and once more for every account, so the search in one account only reads the ids of that account. The
+ * index registers itself at the indexed transactions and is corrected, whenever a description changes.
+ */
+class DescriptionIndex implements TransactionListener {
+    /**
+     * represents the posting lists of the documents of all accounts
+     */
+    private final Postings postings = new Postings();
+    /**
+     * represents the posting lists of the documents of every account
+     */
+    private final Map<String, Postings> accountPostings = new HashMap<>();
+    /**
+     * represents the indexed transactions by document id, null for free ids
+     */
+    private Transaction[] documents = new Transaction[16];
+    /**
+     * represents the accounts of the documents by document id
+     */
+    private String[] accounts = new String[16];
+    /**
+     * represents the number of used document ids, including freed ones
+     */
+    private int documentCount;
+    /**
+     * represents the freed document ids, which are used again first
+     */
+    private final PostingList freeIds = new PostingList();
+    /**
+     * represents the document ids of every transaction, a transaction has more than one id if it is stored
+     * in more than one account
+     */
+    private final Map<Transaction, int[]> documentIds = new IdentityHashMap<>();
+
+    /**
+     * Adds a transaction of an account to the index
+     *
+     * @param account     account, in which the transaction is stored
+     * @param transaction added transaction
+     */
+    void add(String account, Transaction transaction) {
+        int id = newDocument(account, transaction);
+        int[] ids = documentIds.get(transaction);
+        if (ids == null) {
+            documentIds.put(transaction, new int[]{id});
+            transaction.addListener(this);
+        } else {
+            ids = Arrays.copyOf(ids, ids.length + 1);
+            ids[ids.length - 1] = id;
+            documentIds.put(transaction, ids);
+        }
+        addPostings(id, transaction.getDescription());
+    }
+
+    /**
+     * Removes a transaction of an account from the index
+     *
+     * @param account     account, in which the transaction was stored
+     * @param transaction removed transaction
+     */
+    void remove(String account, Transaction transaction) {
+        int[] ids = documentIds.get(transaction);
+        if (ids == null) {
+            return;
+        }
+        for (int i = 0; i < ids.length; i++) {
+            int id = ids[i];
+            if (accounts[id].equals(account)) {
+                removePostings(id, transaction.getDescription());
+                documents[id] = null;
+                accounts[id] = null;
+                freeIds.add(id);
+                if (ids.length == 1) {
+                    documentIds.remove(transaction);
+                    transaction.removeListener(this);
+                } else {
+                    int[] remaining = new int[ids.length - 1];
+                    System.arraycopy(ids, 0, remaining, 0, i);
+                    System.arraycopy(ids, i + 1, remaining, i, ids.length - i - 1);
+                    documentIds.put(transaction, remaining);
+                }
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void descriptionChanged(Transaction transaction, String oldDescription) {
+        int[] ids = documentIds.get(transaction);
+        if (ids == null) {
+            return;
+        }
+        for (int id : ids) {
+            removePostings(id, oldDescription);
+            addPostings(id, transaction.getDescription());
+        }
+    }
+
+    /**
+     * Searches the transactions of all accounts, whose descriptions match the query
+     *
+     * @param query terms, see {@link #parse(String)}
+     * @return matching transactions by account
+     */
+    Map<String, List<Transaction>> search(String query) {
+        Map<String, List<Transaction>> result = new TreeMap<>();
+        PostingList matches = postings.evaluate(parse(query));
+        for (int i = 0; i < matches.size; i++) {
+            int id = matches.ids[i];
+            result.computeIfAbsent(accounts[id], a -> new ArrayList<>()).add(documents[id]);
+        }
+        return result;
+    }
+
+    /**
+     * Searches the transactions of one account, whose descriptions match the query
+     *
+     * @param account the selected account
+     * @param query   terms, see {@link #parse(String)}
+     * @return matching transactions of the account
+     */
+    List<Transaction> search(String account, String query) {
+        List<Transaction> result = new ArrayList<>();
+        Postings postingsOfAccount = accountPostings.get(account);
+        if (postingsOfAccount == null) {
+            return result;
+        }
+        PostingList matches = postingsOfAccount.evaluate(parse(query));
+        for (int i = 0; i < matches.size; i++) {
+            result.add(documents[matches.ids[i]]);
+        }
+        return result;
+    }
+
+    /**
+     * Counts the transactions of all accounts, whose descriptions match the query
+     *
+     * @param query terms, see {@link #parse(String)}
+     * @return number of matching transactions
+     */
+    int count(String query) {
+        return postings.evaluate(parse(query)).size;
+    }
+
+    /**
+     * Counts the transactions of one account, whose descriptions match the query
+     *
+     * @param account the selected account
+     * @param query   terms, see {@link #parse(String)}
+     * @return number of matching transactions of the account
+     */
+    int count(String account, String query) {
+        Postings postingsOfAccount = accountPostings.get(account);
+        return postingsOfAccount == null ? 0 : postingsOfAccount.evaluate(parse(query)).size;
+    }
+
+    /**
+     * @return number of distinct tokens in the index
+     */
+    int tokenCount() {
+        return postings.lists.size();
+    }
+
+    /**
+     * Splits a text into lower case tokens of letters and digits
+     *
+     * @param text description or query
+     * @return tokens in the order of the text, may contain duplicates
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean tokenChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (tokenChar && start < 0) {
+                start = i;
+            } else if (!tokenChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Parses a query into its terms. A transaction matches, if its description contains all terms. A term
+     * ending with '*' matches every token starting with the term, e.g. "hot*" matches "Hotel". Terms without
+     * letters or digits, like a single '*', are ignored.
+     *
+     * @param query terms separated by spaces
+     * @return the terms, prefix terms still end with '*'
+     */
+    static List<String> parse(String query) {
+        List<String> terms = new ArrayList<>();
+        for (String term : query.trim().split("\\s+")) {
+            boolean prefix = term.endsWith("*");
+            int before = terms.size();
+            terms.addAll(tokenize(term));
+            if (prefix && terms.size() > before) {
+                terms.set(terms.size() - 1, terms.get(terms.size() - 1) + "*");
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Checks a description against parsed query terms without the index, e.g. for banks without index
+     *
+     * @param description description of a transaction
+     * @param terms       parsed query terms
+     * @return true, if the description contains all terms
+     */
+    static boolean matches(String description, List<String> terms) {
+        List<String> tokens = tokenize(description);
+        for (String term : terms) {
+            boolean found = false;
+            for (String token : tokens) {
+                if (term.endsWith("*") ? token.startsWith(term.substring(0, term.length() - 1)) : token.equals(term)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return !terms.isEmpty();
+    }
+
+    private int newDocument(String account, Transaction transaction) {
+        int id;
+        if (freeIds.size > 0) {
+            id = freeIds.ids[--freeIds.size];
+        } else {
+            id = documentCount++;
+            if (id == documents.length) {
+                documents = Arrays.copyOf(documents, id * 2);
+                accounts = Arrays.copyOf(accounts, id * 2);
+            }
+        }
+        documents[id] = transaction;
+        accounts[id] = account;
+        return id;
+    }
+
+    private void addPostings(int id, String description) {
+        Postings postingsOfAccount = accountPostings.computeIfAbsent(accounts[id], a -> new Postings());
+        for (String token : tokenize(description)) {
+            postings.add(token, id);
+            postingsOfAccount.add(token, id);
+        }
+    }
+
+    private void removePostings(int id, String description) {
+        Postings postingsOfAccount = accountPostings.get(accounts[id]);
+        for (String token : tokenize(description)) {
+            postings.remove(token, id);
+            if (postingsOfAccount != null) {
+                postingsOfAccount.remove(token, id);
+            }
+        }
+        if (postingsOfAccount != null && postingsOfAccount.lists.isEmpty()) {
+            accountPostings.remove(accounts[id]);
+        }
+    }
+
+    /**
+     * Posting lists of the tokens of some documents, sorted so that prefixes are found as a range
+     */
+    private static final class Postings {
+        private final TreeMap<String, PostingList> lists = new TreeMap<>();
+
+        void add(String token, int id) {
+            lists.computeIfAbsent(token, t -> new PostingList()).add(id);
+        }
+
+        void remove(String token, int id) {
+            PostingList list = lists.get(token);
+            if (list != null) {
+                list.remove(id);
+                if (list.size == 0) {
+                    lists.remove(token);
+                }
+            }
+        }
+
+        /**
+         * Intersects the posting lists of all terms, starting with the shortest one
+         */
+        PostingList evaluate(List<String> terms) {
+            List<PostingList> termLists = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                termLists.add(postingsOf(term));
+            }
+            if (termLists.isEmpty()) {
+                return new PostingList();
+            }
+            termLists.sort((l1, l2) -> Integer.compare(l1.size, l2.size));
+            PostingList result = termLists.get(0);
+            for (int i = 1; i < termLists.size() && result.size > 0; i++) {
+                result = result.intersect(termLists.get(i));
+            }
+            return result;
+        }
+
+        /**
+         * Returns the posting list of an exact term or the union of all tokens starting with a prefix term
+         */
+        private PostingList postingsOf(String term) {
+            if (!term.endsWith("*")) {
+                PostingList list = lists.get(term);
+                return list == null ? new PostingList() : list;
+            }
+            String prefix = term.substring(0, term.length() - 1);
+            NavigableMap<String, PostingList> range = lists.subMap(prefix, true, prefix + Character.MAX_VALUE,
+                    false);
+            PostingList union = new PostingList();
+            for (PostingList list : range.values()) {
+                union = union.union(list);
+            }
+            return union;
+        }
+    }
+
+    /**
+     * Sorted set of document ids, stored in an int array without boxing
+     */
+    private static final class PostingList {
+        private int[] ids = new int[2];
+        private int size;
+
+        /**
+         * Adds an id at its sorted position, an id, which is already contained, is ignored
+         */
+        void add(int id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+        }
+
+        void remove(int id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+                size--;
+            }
+        }
+
+        PostingList intersect(PostingList other) {
+            PostingList result = new PostingList();
+            result.ids = new int[Math.max(1, Math.min(size, other.size))];
+            int i = 0;
+            int j = 0;
+            while (i < size && j < other.size) {
+                if (ids[i] < other.ids[j]) {
+                    i++;
+                } else if (ids[i] > other.ids[j]) {
+                    j++;
+                } else {
+                    result.ids[result.size++] = ids[i];
+                    i++;
+                    j++;
+                }
+            }
+            return result;
+        }
+
+        PostingList union(PostingList other) {
+            PostingList result = new PostingList();
+            result.ids = new int[Math.max(1, size + other.size)];
+            int i = 0;
+            int j = 0;
+            while (i < size || j < other.size) {
+                int next;
+                if (j == other.size || (i < size && ids[i] < other.ids[j])) {
+                    next = ids[i++];
+                } else if (i == size || other.ids[j] < ids[i]) {
+                    next = other.ids[j++];
+                } else {
+                    next = ids[i++];
+                    j++;
+                }
+                result.ids[result.size++] = next;
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package headquarters.bank;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder events of the persistence and the query hot paths of the banks. All events are disabled,
+ * until a recording enables them, e.g. with the profile "bank.jfc" shipped in the resources next to the
+ * default profile of the JDK:
+ *
+ * <pre>
+ * java -XX:StartFlightRecording=settings=default,settings=src/main/resources/bank.jfc,filename=bank.jfr ...
+ * </pre>
+ * <p>
+ * A disabled event is only created and begun, the JIT removes both, so the hot paths pay nearly nothing.
+ * The fields are only set, if the event will be committed.
+ */
+final class FlightEvents {
+    private FlightEvents() {
+    }
+
+    @Name("headquarters.bank.AccountWrite")
+    @Label("Account Write")
+    @Description("Serialization and write of the JSON file of an account")
+    @Category({"Bank", "Persistence"})
+    @Enabled(false)
+    @StackTrace(false)
+    static final class AccountWrite extends Event {
+        @Label("Account")
+        String account;
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+        @Label("Transactions")
+        int transactions;
+    }
+
+    @Name("headquarters.bank.AccountRead")
+    @Label("Account Read")
+    @Description("Read of the JSON file of an account, including building its indexes")
+    @Category({"Bank", "Persistence"})
+    @Enabled(false)
+    @StackTrace(false)
+    static final class AccountRead extends Event {
+        @Label("Account")
+        String account;
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+        @Label("Transactions")
+        int transactions;
+    }
+
+    @Name("headquarters.bank.BankLoad")
+    @Label("Bank Load")
+    @Description("Bulk load of all accounts of a bank from its directory")
+    @Category({"Bank", "Persistence"})
+    @Enabled(false)
+    @StackTrace(false)
+    static final class BankLoad extends Event {
+        @Label("Directory")
+        String directory;
+        @Label("Accounts")
+        int accounts;
+        @Label("Transactions")
+        long transactions;
+    }
+
+    @Name("headquarters.bank.AccountScan")
+    @Label("Account Scan")
+    @Description("Pass over all transactions of an account")
+    @Category({"Bank", "Queries"})
+    @Enabled(false)
+    static final class AccountScan extends Event {
+        @Label("Operation")
+        String operation;
+        @Label("Account")
+        String account;
+        @Label("Transactions")
+        int transactions;
+    }
+
+    @Name("headquarters.bank.TransactionSort")
+    @Label("Transaction Sort")
+    @Description("Sort of transactions by their calculated amount or date")
+    @Category({"Bank", "Queries"})
+    @Enabled(false)
+    static final class TransactionSort extends Event {
+        @Label("Operation")
+        String operation;
+        @Label("Account")
+        String account;
+        @Label("Transactions")
+        int transactions;
+    }
+}
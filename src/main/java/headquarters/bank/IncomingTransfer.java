@@ -26,7 +26,7 @@ public class IncomingTransfer extends Transfer {
      * @return positive amount, because incoming transfer
      */
     @Override
-    public double calculate() {
-        return super.calculate();
+    protected long computeCents() {
+        return super.computeCents();
     }
 }
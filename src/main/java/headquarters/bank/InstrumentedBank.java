@@ -0,0 +1,522 @@
+package headquarters.bank;
+
+import headquarters.bank.exceptions.*;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * InstrumentedBank wraps another bank and measures every call: the latency histogram and the errors of every
+ * operation, the errors by exception type and the number of accounts and transactions. The metrics are
+ * registered as MXBeans at the platform MBean server:
+ * <ul>
+ *     <li>"headquarters.bank:type=Bank,name=..." for the whole bank</li>
+ *     <li>"headquarters.bank:type=Operation,bank=...,name=addTransaction" for every operation</li>
+ *     <li>"headquarters.bank:type=Persistence,name=..." for the account files, if the wrapped bank is a
+ *     PrivateBank</li>
+ * </ul>
+ * A call costs two reads of the clock and a few uncontended atomic increments, so the bank can be
+ * instrumented all the time. The wrapped bank must only be changed through this bank, otherwise the counted
+ * accounts and transactions are wrong. The instrumented bank is thread-safe, if the wrapped bank is.
+ */
+public class InstrumentedBank implements Bank, AutoCloseable {
+    /**
+     * Instrumented operations, overloaded methods share one operation
+     */
+    enum Operation {
+        CREATE_ACCOUNT("createAccount"),
+        ADD_TRANSACTION("addTransaction"),
+        REMOVE_TRANSACTION("removeTransaction"),
+        CONTAINS_TRANSACTION("containsTransaction"),
+        GET_ACCOUNT_BALANCE("getAccountBalance"),
+        GET_ACCOUNT_BALANCE_AS_OF("getAccountBalanceAsOf"),
+        GET_TRANSACTIONS("getTransactions"),
+        GET_TRANSACTIONS_SORTED("getTransactionsSorted"),
+        GET_TOP_TRANSACTIONS("getTopTransactions"),
+        GET_TRANSACTIONS_BY_TYPE("getTransactionsByType"),
+        SEARCH_TRANSACTIONS("searchTransactions"),
+        GET_TRANSFERS_BY_COUNTERPARTY("getTransfersByCounterparty"),
+        GET_MONTHLY_ROLLUPS("getMonthlyRollups"),
+        QUERY("query"),
+        DELETE_ACCOUNT("deleteAccount"),
+        GET_ALL_ACCOUNTS("getAllAccounts"),
+        SEARCH_ACCOUNTS("searchAccounts"),
+        CREATE_REPORT("createReport");
+
+        private final String methodName;
+
+        Operation(String methodName) {
+            this.methodName = methodName;
+        }
+    }
+
+    private final String name;
+    private final Bank delegate;
+    private final OperationMetrics[] operations = new OperationMetrics[Operation.values().length];
+    /**
+     * represents the failed calls by the simple name of the exception
+     */
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    /**
+     * represents the number of transactions of every account
+     */
+    private final Map<String, Integer> accountSizes = new ConcurrentHashMap<>();
+    private final List<ObjectName> registered = new ArrayList<>();
+
+    /**
+     * Constructor for the instrumented bank, which registers the metrics at the platform MBean server
+     *
+     * @param name     name of the bank in the object names of the metrics
+     * @param delegate bank, which executes the calls
+     * @throws IllegalStateException if metrics of a bank with the same name are already registered
+     */
+    public InstrumentedBank(String name, Bank delegate) {
+        this.name = name;
+        this.delegate = delegate;
+        for (Operation operation : Operation.values()) {
+            operations[operation.ordinal()] = new OperationMetrics();
+        }
+        for (String account : delegate.getAllAccounts()) {
+            accountSizes.put(account, delegate.getTransactions(account).size());
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            String quoted = ObjectName.quote(name);
+            register(server, new ObjectName("headquarters.bank:type=Bank,name=" + quoted), new Metrics());
+            for (Operation operation : Operation.values()) {
+                register(server, new ObjectName("headquarters.bank:type=Operation,bank=" + quoted + ",name="
+                        + operation.methodName), operations[operation.ordinal()]);
+            }
+            if (delegate instanceof PrivateBank privateBank) {
+                registered.add(privateBank.getPersistenceMetrics().register(name));
+            }
+        } catch (JMException | RuntimeException e) {
+            close();
+            throw new IllegalStateException("Cannot register the metrics of bank " + name, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "InstrumentedBank: " + delegate;
+    }
+
+    /**
+     * @return the wrapped bank
+     */
+    public Bank getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * @param methodName name of an instrumented method of the bank, e.g. "addTransaction"
+     * @return latencies and errors of the method
+     * @throws IllegalArgumentException if the method is not instrumented
+     */
+    public OperationMetrics getMetrics(String methodName) {
+        for (Operation operation : Operation.values()) {
+            if (operation.methodName.equals(methodName)) {
+                return operations[operation.ordinal()];
+            }
+        }
+        throw new IllegalArgumentException("Method " + methodName + " is not instrumented");
+    }
+
+    /**
+     * @return number of failed calls by the simple name of the exception
+     */
+    public Map<String, Long> getErrorsByType() {
+        Map<String, Long> result = new TreeMap<>();
+        errors.forEach((type, count) -> result.put(type, count.sum()));
+        return result;
+    }
+
+    /**
+     * Unregisters the metrics, the wrapped bank stays open
+     */
+    @Override
+    public void close() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName objectName : registered) {
+            try {
+                server.unregisterMBean(objectName);
+            } catch (JMException e) {
+                // already unregistered
+            }
+        }
+        registered.clear();
+    }
+
+    @Override
+    public void createAccount(String account) throws AccountAlreadyExistsException, IOException {
+        long start = System.nanoTime();
+        try {
+            delegate.createAccount(account);
+            accountSizes.put(account, 0);
+        } catch (Exception e) {
+            failed(Operation.CREATE_ACCOUNT, e);
+            throw e;
+        } finally {
+            record(Operation.CREATE_ACCOUNT, start);
+        }
+    }
+
+    @Override
+    public void createAccount(String account, List<Transaction> transactions) throws AccountAlreadyExistsException,
+            TransactionAlreadyExistException, TransactionAttributeException, IOException, AccountDoesNotExistException {
+        long start = System.nanoTime();
+        try {
+            delegate.createAccount(account, transactions);
+            accountSizes.put(account, transactions.size());
+        } catch (Exception e) {
+            failed(Operation.CREATE_ACCOUNT, e);
+            throw e;
+        } finally {
+            record(Operation.CREATE_ACCOUNT, start);
+        }
+    }
+
+    @Override
+    public void addTransaction(String account, Transaction transaction) throws TransactionAlreadyExistException,
+            AccountDoesNotExistException, TransactionAttributeException, IOException {
+        long start = System.nanoTime();
+        try {
+            delegate.addTransaction(account, transaction);
+            accountSizes.merge(account, 1, Integer::sum);
+        } catch (Exception e) {
+            failed(Operation.ADD_TRANSACTION, e);
+            throw e;
+        } finally {
+            record(Operation.ADD_TRANSACTION, start);
+        }
+    }
+
+    @Override
+    public void removeTransaction(String account, Transaction transaction) throws AccountDoesNotExistException,
+            TransactionDoesNotExistException, IOException {
+        long start = System.nanoTime();
+        try {
+            delegate.removeTransaction(account, transaction);
+            accountSizes.merge(account, -1, Integer::sum);
+        } catch (Exception e) {
+            failed(Operation.REMOVE_TRANSACTION, e);
+            throw e;
+        } finally {
+            record(Operation.REMOVE_TRANSACTION, start);
+        }
+    }
+
+    @Override
+    public boolean containsTransaction(String account, Transaction transaction) {
+        long start = System.nanoTime();
+        try {
+            return delegate.containsTransaction(account, transaction);
+        } catch (RuntimeException e) {
+            failed(Operation.CONTAINS_TRANSACTION, e);
+            throw e;
+        } finally {
+            record(Operation.CONTAINS_TRANSACTION, start);
+        }
+    }
+
+    @Override
+    public double getAccountBalance(String account) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getAccountBalance(account);
+        } catch (RuntimeException e) {
+            failed(Operation.GET_ACCOUNT_BALANCE, e);
+            throw e;
+        } finally {
+            record(Operation.GET_ACCOUNT_BALANCE, start);
+        }
+    }
+
+    @Override
+    public long getAccountBalanceCents(String account) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getAccountBalanceCents(account);
+        } catch (RuntimeException e) {
+            failed(Operation.GET_ACCOUNT_BALANCE, e);
+            throw e;
+        } finally {
+            record(Operation.GET_ACCOUNT_BALANCE, start);
+        }
+    }
+
+    @Override
+    public double getAccountBalance(String account, LocalDate asOfDate) {
+        return Money.toDouble(getAccountBalanceCents(account, asOfDate));
+    }
+
+    @Override
+    public long getAccountBalanceCents(String account, LocalDate asOfDate) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getAccountBalanceCents(account, asOfDate);
+        } catch (RuntimeException e) {
+            failed(Operation.GET_ACCOUNT_BALANCE_AS_OF, e);
+            throw e;
+        } finally {
+            record(Operation.GET_ACCOUNT_BALANCE_AS_OF, start);
+        }
+    }
+
+    @Override
+    public List<Transaction> getTransactions(String account) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getTransactions(account);
+        } catch (RuntimeException e) {
+            failed(Operation.GET_TRANSACTIONS, e);
+            throw e;
+        } finally {
+            record(Operation.GET_TRANSACTIONS, start);
+        }
+    }
+
+    @Override
+    public List<Transaction> getTransactionsSorted(String account, boolean asc) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getTransactionsSorted(account, asc);
+        } catch (RuntimeException e) {
+            failed(Operation.GET_TRANSACTIONS_SORTED, e);
+            throw e;
+        } finally {
+            record(Operation.GET_TRANSACTIONS_SORTED, start);
+        }
+    }
+
+    @Override
+    public List<Transaction> getTopTransactions(String account, int k, boolean asc) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getTopTransactions(account, k, asc);
+        } catch (RuntimeException e) {
+            failed(Operation.GET_TOP_TRANSACTIONS, e);
+            throw e;
+        } finally {
+            record(Operation.GET_TOP_TRANSACTIONS, start);
+        }
+    }
+
+    @Override
+    public List<Transaction> getTransactionsByType(String account, boolean positive) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getTransactionsByType(account, positive);
+        } catch (RuntimeException e) {
+            failed(Operation.GET_TRANSACTIONS_BY_TYPE, e);
+            throw e;
+        } finally {
+            record(Operation.GET_TRANSACTIONS_BY_TYPE, start);
+        }
+    }
+
+    @Override
+    public List<Transaction> searchTransactions(String account, String query) {
+        long start = System.nanoTime();
+        try {
+            return delegate.searchTransactions(account, query);
+        } catch (RuntimeException e) {
+            failed(Operation.SEARCH_TRANSACTIONS, e);
+            throw e;
+        } finally {
+            record(Operation.SEARCH_TRANSACTIONS, start);
+        }
+    }
+
+    @Override
+    public Map<String, List<Transaction>> searchTransactions(String query) {
+        long start = System.nanoTime();
+        try {
+            return delegate.searchTransactions(query);
+        } catch (RuntimeException e) {
+            failed(Operation.SEARCH_TRANSACTIONS, e);
+            throw e;
+        } finally {
+            record(Operation.SEARCH_TRANSACTIONS, start);
+        }
+    }
+
+    @Override
+    public Map<String, List<Transfer>> getTransfersByCounterparty(String counterparty) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getTransfersByCounterparty(counterparty);
+        } catch (RuntimeException e) {
+            failed(Operation.GET_TRANSFERS_BY_COUNTERPARTY, e);
+            throw e;
+        } finally {
+            record(Operation.GET_TRANSFERS_BY_COUNTERPARTY, start);
+        }
+    }
+
+    @Override
+    public List<MonthlyRollup> getMonthlyRollups(String account, YearMonth from, YearMonth to) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getMonthlyRollups(account, from, to);
+        } catch (RuntimeException e) {
+            failed(Operation.GET_MONTHLY_ROLLUPS, e);
+            throw e;
+        } finally {
+            record(Operation.GET_MONTHLY_ROLLUPS, start);
+        }
+    }
+
+    @Override
+    public List<Transaction> query(TransactionQuery query) {
+        long start = System.nanoTime();
+        try {
+            return delegate.query(query);
+        } catch (RuntimeException e) {
+            failed(Operation.QUERY, e);
+            throw e;
+        } finally {
+            record(Operation.QUERY, start);
+        }
+    }
+
+    @Override
+    public String explain(TransactionQuery query) {
+        return delegate.explain(query);
+    }
+
+    @Override
+    public void deleteAccount(String account) throws AccountDoesNotExistException, IOException {
+        long start = System.nanoTime();
+        try {
+            delegate.deleteAccount(account);
+            accountSizes.remove(account);
+        } catch (Exception e) {
+            failed(Operation.DELETE_ACCOUNT, e);
+            throw e;
+        } finally {
+            record(Operation.DELETE_ACCOUNT, start);
+        }
+    }
+
+    @Override
+    public List<String> getAllAccounts() {
+        long start = System.nanoTime();
+        try {
+            return delegate.getAllAccounts();
+        } catch (RuntimeException e) {
+            failed(Operation.GET_ALL_ACCOUNTS, e);
+            throw e;
+        } finally {
+            record(Operation.GET_ALL_ACCOUNTS, start);
+        }
+    }
+
+    @Override
+    public List<String> searchAccounts(String prefix, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.searchAccounts(prefix, limit);
+        } catch (RuntimeException e) {
+            failed(Operation.SEARCH_ACCOUNTS, e);
+            throw e;
+        } finally {
+            record(Operation.SEARCH_ACCOUNTS, start);
+        }
+    }
+
+    @Override
+    public BankReport createReport(int topCount) {
+        long start = System.nanoTime();
+        try {
+            return delegate.createReport(topCount);
+        } catch (RuntimeException e) {
+            failed(Operation.CREATE_REPORT, e);
+            throw e;
+        } finally {
+            record(Operation.CREATE_REPORT, start);
+        }
+    }
+
+    @Override
+    public void subscribe(BankListener listener) {
+        delegate.subscribe(listener);
+    }
+
+    @Override
+    public void unsubscribe(BankListener listener) {
+        delegate.unsubscribe(listener);
+    }
+
+    @Override
+    public long getEventSequence() {
+        return delegate.getEventSequence();
+    }
+
+    private void record(Operation operation, long start) {
+        operations[operation.ordinal()].record(System.nanoTime() - start);
+    }
+
+    private void failed(Operation operation, Exception e) {
+        operations[operation.ordinal()].failed();
+        errors.computeIfAbsent(e.getClass().getSimpleName(), type -> new LongAdder()).increment();
+    }
+
+    private void register(MBeanServer server, ObjectName objectName, Object metrics) throws JMException {
+        server.registerMBean(metrics, objectName);
+        registered.add(objectName);
+    }
+
+    /**
+     * Metrics of the whole bank, computed when they are read
+     */
+    private final class Metrics implements BankMetricsMXBean {
+        @Override
+        public int getAccountCount() {
+            return accountSizes.size();
+        }
+
+        @Override
+        public long getTransactionCount() {
+            long count = 0;
+            for (int size : accountSizes.values()) {
+                count += size;
+            }
+            return count;
+        }
+
+        @Override
+        public int getLargestAccountSize() {
+            int largest = 0;
+            for (int size : accountSizes.values()) {
+                largest = Math.max(largest, size);
+            }
+            return largest;
+        }
+
+        @Override
+        public long getOperationCount() {
+            long count = 0;
+            for (OperationMetrics metrics : operations) {
+                count += metrics.getCount();
+            }
+            return count;
+        }
+
+        @Override
+        public Map<String, Long> getErrorsByType() {
+            return InstrumentedBank.this.getErrorsByType();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package headquarters.bank;
+
+/**
+ * Utility class for the fixed-point money representation of the bank. Amounts are stored as a long of
+ * cents and interests as an int of basis points (1 basis point = 0.01 %), so that balances are summed
+ * up exactly. All methods work on primitives and do not allocate.
+ */
+public final class Money {
+    /**
+     * number of cents in one unit of the currency
+     */
+    public static final long CENTS_PER_UNIT = 100;
+    /**
+     * number of basis points of an interest of 1 (100 %)
+     */
+    public static final int BASIS_POINTS_PER_UNIT = 10_000;
+
+    private Money() {
+    }
+
+    /**
+     * Converts an amount to cents, rounding to the nearest cent
+     *
+     * @param amount amount in units of the currency
+     * @return amount in cents
+     */
+    public static long toCents(double amount) {
+        return Math.round(amount * CENTS_PER_UNIT);
+    }
+
+    /**
+     * Converts cents to an amount in units of the currency
+     *
+     * @param cents amount in cents
+     * @return amount in units of the currency
+     */
+    public static double toDouble(long cents) {
+        return cents / (double) CENTS_PER_UNIT;
+    }
+
+    /**
+     * Converts an interest between 0 and 1 to basis points, rounding to the nearest basis point
+     *
+     * @param interest interest between 0 and 1
+     * @return interest in basis points
+     */
+    public static int toBasisPoints(double interest) {
+        return (int) Math.round(interest * BASIS_POINTS_PER_UNIT);
+    }
+
+    /**
+     * Converts basis points to an interest between 0 and 1
+     *
+     * @param basisPoints interest in basis points
+     * @return interest between 0 and 1
+     */
+    public static double toInterest(int basisPoints) {
+        return basisPoints / (double) BASIS_POINTS_PER_UNIT;
+    }
+
+    /**
+     * Multiplies an amount with a factor given in basis points. Half cents are rounded away from zero,
+     * so credits and debits of the same size are rounded symmetrically.
+     *
+     * @param cents       amount in cents
+     * @param basisPoints factor in basis points (10000 leaves the amount unchanged)
+     * @return product in cents
+     */
+    public static long multiply(long cents, int basisPoints) {
+        long product = cents * basisPoints;
+        long half = BASIS_POINTS_PER_UNIT / 2;
+        return (product >= 0 ? product + half : product - half) / BASIS_POINTS_PER_UNIT;
+    }
+}
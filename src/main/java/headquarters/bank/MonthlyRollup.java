@@ -0,0 +1,40 @@
+package headquarters.bank;
+
+import java.time.YearMonth;
+
+/**
+ * Inflow, outflow and net of the calculated amounts of one account in one month
+ *
+ * @param month        the month
+ * @param inflowCents  sum of the positive calculated amounts in cents
+ * @param outflowCents sum of the negative calculated amounts in cents, as a positive number
+ */
+public record MonthlyRollup(YearMonth month, long inflowCents, long outflowCents) {
+    /**
+     * @return inflow minus outflow in cents
+     */
+    public long netCents() {
+        return inflowCents - outflowCents;
+    }
+
+    /**
+     * @return sum of the positive calculated amounts
+     */
+    public double inflow() {
+        return Money.toDouble(inflowCents);
+    }
+
+    /**
+     * @return sum of the negative calculated amounts, as a positive number
+     */
+    public double outflow() {
+        return Money.toDouble(outflowCents);
+    }
+
+    /**
+     * @return inflow minus outflow
+     */
+    public double net() {
+        return Money.toDouble(netCents());
+    }
+}
@@ -0,0 +1,237 @@
+package headquarters.bank;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Materialized monthly rollups of one account. For every month with transactions the inflow and outflow of
+ * the calculated amounts are kept, so a range of months is read without touching the transactions. The rollups
+ * register themselves at the transactions and are corrected, whenever an amount or a date changes.
+ * Transactions with a date, which cannot be read, are counted but belong to no month.
+ */
+class MonthlyRollups implements TransactionListener {
+    /**
+     * represents the rollups by month, see {@link TransactionDates#monthOf(String)}
+     */
+    private final TreeMap<Integer, Month> months = new TreeMap<>();
+    /**
+     * represents the number of transactions, used to check persisted rollups
+     */
+    private int transactionCount;
+    /**
+     * represents the sum of all calculated amounts in cents, used to check persisted rollups
+     */
+    private long balance;
+    /**
+     * represents the CRC32 of the JSON file of the account, from which the read rollups were calculated
+     */
+    private long ledgerChecksum;
+
+    /**
+     * Inflow and outflow of one month, the count tells when the month can be dropped
+     */
+    private static final class Month {
+        private long inflow;
+        private long outflow;
+        private int count;
+    }
+
+    /**
+     * Adds a transaction to the rollups and registers at the transaction
+     *
+     * @param transaction added to the account
+     */
+    void add(Transaction transaction) {
+        transaction.addListener(this);
+        apply(TransactionDates.monthOf(transaction.getDate()), transaction.calculateCents(), 1);
+    }
+
+    /**
+     * Removes a transaction from the rollups
+     *
+     * @param transaction removed from the account
+     */
+    void remove(Transaction transaction) {
+        transaction.removeListener(this);
+        apply(TransactionDates.monthOf(transaction.getDate()), transaction.calculateCents(), -1);
+    }
+
+    /**
+     * Unregisters from all transactions, e.g. because the account is deleted
+     *
+     * @param transactions all transactions of the account
+     */
+    void clear(List<Transaction> transactions) {
+        for (Transaction transaction : transactions) {
+            transaction.removeListener(this);
+        }
+        months.clear();
+        transactionCount = 0;
+        balance = 0;
+    }
+
+    /**
+     * Registers at the transactions without changing the rollups, e.g. after the rollups were read from a file
+     *
+     * @param transactions all transactions of the account
+     */
+    void listen(List<Transaction> transactions) {
+        for (Transaction transaction : transactions) {
+            transaction.addListener(this);
+        }
+    }
+
+    /**
+     * Calculates the rollups again from all transactions, after their amounts were changed without informing
+     * the rollups. The registrations at the transactions stay as they are.
+     *
+     * @param transactions all transactions of the account
+     */
+    void rebuild(List<Transaction> transactions) {
+        months.clear();
+        transactionCount = 0;
+        balance = 0;
+        for (Transaction transaction : transactions) {
+            apply(TransactionDates.monthOf(transaction.getDate()), transaction.calculateCents(), 1);
+        }
+    }
+
+    @Override
+    public void amountChanged(Transaction transaction, long oldCents, long newCents) {
+        int month = TransactionDates.monthOf(transaction.getDate());
+        apply(month, oldCents, -1);
+        apply(month, newCents, 1);
+    }
+
+    @Override
+    public void dateChanged(Transaction transaction, String oldDate) {
+        long cents = transaction.calculateCents();
+        apply(TransactionDates.monthOf(oldDate), cents, -1);
+        apply(TransactionDates.monthOf(transaction.getDate()), cents, 1);
+    }
+
+    /**
+     * Returns the rollups of all months with transactions between two months, in O(months)
+     *
+     * @param from first month of the range
+     * @param to   last month of the range (inclusive)
+     * @return rollups of the months with transactions, in chronological order
+     */
+    List<MonthlyRollup> range(YearMonth from, YearMonth to) {
+        List<MonthlyRollup> result = new ArrayList<>();
+        int first = TransactionDates.monthOf(from);
+        int last = TransactionDates.monthOf(to);
+        if (first > last) {
+            return result;
+        }
+        for (Map.Entry<Integer, Month> entry : months.subMap(first, true, last, true).entrySet()) {
+            Month month = entry.getValue();
+            result.add(new MonthlyRollup(TransactionDates.toYearMonth(entry.getKey()), month.inflow, month.outflow));
+        }
+        return result;
+    }
+
+    /**
+     * Checks, if the read rollups were calculated from the JSON file with the given checksum and belong to an
+     * account with the given number of transactions and balance
+     *
+     * @param ledgerChecksum   CRC32 of the JSON file of the account
+     * @param transactionCount number of transactions of the account
+     * @param balance          balance of the account in cents
+     * @return true, if all match
+     */
+    boolean matches(long ledgerChecksum, int transactionCount, long balance) {
+        return this.ledgerChecksum == ledgerChecksum && this.transactionCount == transactionCount
+                && this.balance == balance;
+    }
+
+    /**
+     * Writes the rollups as JSON
+     *
+     * @param writer         target of the JSON
+     * @param ledgerChecksum CRC32 of the JSON file of the account, from which the rollups were calculated
+     * @throws IOException if the rollups could not be written
+     */
+    void write(Writer writer, long ledgerChecksum) throws IOException {
+        JsonObject json = new JsonObject();
+        json.addProperty("ledgerCrc32", ledgerChecksum);
+        json.addProperty("transactionCount", transactionCount);
+        json.addProperty("balanceCents", balance);
+        JsonArray array = new JsonArray();
+        for (Map.Entry<Integer, Month> entry : months.entrySet()) {
+            JsonObject month = new JsonObject();
+            month.addProperty("month", TransactionDates.toYearMonth(entry.getKey()).toString());
+            month.addProperty("inflowCents", entry.getValue().inflow);
+            month.addProperty("outflowCents", entry.getValue().outflow);
+            month.addProperty("count", entry.getValue().count);
+            array.add(month);
+        }
+        json.add("months", array);
+        writer.write(json.toString());
+    }
+
+    /**
+     * Reads rollups, which were written with {@link #write(Writer, long)}, and replaces the current rollups
+     *
+     * @param reader source of the JSON
+     * @return true, if the rollups could be read, otherwise the rollups are empty
+     */
+    boolean read(Reader reader) {
+        months.clear();
+        try {
+            JsonObject json = JsonParser.parseReader(reader).getAsJsonObject();
+            ledgerChecksum = json.get("ledgerCrc32").getAsLong();
+            transactionCount = json.get("transactionCount").getAsInt();
+            balance = json.get("balanceCents").getAsLong();
+            for (JsonElement element : json.getAsJsonArray("months")) {
+                JsonObject entry = element.getAsJsonObject();
+                Month month = new Month();
+                month.inflow = entry.get("inflowCents").getAsLong();
+                month.outflow = entry.get("outflowCents").getAsLong();
+                month.count = entry.get("count").getAsInt();
+                months.put(TransactionDates.monthOf(YearMonth.parse(entry.get("month").getAsString())), month);
+            }
+            return true;
+        } catch (JsonParseException | IllegalStateException | NullPointerException | DateTimeParseException e) {
+            months.clear();
+            ledgerChecksum = 0;
+            transactionCount = 0;
+            balance = 0;
+            return false;
+        }
+    }
+
+    /**
+     * Adds (sign 1) or subtracts (sign -1) a calculated amount to or from its month
+     */
+    private void apply(int monthKey, long cents, int sign) {
+        transactionCount += sign;
+        balance += sign * cents;
+        if (monthKey == TransactionDates.NO_MONTH) {
+            return;
+        }
+        Month month = months.computeIfAbsent(monthKey, m -> new Month());
+        if (cents >= 0) {
+            month.inflow += sign * cents;
+        } else {
+            month.outflow -= sign * cents;
+        }
+        month.count += sign;
+        if (month.count == 0) {
+            months.remove(monthKey);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package headquarters.bank;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and errors of one operation of an {@link InstrumentedBank}
+ */
+public final class OperationMetrics implements OperationMetricsMXBean {
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+
+    /**
+     * Records one call of the operation
+     *
+     * @param nanos latency of the call in nanoseconds
+     */
+    void record(long nanos) {
+        latencies.record(nanos);
+    }
+
+    /**
+     * Counts a call, which threw an exception
+     */
+    void failed() {
+        errors.increment();
+    }
+
+    /**
+     * @return latencies of all calls in nanoseconds
+     */
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+
+    @Override
+    public long getCount() {
+        return latencies.getCount();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public double getErrorRate() {
+        long count = latencies.getCount();
+        return count == 0 ? 0 : (double) errors.sum() / count;
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return latencies.getMean() / 1e3;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return latencies.getPercentile(50) / 1e3;
+    }
+
+    @Override
+    public double getP90Micros() {
+        return latencies.getPercentile(90) / 1e3;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return latencies.getPercentile(99) / 1e3;
+    }
+
+    @Override
+    public double getP999Micros() {
+        return latencies.getPercentile(99.9) / 1e3;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return latencies.getMax() / 1e3;
+    }
+}
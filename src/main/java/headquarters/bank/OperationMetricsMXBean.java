@@ -0,0 +1,28 @@
+package headquarters.bank;
+
+/**
+ * Metrics of one operation of an {@link InstrumentedBank}, as shown by JMX. The latencies include failed
+ * calls and are given in microseconds.
+ */
+public interface OperationMetricsMXBean {
+    long getCount();
+
+    long getErrors();
+
+    /**
+     * @return share of the failed calls between 0 and 1
+     */
+    double getErrorRate();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP90Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaxMicros();
+}
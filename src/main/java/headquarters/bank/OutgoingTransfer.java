@@ -26,7 +26,7 @@ public class OutgoingTransfer extends Transfer {
      * @return negative amount, because outgoing transfer
      */
     @Override
-    public double calculate() {
-        return (-1) * (super.calculate());
+    protected long computeCents() {
+        return (-1) * (super.computeCents());
     }
 }
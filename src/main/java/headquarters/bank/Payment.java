@@ -9,8 +9,14 @@ import headquarters.bank.exceptions.TransactionAttributeException;
  * Date: 19.10.22
  */
 public class Payment extends Transaction {
-    private double incomingInterest;
-    private double outgoingInterest;
+    /**
+     * Interest charges of the deposit in basis points
+     */
+    private int incomingInterest;
+    /**
+     * Interest charges of the withdrawal in basis points
+     */
+    private int outgoingInterest;
 
     /**
      * The constructor with 5 initializing parameters
@@ -34,8 +40,8 @@ public class Payment extends Transaction {
      * @param payment object, we are copying from
      */
     public Payment(Payment payment) throws TransactionAttributeException {
-        this(payment.getDate(), payment.getAmount(), payment.getDescription(), payment.incomingInterest,
-                payment.outgoingInterest);
+        this(payment.getDate(), payment.getAmount(), payment.getDescription(), payment.getIncomingInterest(),
+                payment.getOutgoingInterest());
     }
 
     /**
@@ -44,6 +50,15 @@ public class Payment extends Transaction {
      * @return incoming interest
      */
     public double getIncomingInterest() {
+        return Money.toInterest(incomingInterest);
+    }
+
+    /**
+     * Incoming interest getter in basis points
+     *
+     * @return incoming interest in basis points
+     */
+    public int getIncomingInterestBasisPoints() {
         return incomingInterest;
     }
 
@@ -56,7 +71,8 @@ public class Payment extends Transaction {
         if (incomingInterest > 1 || incomingInterest < 0) {
             throw new TransactionAttributeException("Incorrect input of the incoming interest. Must be between 0 and 1");
         } else {
-            this.incomingInterest = incomingInterest;
+            this.incomingInterest = Money.toBasisPoints(incomingInterest);
+            calculationChanged();
         }
     }
 
@@ -66,6 +82,15 @@ public class Payment extends Transaction {
      * @return outgoing interest
      */
     public double getOutgoingInterest() {
+        return Money.toInterest(outgoingInterest);
+    }
+
+    /**
+     * Outgoing interest getter in basis points
+     *
+     * @return outgoing interest in basis points
+     */
+    public int getOutgoingInterestBasisPoints() {
         return outgoingInterest;
     }
 
@@ -78,7 +103,8 @@ public class Payment extends Transaction {
         if (outgoingInterest > 1 || outgoingInterest < 0) {
             throw new TransactionAttributeException("Incorrect input of the outgoing interest. Must be between 0 and 1");
         } else {
-            this.outgoingInterest = outgoingInterest;
+            this.outgoingInterest = Money.toBasisPoints(outgoingInterest);
+            calculationChanged();
         }
     }
 
@@ -92,8 +118,8 @@ public class Payment extends Transaction {
     public boolean equals(Object o) {
         if (!super.equals(o)) return false;
         Payment payment = (Payment) o;
-        return Double.compare(payment.incomingInterest, incomingInterest) == 0 &&
-                Double.compare(payment.outgoingInterest, outgoingInterest) == 0;
+        return payment.incomingInterest == incomingInterest &&
+                payment.outgoingInterest == outgoingInterest;
     }
 
     /**
@@ -108,12 +134,48 @@ public class Payment extends Transaction {
                 ", outgoing interest= " + getOutgoingInterest();
     }
 
+    /**
+     * Calculates the payment amount with account of interest tax in cents. Deposits are reduced by the
+     * incoming interest, withdrawals are increased by the outgoing interest.
+     *
+     * @return payment amount with account of interest tax in cents
+     */
     @Override
-    public double calculate() {
-        if (getAmount() > 0) {
-            return (1 - getIncomingInterest()) * getAmount();
+    protected long computeCents() {
+        return calculateCents(amountCents, incomingInterest, outgoingInterest);
+    }
+
+    /**
+     * Sets both interests without informing the listeners of the accounts. Only used by the bank, when it
+     * rebuilds the indexes of the accounts afterwards anyway. The calculated amount is memoized again at once.
+     *
+     * @param incomingInterest incoming interest in basis points
+     * @param outgoingInterest outgoing interest in basis points
+     * @return true, if one of the interests changed
+     */
+    boolean reprice(int incomingInterest, int outgoingInterest) {
+        if (this.incomingInterest == incomingInterest && this.outgoingInterest == outgoingInterest) {
+            return false;
+        }
+        this.incomingInterest = incomingInterest;
+        this.outgoingInterest = outgoingInterest;
+        recalculateSilently();
+        return true;
+    }
+
+    /**
+     * Calculates a payment amount with account of interest tax in cents without a payment object
+     *
+     * @param amountCents      amount of the payment in cents
+     * @param incomingInterest incoming interest in basis points
+     * @param outgoingInterest outgoing interest in basis points
+     * @return payment amount with account of interest tax in cents
+     */
+    public static long calculateCents(long amountCents, int incomingInterest, int outgoingInterest) {
+        if (amountCents > 0) {
+            return Money.multiply(amountCents, Money.BASIS_POINTS_PER_UNIT - incomingInterest);
         } else {
-            return (1 + getOutgoingInterest()) * getAmount();
+            return Money.multiply(amountCents, Money.BASIS_POINTS_PER_UNIT + outgoingInterest);
         }
     }
 
@@ -0,0 +1,114 @@
+package headquarters.bank;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counts the writes and reads of the account files of a PrivateBank. The bank records on its own thread, the
+ * metrics can be read from every thread, e.g. by JMX.
+ */
+public final class PersistenceMetrics implements PersistenceMetricsMXBean {
+    private final LatencyHistogram writeLatencies = new LatencyHistogram();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final AtomicLong maxBytesPerWrite = new AtomicLong();
+    private final AtomicLong accountsRead = new AtomicLong();
+    private final AtomicLong readNanos = new AtomicLong();
+
+    /**
+     * Records the write of one account file
+     *
+     * @param bytes size of the written file
+     * @param nanos time needed to serialize and write the file
+     */
+    void accountWritten(long bytes, long nanos) {
+        writeLatencies.record(nanos);
+        bytesWritten.add(bytes);
+        if (bytes > maxBytesPerWrite.get()) {
+            maxBytesPerWrite.accumulateAndGet(bytes, Math::max);
+        }
+    }
+
+    /**
+     * Records the load of the bank
+     *
+     * @param accounts number of account files read
+     * @param nanos    time needed to read the files and to build the indexes
+     */
+    void accountsRead(int accounts, long nanos) {
+        accountsRead.addAndGet(accounts);
+        readNanos.addAndGet(nanos);
+    }
+
+    /**
+     * Registers the metrics at the platform MBean server as "headquarters.bank:type=Persistence,name=..."
+     *
+     * @param bankName name of the bank in the object name
+     * @return the object name, to unregister the metrics again
+     * @throws IllegalStateException if metrics of a bank with the same name are already registered
+     */
+    public ObjectName register(String bankName) {
+        try {
+            ObjectName name = new ObjectName("headquarters.bank:type=Persistence,name=" + ObjectName.quote(bankName));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            return name;
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register the metrics of bank " + bankName, e);
+        }
+    }
+
+    /**
+     * @return latencies of the account file writes in nanoseconds
+     */
+    public LatencyHistogram getWriteLatencies() {
+        return writeLatencies;
+    }
+
+    @Override
+    public long getAccountWrites() {
+        return writeLatencies.getCount();
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    @Override
+    public double getMeanBytesPerWrite() {
+        long writes = writeLatencies.getCount();
+        return writes == 0 ? 0 : (double) bytesWritten.sum() / writes;
+    }
+
+    @Override
+    public long getMaxBytesPerWrite() {
+        return maxBytesPerWrite.get();
+    }
+
+    @Override
+    public double getWriteP50Micros() {
+        return writeLatencies.getPercentile(50) / 1e3;
+    }
+
+    @Override
+    public double getWriteP99Micros() {
+        return writeLatencies.getPercentile(99) / 1e3;
+    }
+
+    @Override
+    public double getWriteMaxMicros() {
+        return writeLatencies.getMax() / 1e3;
+    }
+
+    @Override
+    public long getAccountsRead() {
+        return accountsRead.get();
+    }
+
+    @Override
+    public double getReadMillis() {
+        return readNanos.get() / 1e6;
+    }
+}
@@ -0,0 +1,36 @@
+package headquarters.bank;
+
+/**
+ * Metrics of the account files of a {@link PrivateBank}, as shown by JMX
+ */
+public interface PersistenceMetricsMXBean {
+    /**
+     * @return number of account files written
+     */
+    long getAccountWrites();
+
+    /**
+     * @return bytes written to account files
+     */
+    long getBytesWritten();
+
+    double getMeanBytesPerWrite();
+
+    long getMaxBytesPerWrite();
+
+    double getWriteP50Micros();
+
+    double getWriteP99Micros();
+
+    double getWriteMaxMicros();
+
+    /**
+     * @return number of account files read when the bank was loaded
+     */
+    long getAccountsRead();
+
+    /**
+     * @return time, which was needed to load the bank
+     */
+    double getReadMillis();
+}
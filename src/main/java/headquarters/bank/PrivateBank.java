@@ -5,9 +5,23 @@ import com.google.gson.reflect.TypeToken;
 import headquarters.bank.exceptions.*;
 
 import java.io.*;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
 
 /**
  * PrivateBank represents implemented functions of the Bank interface
@@ -28,11 +42,80 @@ public class PrivateBank implements Bank {
      * represents the outgoingInterest of private Bank
      */
     private double outgoingInterest;
+    /**
+     * suffix of the files, in which the monthly rollups are stored next to the JSON files of the accounts
+     */
+    private static final String ROLLUP_SUFFIX = ".rollups";
+    /**
+     * suffix of the files, which are written in a batch and renamed to their names after all were written
+     */
+    private static final String TEMP_SUFFIX = ".tmp";
+    /**
+     * reads and writes the account files, the Serializer has no state, so one instance serves all accounts
+     */
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeHierarchyAdapter(Transaction.class, new Serializer()).setPrettyPrinting().create();
+    private static final Type TRANSACTION_LIST = new TypeToken<List<Transaction>>() {
+    }.getType();
+    /**
+     * directory of the JSON files of the accounts, if no other directory is given
+     */
+    public static final String DEFAULT_DIRECTORY = "src/main/java/headquarters/bank/transactions/";
     /**
      * represents the map of accounts and list of corresponding transactions of private Bank
      */
     private Map<String, List<Transaction>> accountsToTransactions = new HashMap<>();
-    public String directoryName = "src/main/java/headquarters/bank/transactions/";
+    /**
+     * represents the indexes of the accounts, which keep the balances and the sorted transactions
+     */
+    private final Map<String, AccountIndex> accountIndexes = new HashMap<>();
+    /**
+     * represents the date indexes of the accounts, which answer balances as of a date
+     */
+    private final Map<String, DateIndex> dateIndexes = new HashMap<>();
+    /**
+     * represents the inverted index over the descriptions of the transactions of all accounts
+     */
+    private final DescriptionIndex descriptionIndex = new DescriptionIndex();
+    /**
+     * represents the index from senders and recipients to the transfers of all accounts
+     */
+    private final CounterpartyIndex counterpartyIndex = new CounterpartyIndex();
+    /**
+     * represents the prefix index over the names of the accounts
+     */
+    private final AccountNameIndex accountNames = new AccountNameIndex();
+    /**
+     * represents the executor of queries, which uses the indexes above
+     */
+    private final QueryExecutor queryExecutor = new QueryExecutor(accountsToTransactions, accountIndexes,
+            dateIndexes, descriptionIndex, counterpartyIndex);
+    /**
+     * represents the materialized monthly rollups of the accounts
+     */
+    private final Map<String, MonthlyRollups> accountRollups = new HashMap<>();
+    /**
+     * represents the CRC32 of the JSON file of every account, as it was written last, the rollups files record
+     * it to detect, that the JSON file was changed without them
+     */
+    private final Map<String, Long> ledgerChecksums = new HashMap<>();
+    /**
+     * is true while the bank is constructed and its accounts are read, then no changes are published, the
+     * counterparty index is built once after reading and the rollups are read from their files
+     */
+    private boolean loading;
+    /**
+     * represents the publisher of the changes of the bank to its listeners
+     */
+    private final BankEventPublisher events;
+    /**
+     * represents the counted writes and reads of the account files
+     */
+    private final PersistenceMetrics persistenceMetrics = new PersistenceMetrics();
+    /**
+     * represents the directory, in which the JSON files of the accounts are stored
+     */
+    public String directoryName;
 
     /**
      * Constructor for the Private bank to initialize an object with parameters
@@ -44,7 +127,41 @@ public class PrivateBank implements Bank {
      */
     public PrivateBank(String name, double incomingInterest, double outgoingInterest) throws
             TransactionAttributeException, IOException, TransactionAlreadyExistException, AccountAlreadyExistsException, AccountDoesNotExistException {
+        this(name, incomingInterest, outgoingInterest, DEFAULT_DIRECTORY);
+    }
+
+    /**
+     * Constructor for the Private bank, which stores its accounts in the given directory
+     *
+     * @param name             of the bank
+     * @param incomingInterest of the bank
+     * @param outgoingInterest of the bank
+     * @param directoryName    directory of the JSON files of the accounts (has to end with a separator)
+     * @throws TransactionAttributeException is thrown, when incorrect incoming-/outgoing interest
+     */
+    public PrivateBank(String name, double incomingInterest, double outgoingInterest, String directoryName) throws
+            TransactionAttributeException, IOException, TransactionAlreadyExistException, AccountAlreadyExistsException, AccountDoesNotExistException {
+        this(name, incomingInterest, outgoingInterest, directoryName, new BankEventPublisher(name));
+    }
+
+    /**
+     * Constructor for a private bank, which publishes its changes with the given publisher, e.g. a shard, whose
+     * changes are numbered by the publisher of the sharded bank
+     *
+     * @param name             of the bank
+     * @param incomingInterest of the bank
+     * @param outgoingInterest of the bank
+     * @param directoryName    directory of the JSON files of the accounts (has to end with a separator)
+     * @param events           publisher of the changes of the bank
+     * @throws TransactionAttributeException is thrown, when incorrect incoming-/outgoing interest
+     */
+    PrivateBank(String name, double incomingInterest, double outgoingInterest, String directoryName,
+                BankEventPublisher events) throws TransactionAttributeException, IOException,
+            TransactionAlreadyExistException, AccountAlreadyExistsException, AccountDoesNotExistException {
         this.name = name;
+        this.directoryName = directoryName;
+        this.events = events;
+        loading = true;
         setIncomingInterest(incomingInterest);
         setOutgoingInterest(outgoingInterest);
         readAccounts();
@@ -57,7 +174,7 @@ public class PrivateBank implements Bank {
      * @throws TransactionAttributeException is thrown, when incorrect incoming-/outgoing interest
      */
     public PrivateBank(PrivateBank privateBank) throws TransactionAttributeException, IOException, TransactionAlreadyExistException, AccountAlreadyExistsException, AccountDoesNotExistException {
-        this(privateBank.name, privateBank.incomingInterest, privateBank.outgoingInterest);
+        this(privateBank.name, privateBank.incomingInterest, privateBank.outgoingInterest, privateBank.directoryName);
     }
 
     @Override
@@ -115,7 +232,10 @@ public class PrivateBank implements Bank {
         if (incomingInterest > 1 || incomingInterest < 0) {
             throw new TransactionAttributeException("Incorrect input of the outgoing interest. Must be between 0 and 1");
         }
-        this.incomingInterest = incomingInterest;
+        if (this.incomingInterest != incomingInterest) {
+            this.incomingInterest = incomingInterest;
+            publish(BankEvent.Type.RATES_CHANGED, null, null);
+        }
     }
 
     /**
@@ -137,7 +257,10 @@ public class PrivateBank implements Bank {
         if (outgoingInterest > 1 || outgoingInterest < 0) {
             throw new TransactionAttributeException("Incorrect input of the outgoing interest. Must be between 0 and 1");
         }
-        this.outgoingInterest = outgoingInterest;
+        if (this.outgoingInterest != outgoingInterest) {
+            this.outgoingInterest = outgoingInterest;
+            publish(BankEvent.Type.RATES_CHANGED, null, null);
+        }
     }
 
     @Override
@@ -147,7 +270,12 @@ public class PrivateBank implements Bank {
         }
         List<Transaction> transactions = new ArrayList<>();
         accountsToTransactions.put(account, transactions);
+        accountIndexes.put(account, new AccountIndex());
+        dateIndexes.put(account, new DateIndex());
+        accountRollups.put(account, new MonthlyRollups());
+        accountNames.add(account);
         writeAccount(account);
+        publish(BankEvent.Type.ACCOUNT_CREATED, account, null);
     }
 
     @Override
@@ -195,7 +323,15 @@ public class PrivateBank implements Bank {
             ((Payment) transaction).setOutgoingInterest(outgoingInterest);
         }
         accountsToTransactions.get(account).add(transaction);
+        accountIndexes.get(account).add(transaction);
+        dateIndexes.get(account).add(transaction);
+        descriptionIndex.add(account, transaction);
+        if (!loading) {
+            counterpartyIndex.add(account, transaction);
+            accountRollups.get(account).add(transaction);
+        }
         writeAccount(account);
+        publish(BankEvent.Type.TRANSACTION_ADDED, account, transaction);
     }
 
     @Override
@@ -204,11 +340,18 @@ public class PrivateBank implements Bank {
         if (!accountsToTransactions.containsKey(account)) {
             throw new AccountDoesNotExistException("Cannot remove transaction from non-existing account");
         }
-        if (!accountsToTransactions.get(account).contains(transaction)) {
+        int index = accountsToTransactions.get(account).indexOf(transaction);
+        if (index < 0) {
             throw new TransactionDoesNotExistException("Cannot remove transaction. Transaction does not exist in this account");
         }
-        accountsToTransactions.get(account).remove(transaction);
+        Transaction removed = accountsToTransactions.get(account).remove(index);
+        accountIndexes.get(account).remove(removed);
+        dateIndexes.get(account).remove(removed);
+        descriptionIndex.remove(account, removed);
+        counterpartyIndex.remove(account, removed);
+        accountRollups.get(account).remove(removed);
         writeAccount(account);
+        publish(BankEvent.Type.TRANSACTION_REMOVED, account, removed);
     }
 
     @Override
@@ -222,11 +365,44 @@ public class PrivateBank implements Bank {
 
     @Override
     public double getAccountBalance(String account) {
-        double accountBalance = 0;
-        for (Transaction t : accountsToTransactions.get(account)) {
-            accountBalance += t.calculate();
-        }
-        return accountBalance;
+        return Money.toDouble(getAccountBalanceCents(account));
+    }
+
+    @Override
+    public long getAccountBalanceCents(String account) {
+        return accountIndexes.get(account).getBalance();
+    }
+
+    /**
+     * Calculates the sum of all positive calculated amounts of an account
+     *
+     * @param account the selected account
+     * @return sum of the credits in cents
+     */
+    public long getAccountCreditsCents(String account) {
+        return accountIndexes.get(account).getCredits();
+    }
+
+    /**
+     * Calculates the sum of all negative calculated amounts of an account
+     *
+     * @param account the selected account
+     * @return sum of the debits in cents
+     */
+    public long getAccountDebitsCents(String account) {
+        return accountIndexes.get(account).getDebits();
+    }
+
+    /**
+     * Reads the balance at the end of a day from the date index of the account in O(log n)
+     *
+     * @param account  the selected account
+     * @param asOfDate last day, whose transactions are counted
+     * @return the account balance at the end of the day in cents
+     */
+    @Override
+    public long getAccountBalanceCents(String account, LocalDate asOfDate) {
+        return dateIndexes.get(account).balanceAsOf(asOfDate.toEpochDay());
     }
 
     @Override
@@ -234,56 +410,76 @@ public class PrivateBank implements Bank {
         return accountsToTransactions.get(account);
     }
 
+    /**
+     * Returns a new list of the transactions of an account, which is read from the sorted index of the
+     * account. The list of the account itself keeps its order.
+     *
+     * @param account the selected account
+     * @param asc     selects if the transaction list is sorted in ascending or descending order
+     * @return the sorted list of all transactions for the specified account
+     */
     @Override
     public List<Transaction> getTransactionsSorted(String account, boolean asc) {
-
-        if (asc) {
-            accountsToTransactions.get(account).sort(PrivateBank.compareTransactionsAsc);
-            return accountsToTransactions.get(account);
+        FlightEvents.AccountScan event = new FlightEvents.AccountScan();
+        event.begin();
+        List<Transaction> sorted = accountIndexes.get(account).getSorted(asc);
+        if (event.shouldCommit()) {
+            event.operation = "getTransactionsSorted";
+            event.account = account;
+            event.transactions = sorted.size();
+            event.commit();
         }
-        accountsToTransactions.get(account).sort(PrivateBank.compareTransactionsDesc);
-        return accountsToTransactions.get(account);
-
+        return sorted;
     }
 
     /**
      * Comparator, which helps to sort elements in the list in ascending order
      */
-    public static Comparator<Transaction> compareTransactionsAsc = (o1, o2) -> {
-        double amount1 = o1.calculate();
-        double amount2 = o2.calculate();
-
-        return (int) (amount1 - amount2);
-    };
+    public static Comparator<Transaction> compareTransactionsAsc = (o1, o2) ->
+            Long.compare(o1.calculateCents(), o2.calculateCents());
 
     /**
      * Comparator, which helps to sort elements in the list in descending order
      */
-    public static Comparator<Transaction> compareTransactionsDesc = (o1, o2) -> {
-        double amount1 = o1.calculate();
-        double amount2 = o2.calculate();
+    public static Comparator<Transaction> compareTransactionsDesc = (o1, o2) ->
+            Long.compare(o2.calculateCents(), o1.calculateCents());
 
-        return (int) (amount2 - amount1);
-    };
+    /**
+     * Returns the first k transactions of the sorted index of the account in O(k)
+     *
+     * @param account the selected account
+     * @param k       maximal number of returned transactions
+     * @param asc     selects if the smallest (ascending) or the largest (descending) amounts are returned
+     * @return at most k transactions, sorted in the selected order
+     */
+    @Override
+    public List<Transaction> getTopTransactions(String account, int k, boolean asc) {
+        if (k < 0) {
+            throw new IllegalArgumentException("Number of transactions must not be negative");
+        }
+        return accountIndexes.get(account).getTop(k, asc);
+    }
 
+    /**
+     * Returns the positive or negative transactions of an account, read from the partitions of the sorted
+     * index, so the transactions are ordered ascending by their calculated amount.
+     *
+     * @param account  the selected account
+     * @param positive selects if positive or negative transactions are listed
+     * @return the list of all transactions by type
+     */
     @Override
     public List<Transaction> getTransactionsByType(String account, boolean positive) {
-        List<Transaction> resultList = new ArrayList<>();
-
-        if (positive) {
-            for (Transaction t : accountsToTransactions.get(account)) {
-                if (t.calculate() >= 0) {
-                    resultList.add(t);
-                }
-            }
-            return resultList;
+        FlightEvents.AccountScan event = new FlightEvents.AccountScan();
+        event.begin();
+        List<Transaction> partition = accountIndexes.get(account).getPartition(positive);
+        if (event.shouldCommit()) {
+            event.operation = "getTransactionsByType";
+            event.account = account;
+            event.transactions = partition.size();
+            event.commit();
         }
-        for (Transaction t : accountsToTransactions.get(account)) {
-            if (t.calculate() < 0) {
-                resultList.add(t);
-            }
-        }
-        return resultList;
+        return partition;
     }
 
     @Override
@@ -291,10 +487,58 @@ public class PrivateBank implements Bank {
         if (!accountsToTransactions.containsKey(account)) {
             throw new AccountDoesNotExistException("Cannot delete an account, which does not exist");
         }
-        accountsToTransactions.remove(account);
+        List<Transaction> transactions = accountsToTransactions.remove(account);
+        for (Transaction transaction : transactions) {
+            descriptionIndex.remove(account, transaction);
+            counterpartyIndex.remove(account, transaction);
+        }
+        accountIndexes.remove(account).clear();
+        dateIndexes.remove(account).clear();
+        accountRollups.remove(account).clear(transactions);
+        ledgerChecksums.remove(account);
+        accountNames.remove(account);
 
         deleteJsonFile(account);
         writeAccount(account);
+        publish(BankEvent.Type.ACCOUNT_DELETED, account, null);
+    }
+
+    /**
+     * Subscribes a listener, which receives all changes published afterwards. Creating an account with
+     * transactions publishes ACCOUNT_CREATED followed by one TRANSACTION_ADDED per transaction, deleting an
+     * account only publishes ACCOUNT_DELETED.
+     *
+     * @param listener the new listener
+     */
+    @Override
+    public void subscribe(BankListener listener) {
+        events.subscribe(listener);
+    }
+
+    @Override
+    public void unsubscribe(BankListener listener) {
+        events.unsubscribe(listener);
+    }
+
+    /**
+     * @return counted writes and reads of the account files, e.g. to register them at JMX
+     */
+    public PersistenceMetrics getPersistenceMetrics() {
+        return persistenceMetrics;
+    }
+
+    @Override
+    public long getEventSequence() {
+        return events.getSequence();
+    }
+
+    /**
+     * Publishes a change, but not while the bank is constructed or read, so a loaded bank has not changed yet
+     */
+    private void publish(BankEvent.Type type, String account, Transaction transaction) {
+        if (!loading) {
+            events.publish(type, account, transaction);
+        }
     }
 
     @Override
@@ -302,10 +546,186 @@ public class PrivateBank implements Bank {
         return new ArrayList<>(accountsToTransactions.keySet());
     }
 
+    /**
+     * Reads the matching names from the prefix index in O(log n + limit)
+     *
+     * @param prefix start of the names, the empty prefix matches all accounts
+     * @param limit  maximal number of names
+     * @return the first matching names in {@link AccountNameIndex#ORDER}
+     */
+    @Override
+    public List<String> searchAccounts(String prefix, int limit) {
+        return accountNames.search(prefix, limit);
+    }
+
+    /**
+     * Searches the transactions of an account with the inverted description index
+     *
+     * @param account the selected account
+     * @param query   terms, which all have to be contained in the description, "term*" for a prefix
+     * @return matching transactions of the account
+     */
+    @Override
+    public List<Transaction> searchTransactions(String account, String query) {
+        return descriptionIndex.search(account, query);
+    }
+
+    /**
+     * Searches the transactions of all accounts with the inverted description index
+     *
+     * @param query terms, which all have to be contained in the description, "term*" for a prefix
+     * @return matching transactions by account, accounts without matches are left out
+     */
+    @Override
+    public Map<String, List<Transaction>> searchTransactions(String query) {
+        return descriptionIndex.search(query);
+    }
+
+    /**
+     * Looks up the transfers of a counterparty in the counterparty index, in time proportional to the result
+     *
+     * @param counterparty name of the sender or recipient
+     * @return transfers by account, accounts without transfers of the counterparty are left out
+     */
+    @Override
+    public Map<String, List<Transfer>> getTransfersByCounterparty(String counterparty) {
+        return counterpartyIndex.get(counterparty);
+    }
+
+    /**
+     * Executes a query with the access path with the fewest estimated rows, see {@link #explain(TransactionQuery)}
+     *
+     * @param query filters, order and limit of the query
+     * @return the matching transactions
+     */
+    @Override
+    public List<Transaction> query(TransactionQuery query) {
+        return queryExecutor.plan(query).execute();
+    }
+
+    @Override
+    public String explain(TransactionQuery query) {
+        return queryExecutor.plan(query).explain();
+    }
+
+    /**
+     * Reads the materialized rollups of an account in O(months)
+     *
+     * @param account the selected account
+     * @param from    first month of the range
+     * @param to      last month of the range (inclusive)
+     * @return rollups of the months with transactions, in chronological order
+     */
+    @Override
+    public List<MonthlyRollup> getMonthlyRollups(String account, YearMonth from, YearMonth to) {
+        return accountRollups.get(account).range(from, to);
+    }
+
+    /**
+     * Applies the current incoming and outgoing interest of the bank to all payments of all accounts.
+     * The accounts are repriced in parallel with fork-join and the indexes and rollups of changed accounts
+     * are built again, afterwards all changed accounts are written in one batch, see writeAccounts, and
+     * ACCOUNT_REPRICED is published for every changed account.
+     *
+     * @param progress is informed about the number of repriced accounts, may be null
+     * @throws IOException if the changed accounts could not be written
+     */
+    public void repriceTransactions(RepricingProgress progress) throws IOException {
+        List<String> accounts = getAllAccounts();
+        boolean[] changed = new boolean[accounts.size()];
+        RepricingTask task = new RepricingTask(accounts, changed, 0, accounts.size(), progress);
+        ForkJoinPool.commonPool().invoke(task);
+
+        List<String> changedAccounts = new ArrayList<>();
+        for (int i = 0; i < accounts.size(); i++) {
+            if (changed[i]) {
+                changedAccounts.add(accounts.get(i));
+            }
+        }
+        try {
+            writeAccounts(changedAccounts);
+        } finally {
+            // the accounts are repriced in memory, even if they could not be written
+            for (String account : changedAccounts) {
+                publish(BankEvent.Type.ACCOUNT_REPRICED, account, null);
+            }
+        }
+    }
+
+    /**
+     * Fork-join task, which reprices a range of accounts and splits itself until the range is small enough.
+     * The payments are repriced without informing the indexes, every changed index and the rollups of the
+     * account are built once afterwards. The maps of the bank are only read by the tasks.
+     */
+    private class RepricingTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private static final int ACCOUNTS_PER_TASK = 32;
+        private final List<String> accounts;
+        private final boolean[] changed;
+        private final int from, to;
+        private final RepricingProgress progress;
+        private final AtomicInteger repriced;
+        private final int reportEvery;
+
+        RepricingTask(List<String> accounts, boolean[] changed, int from, int to, RepricingProgress progress) {
+            this(accounts, changed, from, to, progress, new AtomicInteger(), Math.max(1, accounts.size() / 100));
+        }
+
+        private RepricingTask(List<String> accounts, boolean[] changed, int from, int to, RepricingProgress progress,
+                              AtomicInteger repriced, int reportEvery) {
+            this.accounts = accounts;
+            this.changed = changed;
+            this.from = from;
+            this.to = to;
+            this.progress = progress;
+            this.repriced = repriced;
+            this.reportEvery = reportEvery;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > ACCOUNTS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RepricingTask(accounts, changed, from, middle, progress, repriced, reportEvery),
+                        new RepricingTask(accounts, changed, middle, to, progress, repriced, reportEvery));
+                return;
+            }
+            int incoming = Money.toBasisPoints(incomingInterest);
+            int outgoing = Money.toBasisPoints(outgoingInterest);
+            for (int i = from; i < to; i++) {
+                String account = accounts.get(i);
+                List<Transaction> transactions = accountsToTransactions.get(account);
+                for (Transaction t : transactions) {
+                    if (t instanceof Payment payment && payment.reprice(incoming, outgoing)) {
+                        changed[i] = true;
+                    }
+                }
+                if (changed[i]) {
+                    FlightEvents.TransactionSort event = new FlightEvents.TransactionSort();
+                    event.begin();
+                    accountIndexes.get(account).reorder(transactions);
+                    if (event.shouldCommit()) {
+                        event.operation = "repriceTransactions";
+                        event.account = account;
+                        event.transactions = transactions.size();
+                        event.commit();
+                    }
+                    dateIndexes.get(account).recalculate();
+                    accountRollups.get(account).rebuild(transactions);
+                }
+
+                int done = repriced.incrementAndGet();
+                if (progress != null && (done % reportEvery == 0 || done == accounts.size())) {
+                    progress.update(done, accounts.size());
+                }
+            }
+        }
+    }
 
     /**
      * This method deserializes and reads all JSON files from the transactions directory and saves in
-     * array list for further usage in the program
+     * array list for further usage in the program. The counterparty index is built in parallel after all
+     * accounts are read.
      *
      * @throws IOException                      if the file did not open, written or read correctly
      * @throws TransactionAlreadyExistException if transaction list has duplicates
@@ -316,25 +736,71 @@ public class PrivateBank implements Bank {
     private void readAccounts() throws IOException, TransactionAlreadyExistException, AccountAlreadyExistsException, AccountDoesNotExistException, TransactionAttributeException {
 
         File directory = new File(directoryName);
-        File[] list = directory.listFiles();
+        File[] list = directory.listFiles((dir, fileName) -> fileName.endsWith(".json"));
+        FlightEvents.BankLoad event = new FlightEvents.BankLoad();
+        event.begin();
+        long start = System.nanoTime();
+        loading = true;
+        try {
+            readAccounts(list);
+        } finally {
+            loading = false;
+        }
+        counterpartyIndex.rebuild(accountsToTransactions);
+        persistenceMetrics.accountsRead(list == null ? 0 : list.length, System.nanoTime() - start);
+        if (event.shouldCommit()) {
+            event.directory = directoryName;
+            event.accounts = accountsToTransactions.size();
+            for (List<Transaction> transactions : accountsToTransactions.values()) {
+                event.transactions += transactions.size();
+            }
+            event.commit();
+        }
+    }
+
+    /**
+     * Lists the names of the accounts stored in a directory one by one without reading their transactions,
+     * e.g. to show them before the bank is loaded
+     *
+     * @param directoryName directory of the JSON files of the accounts (has to end with a separator)
+     * @param consumer      receives the name of every account, while the directory is listed
+     * @throws IOException if the directory could not be listed
+     */
+    public static void listAccounts(String directoryName, Consumer<String> consumer) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(directoryName), "*.json")) {
+            for (Path file : files) {
+                String nameStr = file.getFileName().toString();
+                consumer.accept(nameStr.substring(0, nameStr.length() - 5));
+            }
+        }
+    }
+
+    /**
+     * Reads the given JSON files as accounts
+     */
+    private void readAccounts(File[] list) throws IOException, TransactionAlreadyExistException, AccountAlreadyExistsException, AccountDoesNotExistException, TransactionAttributeException {
         if (list != null) {
             for (File file : list) {
-                Gson gson = new GsonBuilder()
-                        .registerTypeAdapter(Transaction.class, new Serializer()).setPrettyPrinting()
-                        .create();
-
+                FlightEvents.AccountRead event = new FlightEvents.AccountRead();
+                event.begin();
                 Reader reader = Files.newBufferedReader(Paths.get(file.getPath()));
 
-                List<Transaction> transactionsList = gson.fromJson(reader, new TypeToken<List<Transaction>>() {
-                }.getType());
+                List<Transaction> transactionsList = GSON.fromJson(reader, TRANSACTION_LIST);
 
                 String nameStr = file.getName();
                 String accName = nameStr.substring(0, nameStr.length() - 5);
 
                 createAccount(accName, transactionsList);
+                readRollups(accName);
                 //transactionsList.forEach(System.out::println);
 
                 reader.close();
+                if (event.shouldCommit()) {
+                    event.account = accName;
+                    event.bytes = file.length();
+                    event.transactions = transactionsList == null ? 0 : transactionsList.size();
+                    event.commit();
+                }
             }
         }
 
@@ -349,28 +815,140 @@ public class PrivateBank implements Bank {
      */
     private void writeAccount(String account) throws IOException {
         if (accountsToTransactions.containsKey(account)) {
-            String filePath = directoryName + account + ".json";
-            File myObj = new File(filePath);
-            Writer writer = new FileWriter(myObj);
-            List<String> transacList = new ArrayList();
-
-            for (Transaction t : getTransactions(account)) {
-                Gson gson = new GsonBuilder().registerTypeAdapter(t.getClass(), new Serializer())
-                        .setPrettyPrinting().create();
-                transacList.add(gson.toJson(t));
+            writeAccount(account, new File(directoryName + account + ".json"));
+            if (!loading) {
+                writeRollups(account, Paths.get(directoryName + account + ROLLUP_SUFFIX));
             }
+        }
+    }
 
-            writer.write(transacList.toString());
+    /**
+     * Serializes the transactions of an account into the given file and remembers the checksum of the file
+     *
+     * @param account whose transactions are to be serialized
+     * @param myObj   file, which is written
+     * @throws IOException thrown, if there are problems with input or output of the file
+     */
+    private void writeAccount(String account, File myObj) throws IOException {
+        FlightEvents.AccountWrite event = new FlightEvents.AccountWrite();
+        event.begin();
+        long start = System.nanoTime();
+        List<Transaction> transacList = getTransactions(account);
+
+        CRC32 checksum = new CRC32();
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new CheckedOutputStream(Files.newOutputStream(myObj.toPath()), checksum), StandardCharsets.UTF_8))) {
+            writer.write('[');
+            for (int i = 0; i < transacList.size(); i++) {
+                if (i > 0) {
+                    writer.write(", ");
+                }
+                GSON.toJson(transacList.get(i), writer);
+            }
+            writer.write(']');
+        }
+        ledgerChecksums.put(account, checksum.getValue());
 
-            writer.close();
+        long bytes = myObj.length();
+        if (!loading) {
+            // the files rewritten while the bank is read belong to the load, they are no flushed changes
+            persistenceMetrics.accountWritten(bytes, System.nanoTime() - start);
+        }
+        if (event.shouldCommit()) {
+            event.account = account;
+            event.bytes = bytes;
+            event.transactions = transacList.size();
+            event.commit();
+        }
+    }
+
+    /**
+     * Writes several accounts in one batch, e.g. after a bulk change of many accounts. The JSON and rollup
+     * files of all accounts are written to temporary files first, only if all were written, every file is
+     * renamed to its name, atomically if the file system supports it. If a file cannot be written, no file
+     * is replaced. A crash while renaming can still leave some accounts in their old and some in their new
+     * state, but every single file is complete.
+     *
+     * @param accounts whose transactions are to be serialized
+     * @throws IOException thrown, if there are problems with input or output of the file
+     */
+    private void writeAccounts(Collection<String> accounts) throws IOException {
+        List<Path> written = new ArrayList<>();
+        try {
+            for (String account : accounts) {
+                if (accountsToTransactions.containsKey(account)) {
+                    Path json = Paths.get(directoryName + account + ".json" + TEMP_SUFFIX);
+                    written.add(json);
+                    writeAccount(account, json.toFile());
+                    Path rollups = Paths.get(directoryName + account + ROLLUP_SUFFIX + TEMP_SUFFIX);
+                    written.add(rollups);
+                    writeRollups(account, rollups);
+                }
+            }
+            for (Path temp : written) {
+                String fileName = temp.getFileName().toString();
+                Path target = temp.resolveSibling(fileName.substring(0, fileName.length() - TEMP_SUFFIX.length()));
+                try {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        } finally {
+            for (Path temp : written) {
+                Files.deleteIfExists(temp);
+            }
         }
     }
 
     private void deleteJsonFile(String account) {
-        File file = new File("src/main/java/headquarters/bank/transactions/" + account + ".json");
+        File file = new File(directoryName + account + ".json");
         if (file.exists()) {
             file.delete();
         }
+        File rollupFile = new File(directoryName + account + ROLLUP_SUFFIX);
+        if (rollupFile.exists()) {
+            rollupFile.delete();
+        }
+    }
+
+    /**
+     * Writes the monthly rollups of an account next to its JSON file
+     *
+     * @param account whose rollups are to be written
+     * @param file    file, which is written
+     * @throws IOException thrown, if there are problems with input or output of the file
+     */
+    private void writeRollups(String account, Path file) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file)) {
+            accountRollups.get(account).write(writer, ledgerChecksums.get(account));
+        }
+    }
+
+    /**
+     * Reads the monthly rollups of a just read account from their file. If the file is missing or was not
+     * calculated from the JSON file of the account, as the bank has just written it again, the rollups are
+     * calculated and written again.
+     *
+     * @param account whose rollups are to be read
+     * @throws IOException thrown, if the calculated rollups could not be written
+     */
+    private void readRollups(String account) throws IOException {
+        List<Transaction> transactions = accountsToTransactions.get(account);
+        MonthlyRollups rollups = accountRollups.get(account);
+        File file = new File(directoryName + account + ROLLUP_SUFFIX);
+        boolean read = false;
+        if (file.exists()) {
+            try (Reader reader = Files.newBufferedReader(file.toPath())) {
+                read = rollups.read(reader);
+            }
+        }
+        if (!read || !rollups.matches(ledgerChecksums.get(account), transactions.size(),
+                getAccountBalanceCents(account))) {
+            rollups.rebuild(transactions);
+            writeRollups(account, file.toPath());
+        }
+        rollups.listen(transactions);
     }
 
 }
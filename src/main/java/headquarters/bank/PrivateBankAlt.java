@@ -29,6 +29,10 @@ public class PrivateBankAlt implements Bank {
      * represents the map of accounts and list of corresponding transactions of private Bank
      */
     private Map<String, List<Transaction>> accountsToTransactions = new HashMap<>();
+    /**
+     * represents the publisher of the changes to the subscribed listeners
+     */
+    private final BankEventPublisher events;
 
     /**
      * Constructor for the Private bank to initialize an object with parameters
@@ -42,6 +46,7 @@ public class PrivateBankAlt implements Bank {
         this.name = name;
         this.incomingInterest = incomingInterest;
         this.outgoingInterest = outgoingInterest;
+        this.events = new BankEventPublisher(name);
     }
 
     /**
@@ -100,7 +105,10 @@ public class PrivateBankAlt implements Bank {
         if (incomingInterest > 1 || incomingInterest < 0) {
             throw new TransactionAttributeException("Incorrect input of the outgoing interest. Must be between 0 and 1");
         }
-        this.incomingInterest = incomingInterest;
+        if (this.incomingInterest != incomingInterest) {
+            this.incomingInterest = incomingInterest;
+            events.publish(BankEvent.Type.RATES_CHANGED, null, null);
+        }
     }
 
     /**
@@ -122,7 +130,10 @@ public class PrivateBankAlt implements Bank {
         if (outgoingInterest > 1 || outgoingInterest < 0) {
             throw new TransactionAttributeException("Incorrect input of the outgoing interest. Must be between 0 and 1");
         }
-        this.outgoingInterest = outgoingInterest;
+        if (this.outgoingInterest != outgoingInterest) {
+            this.outgoingInterest = outgoingInterest;
+            events.publish(BankEvent.Type.RATES_CHANGED, null, null);
+        }
     }
 
     @Override
@@ -132,6 +143,7 @@ public class PrivateBankAlt implements Bank {
         }
         List<Transaction> transactions = new ArrayList<>();
         accountsToTransactions.put(account, transactions);
+        events.publish(BankEvent.Type.ACCOUNT_CREATED, account, null);
     }
 
     @Override
@@ -160,6 +172,10 @@ public class PrivateBankAlt implements Bank {
             }
         }
         accountsToTransactions.put(account, transactions);
+        events.publish(BankEvent.Type.ACCOUNT_CREATED, account, null);
+        for (Transaction transaction : transactions) {
+            events.publish(BankEvent.Type.TRANSACTION_ADDED, account, transaction);
+        }
     }
 
     @Override
@@ -187,6 +203,7 @@ public class PrivateBankAlt implements Bank {
             ((Payment) transaction).setOutgoingInterest(outgoingInterest);
         }
         accountsToTransactions.get(account).add(transaction);
+        events.publish(BankEvent.Type.TRANSACTION_ADDED, account, transaction);
     }
 
     @Override
@@ -197,7 +214,9 @@ public class PrivateBankAlt implements Bank {
         if (!accountsToTransactions.get(account).contains(transaction)) {
             throw new TransactionDoesNotExistException("Cannot remove transaction. Transaction does not exist in this account");
         }
-        accountsToTransactions.get(account).remove(transaction);
+        List<Transaction> transactions = accountsToTransactions.get(account);
+        Transaction removed = transactions.remove(transactions.indexOf(transaction));
+        events.publish(BankEvent.Type.TRANSACTION_REMOVED, account, removed);
     }
 
     @Override
@@ -212,14 +231,22 @@ public class PrivateBankAlt implements Bank {
 
     @Override
     public double getAccountBalance(String account) {
-        double accountBalance = 0;
+        return Money.toDouble(getAccountBalanceCents(account));
+    }
+
+    @Override
+    public long getAccountBalanceCents(String account) {
+        FlightEvents.AccountScan event = new FlightEvents.AccountScan();
+        event.begin();
+        long accountBalance = 0;
         for (Transaction t : accountsToTransactions.get(account)) {
             if (t instanceof Transfer transfer) {
-                accountBalance += transfer.calculate();
+                accountBalance += transfer.calculateCents();
             } else if (t instanceof Payment payment) {
-                accountBalance += payment.calculate();
+                accountBalance += payment.calculateCents();
             }
         }
+        commitScan(event, "getAccountBalance", account);
         return accountBalance;
     }
 
@@ -231,47 +258,47 @@ public class PrivateBankAlt implements Bank {
     @Override
     public List<Transaction> getTransactionsSorted(String account, boolean asc) {
         if (accountsToTransactions.containsKey(account)) {
-            if (asc) {
-                accountsToTransactions.get(account).sort(PrivateBankAlt.compareTransactionsAsc);
-                return accountsToTransactions.get(account);
+            List<Transaction> transactions = accountsToTransactions.get(account);
+            FlightEvents.TransactionSort event = new FlightEvents.TransactionSort();
+            event.begin();
+            transactions.sort(asc ? PrivateBankAlt.compareTransactionsAsc : PrivateBankAlt.compareTransactionsDesc);
+            if (event.shouldCommit()) {
+                event.operation = "getTransactionsSorted";
+                event.account = account;
+                event.transactions = transactions.size();
+                event.commit();
             }
-            accountsToTransactions.get(account).sort(PrivateBankAlt.compareTransactionsDesc);
-            return accountsToTransactions.get(account);
+            return transactions;
         }
         return null;
     }
 
-    public static Comparator<Transaction> compareTransactionsAsc = (o1, o2) -> {
-        double amount1 = o1.calculate();
-        double amount2 = o2.calculate();
-
-        return (int) (amount1 - amount2);
-    };
-
-    public static Comparator<Transaction> compareTransactionsDesc = (o1, o2) -> {
-        double amount1 = o1.calculate();
-        double amount2 = o2.calculate();
+    public static Comparator<Transaction> compareTransactionsAsc = (o1, o2) ->
+            Long.compare(o1.calculateCents(), o2.calculateCents());
 
-        return (int) (amount2 - amount1);
-    };
+    public static Comparator<Transaction> compareTransactionsDesc = (o1, o2) ->
+            Long.compare(o2.calculateCents(), o1.calculateCents());
 
     @Override
     public List<Transaction> getTransactionsByType(String account, boolean positive) {
         List<Transaction> resultList = new ArrayList<>();
         if (accountsToTransactions.containsKey(account)) {
+            FlightEvents.AccountScan event = new FlightEvents.AccountScan();
+            event.begin();
             if (positive) {
                 for (Transaction t : accountsToTransactions.get(account)) {
-                    if (t.calculate() >= 0) {
+                    if (t.calculateCents() >= 0) {
                         resultList.add(t);
                     }
                 }
-                return resultList;
-            }
-            for (Transaction t : accountsToTransactions.get(account)) {
-                if (t.calculate() < 0) {
-                    resultList.add(t);
+            } else {
+                for (Transaction t : accountsToTransactions.get(account)) {
+                    if (t.calculateCents() < 0) {
+                        resultList.add(t);
+                    }
                 }
             }
+            commitScan(event, "getTransactionsByType", account);
             return resultList;
         }
         return null;
@@ -283,6 +310,41 @@ public class PrivateBankAlt implements Bank {
             throw new AccountDoesNotExistException("Cannot delete an account, which does not exist");
         }
         accountsToTransactions.remove(account);
+        events.publish(BankEvent.Type.ACCOUNT_DELETED, account, null);
+    }
+
+    /**
+     * Subscribes a listener, which receives all changes published afterwards. Creating an account with
+     * transactions publishes ACCOUNT_CREATED followed by one TRANSACTION_ADDED per transaction, deleting an
+     * account only publishes ACCOUNT_DELETED.
+     *
+     * @param listener the new listener
+     */
+    @Override
+    public void subscribe(BankListener listener) {
+        events.subscribe(listener);
+    }
+
+    @Override
+    public void unsubscribe(BankListener listener) {
+        events.unsubscribe(listener);
+    }
+
+    @Override
+    public long getEventSequence() {
+        return events.getSequence();
+    }
+
+    /**
+     * Commits a scan event, if it is enabled and took longer than its threshold
+     */
+    private void commitScan(FlightEvents.AccountScan event, String operation, String account) {
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.account = account;
+            event.transactions = accountsToTransactions.get(account).size();
+            event.commit();
+        }
     }
 
     @Override
@@ -0,0 +1,281 @@
+package headquarters.bank;
+
+import headquarters.bank.TransactionQuery.Filter;
+import headquarters.bank.TransactionQuery.Order;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Executes transaction queries with the indexes of a PrivateBank. For every query the access path with the
+ * fewest estimated rows is chosen: a range of the sorted amount index, a range of the date index, the
+ * counterparty index, the description index or a scan of the accounts. The filter answered by the access path
+ * is pushed down to it, all other filters are checked in one fused pass over the rows of the access path.
+ * The amount and date indexes are read with cursors, so a limited query, which needs no sort, stops reading
+ * them after the last needed row.
+ */
+class QueryExecutor {
+    /**
+     * Access paths of a plan
+     */
+    enum Access {
+        SCAN, AMOUNT_INDEX, DATE_INDEX, COUNTERPARTY_INDEX, DESCRIPTION_INDEX
+    }
+
+    private final Map<String, List<Transaction>> accountsToTransactions;
+    private final Map<String, AccountIndex> accountIndexes;
+    private final Map<String, DateIndex> dateIndexes;
+    private final DescriptionIndex descriptionIndex;
+    private final CounterpartyIndex counterpartyIndex;
+
+    QueryExecutor(Map<String, List<Transaction>> accountsToTransactions, Map<String, AccountIndex> accountIndexes,
+                  Map<String, DateIndex> dateIndexes, DescriptionIndex descriptionIndex,
+                  CounterpartyIndex counterpartyIndex) {
+        this.accountsToTransactions = accountsToTransactions;
+        this.accountIndexes = accountIndexes;
+        this.dateIndexes = dateIndexes;
+        this.descriptionIndex = descriptionIndex;
+        this.counterpartyIndex = counterpartyIndex;
+    }
+
+    /**
+     * Chosen way to execute a query
+     */
+    final class Plan {
+        private final TransactionQuery query;
+        private final List<String> accounts;
+        private final Access access;
+        private final long estimatedRows;
+        private final long totalRows;
+        /**
+         * filters, which are not answered by the access path
+         */
+        private final Set<Filter> residual;
+        /**
+         * true, if the access path returns the rows already in the order of the query
+         */
+        private final boolean ordered;
+
+        private Plan(TransactionQuery query, List<String> accounts, Access access, long estimatedRows,
+                     long totalRows) {
+            this.query = query;
+            this.accounts = accounts;
+            this.access = access;
+            this.estimatedRows = estimatedRows;
+            this.totalRows = totalRows;
+            this.residual = query.filters();
+            switch (access) {
+                case AMOUNT_INDEX -> residual.remove(Filter.AMOUNT);
+                case DATE_INDEX -> residual.remove(Filter.DATE);
+                case COUNTERPARTY_INDEX -> residual.remove(Filter.COUNTERPARTY);
+                case DESCRIPTION_INDEX -> residual.remove(Filter.DESCRIPTION);
+                default -> {
+                }
+            }
+            this.ordered = accounts.size() == 1 && (access == Access.AMOUNT_INDEX && orderedByAmount(query)
+                    || access == Access.DATE_INDEX && orderedByDate(query));
+        }
+
+        Access getAccess() {
+            return access;
+        }
+
+        /**
+         * Executes the plan
+         *
+         * @return the filtered, sorted and limited transactions
+         */
+        List<Transaction> execute() {
+            int limit = query.getLimit();
+            Comparator<Transaction> comparator = ordered ? null : query.comparator();
+            List<Transaction> result = new ArrayList<>();
+            for (Iterator<? extends Transaction> rows : rows()) {
+                while (rows.hasNext()) {
+                    Transaction transaction = rows.next();
+                    if (query.matches(transaction, residual)) {
+                        result.add(transaction);
+                        if (comparator == null && result.size() == limit) {
+                            return result;
+                        }
+                    }
+                }
+            }
+            if (comparator != null) {
+                FlightEvents.TransactionSort event = new FlightEvents.TransactionSort();
+                event.begin();
+                result.sort(comparator);
+                if (event.shouldCommit()) {
+                    event.operation = "query";
+                    event.account = query.getAccount();
+                    event.transactions = result.size();
+                    event.commit();
+                }
+            }
+            return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+        }
+
+        /**
+         * Describes the plan, one step per line
+         *
+         * @return explain output of the plan
+         */
+        String explain() {
+            StringBuilder explain = new StringBuilder();
+            explain.append("Query on ")
+                    .append(query.getAccount() == null ? "all accounts" : "account " + query.getAccount())
+                    .append('\n');
+            explain.append("  access: ").append(describeAccess())
+                    .append(" (estimated ").append(estimatedRows).append(" of ").append(totalRows).append(" rows)\n");
+            explain.append("  filter: ").append(query.describe(residual)).append('\n');
+            if (query.getOrder() != null) {
+                explain.append("  order: ").append(query.getOrder()).append(ordered ? " (from index)" : " (sort)")
+                        .append('\n');
+            }
+            if (query.getLimit() != Integer.MAX_VALUE) {
+                explain.append("  limit: ").append(query.getLimit())
+                        .append(ordered || query.getOrder() == null ? " (stops early)" : "")
+                        .append('\n');
+            }
+            return explain.toString();
+        }
+
+        private String describeAccess() {
+            return switch (access) {
+                case SCAN -> "scan of " + accounts.size() + " account(s)";
+                case AMOUNT_INDEX -> "amount index, " + query.describe(EnumSet.of(Filter.AMOUNT));
+                case DATE_INDEX -> "date index, " + query.describe(EnumSet.of(Filter.DATE));
+                case COUNTERPARTY_INDEX -> "counterparty index, " + query.describe(EnumSet.of(Filter.COUNTERPARTY));
+                case DESCRIPTION_INDEX -> "description index, " + query.describe(EnumSet.of(Filter.DESCRIPTION));
+            };
+        }
+
+        /**
+         * Returns the rows of the access path as one cursor per account, the cursors of the amount and date
+         * indexes read the index only as far as they are advanced
+         */
+        private List<Iterator<? extends Transaction>> rows() {
+            List<Iterator<? extends Transaction>> rows = new ArrayList<>(accounts.size());
+            switch (access) {
+                case SCAN -> {
+                    for (String account : accounts) {
+                        rows.add(accountsToTransactions.get(account).iterator());
+                    }
+                }
+                case AMOUNT_INDEX -> {
+                    boolean asc = query.getOrder() != Order.AMOUNT_DESC;
+                    for (String account : accounts) {
+                        rows.add(accountIndexes.get(account).iterator(query.getMinCents(), query.getMaxCents(), asc));
+                    }
+                }
+                case DATE_INDEX -> {
+                    boolean asc = query.getOrder() != Order.DATE_DESC;
+                    for (String account : accounts) {
+                        rows.add(dateIndexes.get(account).iterator(fromDay(query), toDay(query), asc));
+                    }
+                }
+                case COUNTERPARTY_INDEX -> {
+                    if (query.getAccount() == null) {
+                        for (List<Transfer> transfers : counterpartyIndex.get(query.getCounterparty()).values()) {
+                            rows.add(transfers.iterator());
+                        }
+                    } else {
+                        rows.add(counterpartyIndex.get(query.getCounterparty(), query.getAccount()).iterator());
+                    }
+                }
+                case DESCRIPTION_INDEX -> {
+                    if (query.getAccount() == null) {
+                        for (List<Transaction> transactions : descriptionIndex.search(query.getDescription()).values()) {
+                            rows.add(transactions.iterator());
+                        }
+                    } else {
+                        rows.add(descriptionIndex.search(query.getAccount(), query.getDescription()).iterator());
+                    }
+                }
+            }
+            return rows;
+        }
+    }
+
+    /**
+     * Chooses the access path with the fewest estimated rows. For equal estimates an index is preferred to a
+     * scan and the amount or date index is preferred, if the query is ordered by amount or date. The rows of
+     * the counterparty and description indexes are counted in the queried account only, if there is one.
+     *
+     * @param query query to be planned
+     * @return the chosen plan
+     */
+    Plan plan(TransactionQuery query) {
+        List<String> accounts = new ArrayList<>();
+        if (query.getAccount() == null) {
+            accounts.addAll(accountsToTransactions.keySet());
+        } else if (accountsToTransactions.containsKey(query.getAccount())) {
+            accounts.add(query.getAccount());
+        }
+        long totalRows = 0;
+        for (String account : accounts) {
+            totalRows += accountsToTransactions.get(account).size();
+        }
+
+        Set<Filter> filters = query.filters();
+        Access access = Access.SCAN;
+        long estimatedRows = totalRows;
+        if (filters.contains(Filter.AMOUNT)) {
+            long rows = 0;
+            for (String account : accounts) {
+                rows += accountIndexes.get(account).count(query.getMinCents(), query.getMaxCents());
+            }
+            if (rows < estimatedRows || (rows == estimatedRows && orderedByAmount(query))) {
+                access = Access.AMOUNT_INDEX;
+                estimatedRows = rows;
+            }
+        }
+        if (filters.contains(Filter.DATE)) {
+            long rows = 0;
+            for (String account : accounts) {
+                rows += dateIndexes.get(account).count(fromDay(query), toDay(query));
+            }
+            if (rows < estimatedRows || (rows == estimatedRows && (access == Access.SCAN || orderedByDate(query)))) {
+                access = Access.DATE_INDEX;
+                estimatedRows = rows;
+            }
+        }
+        if (filters.contains(Filter.COUNTERPARTY)) {
+            long rows = query.getAccount() == null ? counterpartyIndex.count(query.getCounterparty())
+                    : counterpartyIndex.count(query.getCounterparty(), query.getAccount());
+            if (rows < estimatedRows || (rows == estimatedRows && access == Access.SCAN)) {
+                access = Access.COUNTERPARTY_INDEX;
+                estimatedRows = rows;
+            }
+        }
+        if (filters.contains(Filter.DESCRIPTION)) {
+            long rows = query.getAccount() == null ? descriptionIndex.count(query.getDescription())
+                    : descriptionIndex.count(query.getAccount(), query.getDescription());
+            if (rows < estimatedRows || (rows == estimatedRows && access == Access.SCAN)) {
+                access = Access.DESCRIPTION_INDEX;
+                estimatedRows = rows;
+            }
+        }
+        return new Plan(query, accounts, access, estimatedRows, totalRows);
+    }
+
+    private static boolean orderedByAmount(TransactionQuery query) {
+        return query.getOrder() == Order.AMOUNT_ASC || query.getOrder() == Order.AMOUNT_DESC;
+    }
+
+    private static boolean orderedByDate(TransactionQuery query) {
+        return query.getOrder() == Order.DATE_ASC || query.getOrder() == Order.DATE_DESC;
+    }
+
+    private static long fromDay(TransactionQuery query) {
+        return query.getFromDate() == null ? Long.MIN_VALUE + 1 : query.getFromDate().toEpochDay();
+    }
+
+    private static long toDay(TransactionQuery query) {
+        return query.getToDate() == null ? Long.MAX_VALUE : query.getToDate().toEpochDay();
+    }
+}
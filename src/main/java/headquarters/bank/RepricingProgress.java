@@ -0,0 +1,15 @@
+package headquarters.bank;
+
+/**
+ * Callback, which reports the progress of repricing all payments of a bank
+ */
+@FunctionalInterface
+public interface RepricingProgress {
+    /**
+     * Is called from the worker threads after every few accounts and once more after the last account
+     *
+     * @param repricedAccounts number of accounts, which are already repriced
+     * @param totalAccounts    number of all accounts of the bank
+     */
+    void update(int repricedAccounts, int totalAccounts);
+}
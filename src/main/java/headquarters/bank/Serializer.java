@@ -6,7 +6,10 @@ import headquarters.bank.exceptions.TransactionAttributeException;
 import java.lang.reflect.Type;
 
 /**
- * Class serves as a custom serializer and deserializer for Transaction classes
+ * Class serves as a custom serializer and deserializer for Transaction classes.
+ * Amounts are written as "amountCents" and interests as "incomingInterestBp" / "outgoingInterestBp".
+ * Files of the old format with "amount" and interests as fractions are still read, and are migrated
+ * to the new format the next time the account is written.
  */
 public class Serializer implements JsonSerializer<Transaction>, JsonDeserializer<Transaction> {
     /**
@@ -31,10 +34,10 @@ public class Serializer implements JsonSerializer<Transaction>, JsonDeserializer
                 try {
                     return new Payment(
                             instanceObject.get("date").getAsString(),
-                            instanceObject.get("amount").getAsDouble(),
+                            readAmount(instanceObject),
                             instanceObject.get("description").getAsString(),
-                            instanceObject.get("incomingInterest").getAsDouble(),
-                            instanceObject.get("outgoingInterest").getAsDouble()
+                            readInterest(instanceObject, "incomingInterest"),
+                            readInterest(instanceObject, "outgoingInterest")
                     );
                 } catch (TransactionAttributeException e) {
                     e.printStackTrace();
@@ -44,7 +47,7 @@ public class Serializer implements JsonSerializer<Transaction>, JsonDeserializer
                 try {
                     return new IncomingTransfer(
                             instanceObject.get("date").getAsString(),
-                            instanceObject.get("amount").getAsDouble(),
+                            readAmount(instanceObject),
                             instanceObject.get("description").getAsString(),
                             instanceObject.get("sender").getAsString(),
                             instanceObject.get("recipient").getAsString()
@@ -57,7 +60,7 @@ public class Serializer implements JsonSerializer<Transaction>, JsonDeserializer
                 try {
                     return new OutgoingTransfer(
                             instanceObject.get("date").getAsString(),
-                            instanceObject.get("amount").getAsDouble(),
+                            readAmount(instanceObject),
                             instanceObject.get("description").getAsString(),
                             instanceObject.get("sender").getAsString(),
                             instanceObject.get("recipient").getAsString()
@@ -89,8 +92,8 @@ public class Serializer implements JsonSerializer<Transaction>, JsonDeserializer
 
         switch (src.getClass().getSimpleName()) {
             case "Payment" -> {
-                instanceValue.addProperty("incomingInterest", ((Payment) src).getIncomingInterest());
-                instanceValue.addProperty("outgoingInterest", ((Payment) src).getOutgoingInterest());
+                instanceValue.addProperty("incomingInterestBp", ((Payment) src).getIncomingInterestBasisPoints());
+                instanceValue.addProperty("outgoingInterestBp", ((Payment) src).getOutgoingInterestBasisPoints());
             }
             case "IncomingTransfer" -> {
                 instanceValue.addProperty("sender", ((IncomingTransfer) src).getSender());
@@ -103,9 +106,36 @@ public class Serializer implements JsonSerializer<Transaction>, JsonDeserializer
         }
 
         instanceValue.addProperty("date", src.getDate());
-        instanceValue.addProperty("amount", src.getAmount());
+        instanceValue.addProperty("amountCents", src.getAmountCents());
         instanceValue.addProperty("description", src.getDescription());
         jObject.add("INSTANCE", instanceValue);
         return jObject;
     }
+
+    /**
+     * Reads the amount of a transaction, either in cents or in the old format as a fraction
+     *
+     * @param instanceObject JSON object of the transaction
+     * @return amount of the transaction
+     */
+    private static double readAmount(JsonObject instanceObject) {
+        if (instanceObject.has("amountCents")) {
+            return Money.toDouble(instanceObject.get("amountCents").getAsLong());
+        }
+        return instanceObject.get("amount").getAsDouble();
+    }
+
+    /**
+     * Reads an interest of a payment, either in basis points or in the old format as a fraction
+     *
+     * @param instanceObject JSON object of the payment
+     * @param name           name of the interest in the old format
+     * @return interest between 0 and 1
+     */
+    private static double readInterest(JsonObject instanceObject, String name) {
+        if (instanceObject.has(name + "Bp")) {
+            return Money.toInterest(instanceObject.get(name + "Bp").getAsInt());
+        }
+        return instanceObject.get(name).getAsDouble();
+    }
 }
@@ -0,0 +1,618 @@
+package headquarters.bank;
+
+import headquarters.bank.exceptions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ShardedBank hash-partitions the accounts across a fixed number of shards. Every shard is a
+ * PrivateBank with its own map of accounts, its own storage directory and exactly one owner thread.
+ * All commands for an account are routed to the owning shard and executed there one after another,
+ * so no locks are needed. Operations over all accounts are scattered to every shard and gathered
+ * afterwards. The shards never share a transaction with the callers: added transactions are copied before
+ * they are passed to the shard and read transactions are copied by the owner thread, because a change of a
+ * transaction corrects the indexes of the account, in which it is stored.
+ */
+public class ShardedBank implements Bank, AutoCloseable {
+    /**
+     * represents the name of the sharded Bank
+     */
+    private final String name;
+    /**
+     * represents the shards, every shard is only touched by its owner thread
+     */
+    private final PrivateBank[] shards;
+    /**
+     * represents the single threaded executors, which own the shards with the same index
+     */
+    private final ExecutorService[] owners;
+    /**
+     * represents the publisher of the changes of all shards, the shards publish into it from their owner
+     * threads, so their changes are numbered for the whole bank, when they happen
+     */
+    private final BankEventPublisher events;
+
+    /**
+     * Constructor for the sharded bank. Shard i stores its accounts in the subdirectory "shard-i" of the
+     * given directory. The shards are loaded in parallel by their owner threads.
+     *
+     * @param name             of the bank
+     * @param incomingInterest of the bank
+     * @param outgoingInterest of the bank
+     * @param shardCount       number of shards, usually the number of available cores
+     * @param directoryName    base directory of the shard directories (has to end with a separator)
+     * @throws TransactionAttributeException is thrown, when incorrect incoming-/outgoing interest
+     */
+    public ShardedBank(String name, double incomingInterest, double outgoingInterest, int shardCount,
+                       String directoryName) throws TransactionAttributeException, IOException,
+            TransactionAlreadyExistException, AccountAlreadyExistsException, AccountDoesNotExistException {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("A sharded bank needs at least one shard");
+        }
+        this.name = name;
+        this.shards = new PrivateBank[shardCount];
+        this.owners = new ExecutorService[shardCount];
+        this.events = new BankEventPublisher(name);
+
+        List<Future<PrivateBank>> loading = new ArrayList<>();
+        for (int i = 0; i < shardCount; i++) {
+            String shardName = name + "-shard-" + i;
+            owners[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, shardName);
+                thread.setDaemon(true);
+                return thread;
+            });
+            String shardDirectory = directoryName + "shard-" + i + File.separator;
+            new File(shardDirectory).mkdirs();
+            BankEventPublisher shardEvents = shardEvents(i == 0);
+            loading.add(owners[i].submit(() -> new PrivateBank(name, incomingInterest, outgoingInterest,
+                    shardDirectory, shardEvents)));
+        }
+        try {
+            for (int i = 0; i < shardCount; i++) {
+                shards[i] = await(loading.get(i));
+            }
+        } catch (TransactionAttributeException | IOException | TransactionAlreadyExistException |
+                 AccountAlreadyExistsException | AccountDoesNotExistException | RuntimeException e) {
+            close();
+            throw e;
+        } catch (Exception e) {
+            close();
+            throw unexpected(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ShardedBank: " +
+                "name=" + name +
+                ", shards=" + shards.length;
+    }
+
+    /**
+     * getter for the name of the Bank
+     *
+     * @return bank name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * getter for the number of shards
+     *
+     * @return number of shards
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Sets the incoming interest on every shard
+     *
+     * @param incomingInterest incoming interest of the bank to be set
+     * @throws TransactionAttributeException is thrown, when the attributes are incorrect
+     */
+    public void setIncomingInterest(double incomingInterest) throws TransactionAttributeException {
+        try {
+            scatter(shard -> {
+                shard.setIncomingInterest(incomingInterest);
+                return null;
+            });
+        } catch (TransactionAttributeException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw unexpected(e);
+        }
+    }
+
+    /**
+     * Sets the outgoing interest on every shard
+     *
+     * @param outgoingInterest outgoing interest of the bank to be set
+     * @throws TransactionAttributeException is thrown, when the attributes are incorrect
+     */
+    public void setOutgoingInterest(double outgoingInterest) throws TransactionAttributeException {
+        try {
+            scatter(shard -> {
+                shard.setOutgoingInterest(outgoingInterest);
+                return null;
+            });
+        } catch (TransactionAttributeException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw unexpected(e);
+        }
+    }
+
+    @Override
+    public void createAccount(String account) throws AccountAlreadyExistsException, IOException {
+        try {
+            call(account, shard -> {
+                shard.createAccount(account);
+                return null;
+            });
+        } catch (AccountAlreadyExistsException | IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw unexpected(e);
+        }
+    }
+
+    @Override
+    public void createAccount(String account, List<Transaction> transactions) throws AccountAlreadyExistsException,
+            TransactionAlreadyExistException, TransactionAttributeException, IOException, AccountDoesNotExistException {
+        List<Transaction> copies = copyOf(transactions);
+        try {
+            call(account, shard -> {
+                shard.createAccount(account, copies);
+                return null;
+            });
+        } catch (AccountAlreadyExistsException | TransactionAlreadyExistException | TransactionAttributeException |
+                 IOException | AccountDoesNotExistException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw unexpected(e);
+        }
+    }
+
+    @Override
+    public void addTransaction(String account, Transaction transaction) throws TransactionAlreadyExistException,
+            AccountDoesNotExistException, TransactionAttributeException, IOException {
+        Transaction copy = Transaction.copyOf(transaction);
+        try {
+            call(account, shard -> {
+                shard.addTransaction(account, copy);
+                return null;
+            });
+        } catch (TransactionAlreadyExistException | AccountDoesNotExistException | TransactionAttributeException |
+                 IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw unexpected(e);
+        }
+    }
+
+    @Override
+    public void removeTransaction(String account, Transaction transaction) throws AccountDoesNotExistException,
+            TransactionDoesNotExistException, IOException {
+        try {
+            call(account, shard -> {
+                shard.removeTransaction(account, transaction);
+                return null;
+            });
+        } catch (AccountDoesNotExistException | TransactionDoesNotExistException | IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw unexpected(e);
+        }
+    }
+
+    @Override
+    public boolean containsTransaction(String account, Transaction transaction) {
+        return query(account, shard -> shard.containsTransaction(account, transaction));
+    }
+
+    @Override
+    public double getAccountBalance(String account) {
+        return Money.toDouble(getAccountBalanceCents(account));
+    }
+
+    @Override
+    public long getAccountBalanceCents(String account) {
+        return query(account, shard -> shard.getAccountBalanceCents(account));
+    }
+
+    @Override
+    public long getAccountBalanceCents(String account, LocalDate asOfDate) {
+        return query(account, shard -> shard.getAccountBalanceCents(account, asOfDate));
+    }
+
+    /**
+     * Returns copies of the transactions, because the transactions are owned by the shard thread
+     *
+     * @param account the selected account
+     * @return copies of all transactions for the specified account
+     */
+    @Override
+    public List<Transaction> getTransactions(String account) {
+        return query(account, shard -> copyOf(shard.getTransactions(account)));
+    }
+
+    @Override
+    public List<Transaction> getTransactionsSorted(String account, boolean asc) {
+        return query(account, shard -> copyOf(shard.getTransactionsSorted(account, asc)));
+    }
+
+    @Override
+    public List<Transaction> getTopTransactions(String account, int k, boolean asc) {
+        return query(account, shard -> copyOf(shard.getTopTransactions(account, k, asc)));
+    }
+
+    @Override
+    public List<Transaction> getTransactionsByType(String account, boolean positive) {
+        return query(account, shard -> copyOf(shard.getTransactionsByType(account, positive)));
+    }
+
+    @Override
+    public void deleteAccount(String account) throws AccountDoesNotExistException, IOException {
+        try {
+            call(account, shard -> {
+                shard.deleteAccount(account);
+                return null;
+            });
+        } catch (AccountDoesNotExistException | IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw unexpected(e);
+        }
+    }
+
+    /**
+     * Gathers the account names of all shards
+     *
+     * @return all account names from the Bank
+     */
+    @Override
+    public List<String> getAllAccounts() {
+        List<String> accounts = new ArrayList<>();
+        for (List<String> shardAccounts : gather(PrivateBank::getAllAccounts)) {
+            accounts.addAll(shardAccounts);
+        }
+        return accounts;
+    }
+
+    /**
+     * Searches the prefix index of every shard and merges the first matching names of all shards
+     *
+     * @param prefix start of the names, the empty prefix matches all accounts
+     * @param limit  maximal number of names
+     * @return the first matching names in {@link AccountNameIndex#ORDER}
+     */
+    @Override
+    public List<String> searchAccounts(String prefix, int limit) {
+        List<String> accounts = new ArrayList<>();
+        for (List<String> shardAccounts : gather(shard -> shard.searchAccounts(prefix, limit))) {
+            accounts.addAll(shardAccounts);
+        }
+        accounts.sort(AccountNameIndex.ORDER);
+        return accounts.size() > limit ? new ArrayList<>(accounts.subList(0, limit)) : accounts;
+    }
+
+    /**
+     * Calculates the sum of all account balances. Every shard sums up its own accounts in parallel.
+     *
+     * @return sum of the balances of all accounts
+     */
+    public double getTotalBalance() {
+        long totalBalance = 0;
+        List<Long> shardBalances = gather(shard -> {
+            long shardBalance = 0;
+            for (String account : shard.getAllAccounts()) {
+                shardBalance += shard.getAccountBalanceCents(account);
+            }
+            return shardBalance;
+        });
+        for (long shardBalance : shardBalances) {
+            totalBalance += shardBalance;
+        }
+        return Money.toDouble(totalBalance);
+    }
+
+    @Override
+    public List<Transaction> searchTransactions(String account, String query) {
+        return query(account, shard -> copyOf(shard.searchTransactions(account, query)));
+    }
+
+    @Override
+    public List<MonthlyRollup> getMonthlyRollups(String account, YearMonth from, YearMonth to) {
+        return query(account, shard -> shard.getMonthlyRollups(account, from, to));
+    }
+
+    /**
+     * Executes a query on the shard of the account, or on all shards in parallel for a query over all accounts.
+     * The results of the shards are merged, sorted and limited again.
+     *
+     * @param query filters, order and limit of the query
+     * @return the matching transactions
+     */
+    @Override
+    public List<Transaction> query(TransactionQuery query) {
+        if (query.getAccount() != null) {
+            return query(query.getAccount(), shard -> copyOf(shard.query(query)));
+        }
+        List<Transaction> result = new ArrayList<>();
+        for (List<Transaction> shardResult : gather(shard -> copyOf(shard.query(query)))) {
+            result.addAll(shardResult);
+        }
+        Comparator<Transaction> comparator = query.comparator();
+        if (comparator != null) {
+            result.sort(comparator);
+        }
+        return result.size() > query.getLimit() ? new ArrayList<>(result.subList(0, query.getLimit())) : result;
+    }
+
+    @Override
+    public String explain(TransactionQuery query) {
+        if (query.getAccount() != null) {
+            return "Shard " + shardOf(query.getAccount()) + ": "
+                    + query(query.getAccount(), shard -> shard.explain(query));
+        }
+        StringBuilder explain = new StringBuilder("Scatter to " + shards.length + " shards, merge");
+        if (query.getOrder() != null) {
+            explain.append(", sort ").append(query.getOrder());
+        }
+        if (query.getLimit() != Integer.MAX_VALUE) {
+            explain.append(", limit ").append(query.getLimit());
+        }
+        explain.append('\n');
+        List<String> shardPlans = gather(shard -> shard.explain(query));
+        for (int i = 0; i < shardPlans.size(); i++) {
+            explain.append("Shard ").append(i).append(": ").append(shardPlans.get(i));
+        }
+        return explain.toString();
+    }
+
+    /**
+     * Searches all shards in parallel and merges their matches
+     *
+     * @param query terms separated by spaces
+     * @return matching transactions by account, accounts without matches are left out
+     */
+    @Override
+    public Map<String, List<Transaction>> searchTransactions(String query) {
+        Map<String, List<Transaction>> result = new TreeMap<>();
+        for (Map<String, List<Transaction>> shardResult : gather(shard -> copyOf(shard.searchTransactions(query)))) {
+            result.putAll(shardResult);
+        }
+        return result;
+    }
+
+    /**
+     * Looks up the transfers of a counterparty in the counterparty indexes of all shards
+     *
+     * @param counterparty name of the sender or recipient
+     * @return transfers by account, accounts without transfers of the counterparty are left out
+     */
+    @Override
+    public Map<String, List<Transfer>> getTransfersByCounterparty(String counterparty) {
+        Map<String, List<Transfer>> result = new TreeMap<>();
+        for (Map<String, List<Transfer>> shardResult : gather(shard -> copyOf(shard.getTransfersByCounterparty(counterparty)))) {
+            result.putAll(shardResult);
+        }
+        return result;
+    }
+
+    /**
+     * Calculates the report over all accounts. Every shard collects its own accounts on its owner thread,
+     * so the shards are not changed meanwhile, and the partial reports are combined afterwards.
+     *
+     * @param topCount number of richest and poorest accounts in the report
+     * @return report over all accounts of the Bank
+     */
+    @Override
+    public BankReport createReport(int topCount) {
+        List<BankReport.Builder> shardReports = gather(shard -> BankReport.collect(shard, shard.getAllAccounts(),
+                topCount));
+        int accounts = 0;
+        for (BankReport.Builder shardReport : shardReports) {
+            accounts += shardReport.getAccountCount();
+        }
+        BankReport.Builder report = new BankReport.Builder(topCount, accounts);
+        for (BankReport.Builder shardReport : shardReports) {
+            report.combine(shardReport);
+        }
+        return report.build();
+    }
+
+    /**
+     * Subscribes a listener, which receives the changes of all shards with sequence numbers of the whole bank.
+     * The events of one account keep their order, RATES_CHANGED is published once and not once per shard.
+     *
+     * @param listener the new listener
+     */
+    @Override
+    public void subscribe(BankListener listener) {
+        events.subscribe(listener);
+    }
+
+    @Override
+    public void unsubscribe(BankListener listener) {
+        events.unsubscribe(listener);
+    }
+
+    @Override
+    public long getEventSequence() {
+        return events.getSequence();
+    }
+
+    /**
+     * Creates the publisher of a shard, which numbers the changes of the shard with the publisher of the whole
+     * bank on the owner thread, so the events carry copies of the transactions taken by the owner thread
+     *
+     * @param first true for the shard, whose RATES_CHANGED is published for the whole bank
+     * @return publisher of the shard
+     */
+    private BankEventPublisher shardEvents(boolean first) {
+        return new BankEventPublisher(name) {
+            @Override
+            long publish(BankEvent.Type type, String account, Transaction transaction, long cents) {
+                if (!first && type == BankEvent.Type.RATES_CHANGED) {
+                    return events.getSequence();
+                }
+                return events.publish(type, account, transaction, cents);
+            }
+
+            @Override
+            long getSequence() {
+                return events.getSequence();
+            }
+        };
+    }
+
+    /**
+     * Stops the owner threads after all submitted commands are executed
+     */
+    @Override
+    public void close() {
+        for (ExecutorService owner : owners) {
+            if (owner != null) {
+                owner.shutdown();
+            }
+        }
+        for (ExecutorService owner : owners) {
+            try {
+                if (owner != null) {
+                    owner.awaitTermination(1, TimeUnit.MINUTES);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the shard owning the account. The index only depends on the name, so the
+     * accounts are found in the same shard directory after a restart with the same number of shards.
+     *
+     * @param account name of the account
+     * @return index of the owning shard
+     */
+    int shardOf(String account) {
+        return Math.floorMod(account.hashCode(), shards.length);
+    }
+
+    /**
+     * Command, which is executed on the owner thread of a shard
+     *
+     * @param <T> type of the result
+     */
+    @FunctionalInterface
+    private interface ShardCommand<T> {
+        T execute(PrivateBank shard) throws Exception;
+    }
+
+    /**
+     * Executes a command on the shard owning the account and waits for its result
+     */
+    private <T> T call(String account, ShardCommand<T> command) throws Exception {
+        int index = shardOf(account);
+        return await(owners[index].submit(() -> command.execute(shards[index])));
+    }
+
+    /**
+     * Executes a command, which cannot throw checked exceptions, on the shard owning the account
+     */
+    private <T> T query(String account, ShardCommand<T> command) {
+        try {
+            return call(account, command);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw unexpected(e);
+        }
+    }
+
+    /**
+     * Executes a command on every shard and returns the results in shard order
+     */
+    private <T> List<T> scatter(ShardCommand<T> command) throws Exception {
+        List<Future<T>> futures = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            PrivateBank shard = shards[i];
+            futures.add(owners[i].submit(() -> command.execute(shard)));
+        }
+        List<T> results = new ArrayList<>(shards.length);
+        for (Future<T> future : futures) {
+            results.add(await(future));
+        }
+        return results;
+    }
+
+    /**
+     * Scatters a command, which cannot throw checked exceptions, to every shard
+     */
+    private <T> List<T> gather(ShardCommand<T> command) {
+        try {
+            return scatter(command);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw unexpected(e);
+        }
+    }
+
+    /**
+     * Waits for the result of a shard command and rethrows the exception of the command itself
+     */
+    private static <T> T await(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception exception) {
+                throw exception;
+            }
+            throw (Error) cause;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a shard", e);
+        }
+    }
+
+    private static IllegalStateException unexpected(Exception e) {
+        return new IllegalStateException("Unexpected exception in shard", e);
+    }
+
+    private static <T extends Transaction> List<T> copyOf(List<T> transactions) {
+        if (transactions == null) {
+            return null;
+        }
+        List<T> copies = new ArrayList<>(transactions.size());
+        for (T transaction : transactions) {
+            copies.add(Transaction.copyOf(transaction));
+        }
+        return copies;
+    }
+
+    private static <T extends Transaction> Map<String, List<T>> copyOf(Map<String, List<T>> transactions) {
+        Map<String, List<T>> copies = new TreeMap<>();
+        transactions.forEach((account, accountTransactions) -> copies.put(account, copyOf(accountTransactions)));
+        return copies;
+    }
+
+}
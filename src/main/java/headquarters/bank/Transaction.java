@@ -2,7 +2,9 @@ package headquarters.bank;
 
 import headquarters.bank.exceptions.TransactionAttributeException;
 
+import java.util.Arrays;
 import java.util.Objects;
+import java.util.function.Consumer;
 
 /**
  * Abstract class, which is used by all transactions
@@ -11,18 +13,31 @@ import java.util.Objects;
  * Date: 19.10.22
  */
 public abstract class Transaction implements CalculateBill {
+    /**
+     * marks, that the calculated amount has to be calculated again
+     */
+    private static final long NOT_CALCULATED = Long.MIN_VALUE;
     /**
      * represents date of the transaction
      */
     protected String date;
     /**
-     * represents amount of the transaction
+     * represents amount of the transaction in cents
      */
-    protected double amount;
+    protected long amountCents;
     /**
      * represents description of the transaction
      */
     protected String description;
+    /**
+     * represents the memoized calculated amount in cents, or NOT_CALCULATED. While there are listeners, it is
+     * always filled, so it is the amount, which the listeners know.
+     */
+    private long calculatedCents = NOT_CALCULATED;
+    /**
+     * represents the listeners of the accounts, in which the transaction is stored, or null
+     */
+    private TransactionListener[] listeners;
 
     /**
      * @param date        represents the date of deposit, withdrawal or any transaction (DD:MM:YYYY)
@@ -34,6 +49,41 @@ public abstract class Transaction implements CalculateBill {
         this.description = description;
     }
 
+    /**
+     * Copies a transaction of one of the types, which the bank can store in its files, e.g. to hand it to
+     * another thread than the one, which owns the transaction. The copy has no listeners.
+     *
+     * @param transaction the copied transaction
+     * @param <T>         type of the transaction
+     * @return new transaction of the same type, which is equal to the copied one
+     * @throws IllegalArgumentException if the transaction has another type
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Transaction> T copyOf(T transaction) {
+        try {
+            if (transaction.getClass() == Payment.class) {
+                return (T) new Payment((Payment) transaction);
+            }
+            if (transaction instanceof Transfer transfer) {
+                if (transfer.getClass() == IncomingTransfer.class) {
+                    return (T) new IncomingTransfer(transfer.getDate(), transfer.getAmount(),
+                            transfer.getDescription(), transfer.getSender(), transfer.getRecipient());
+                }
+                if (transfer.getClass() == OutgoingTransfer.class) {
+                    return (T) new OutgoingTransfer(transfer.getDate(), transfer.getAmount(),
+                            transfer.getDescription(), transfer.getSender(), transfer.getRecipient());
+                }
+                if (transfer.getClass() == Transfer.class) {
+                    return (T) new Transfer(transfer);
+                }
+            }
+        } catch (TransactionAttributeException e) {
+            // the attributes of the copy were already accepted for the original
+            throw new IllegalStateException("Cannot copy " + transaction, e);
+        }
+        throw new IllegalArgumentException("Cannot copy a transaction of type " + transaction.getClass().getName());
+    }
+
     /**
      * Overridden method from Object class
      *
@@ -56,7 +106,7 @@ public abstract class Transaction implements CalculateBill {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Transaction that = (Transaction) o;
-        return Double.compare(that.amount, amount) == 0 && Objects.equals(date, that.date) && Objects.equals(description, that.description);
+        return amountCents == that.amountCents && Objects.equals(date, that.date) && Objects.equals(description, that.description);
     }
 
     /**
@@ -74,7 +124,11 @@ public abstract class Transaction implements CalculateBill {
      * @param date is a new transaction date
      */
     public void setDate(String date) {
+        String oldDate = this.date;
         this.date = date;
+        if (!Objects.equals(oldDate, date)) {
+            informListeners(listener -> listener.dateChanged(this, oldDate));
+        }
     }
 
     /**
@@ -83,16 +137,154 @@ public abstract class Transaction implements CalculateBill {
      * @return amount of transaction
      */
     public double getAmount() {
-        return amount;
+        return Money.toDouble(amountCents);
+    }
+
+    /**
+     * Transaction amount getter in cents
+     *
+     * @return amount of transaction in cents
+     */
+    public long getAmountCents() {
+        return amountCents;
     }
 
     /**
-     * Transaction amount setter
+     * Transaction amount setter, the amount is rounded to whole cents
      *
      * @param amount new amount value
      */
     public void setAmount(double amount) throws TransactionAttributeException {
-        this.amount = amount;
+        setAmountCents(Money.toCents(amount));
+    }
+
+    /**
+     * Transaction amount setter in cents
+     *
+     * @param amountCents new amount value in cents
+     */
+    public void setAmountCents(long amountCents) throws TransactionAttributeException {
+        this.amountCents = amountCents;
+        calculationChanged();
+    }
+
+    /**
+     * Calculates the transaction amount with account of interest tax from the exact amount in cents
+     *
+     * @return transaction amount with account of interest tax
+     */
+    @Override
+    public double calculate() {
+        return Money.toDouble(calculateCents());
+    }
+
+    /**
+     * Returns the calculated amount in cents. It is only calculated again after the amount or an interest
+     * has been changed. Subclasses should override {@link #computeCents()} instead, so the value stays
+     * memoized.
+     *
+     * @return transaction amount with account of interest tax in cents
+     */
+    @Override
+    public long calculateCents() {
+        long cents = calculatedCents;
+        if (cents == NOT_CALCULATED) {
+            cents = computeCents();
+            calculatedCents = cents;
+        }
+        return cents;
+    }
+
+    /**
+     * Calculates the transaction amount with account of interest tax in cents, without the memoized value.
+     * Without interests it is the amount itself.
+     *
+     * @return transaction amount with account of interest tax in cents
+     */
+    protected long computeCents() {
+        return amountCents;
+    }
+
+    /**
+     * Has to be called by every setter, which changes the calculated amount. Drops the memoized value and
+     * informs the listeners, if the calculated amount really changed. The old amount is the memoized one,
+     * which is always filled, while there are listeners.
+     */
+    protected void calculationChanged() {
+        long oldCents = calculatedCents;
+        calculatedCents = NOT_CALCULATED;
+        if (listeners != null) {
+            long newCents = calculateCents();
+            // a subclass, which overrides calculateCents(), does not fill the memo itself
+            calculatedCents = newCents;
+            if (newCents != oldCents) {
+                for (TransactionListener listener : listeners) {
+                    listener.amountChanged(this, oldCents, newCents);
+                }
+            }
+        }
+    }
+
+    /**
+     * Informs all registered listeners about a change of an indexed attribute
+     *
+     * @param event calls the method of the listener, which belongs to the change
+     */
+    void informListeners(Consumer<TransactionListener> event) {
+        if (listeners != null) {
+            for (TransactionListener listener : listeners) {
+                event.accept(listener);
+            }
+        }
+    }
+
+    /**
+     * Calculates the memoized value again without informing the listeners, e.g. because the listeners are
+     * rebuilt anyway. The memo is filled again at once, so the next change informs the listeners with the
+     * amount they know.
+     */
+    void recalculateSilently() {
+        calculatedCents = NOT_CALCULATED;
+        calculatedCents = calculateCents();
+    }
+
+    /**
+     * Registers a listener, the calculated amount is memoized as long as there are listeners
+     *
+     * @param listener to be informed about changes of the calculated amount and the other attributes
+     */
+    void addListener(TransactionListener listener) {
+        calculatedCents = calculateCents();
+        if (listeners == null) {
+            listeners = new TransactionListener[]{listener};
+        } else {
+            listeners = Arrays.copyOf(listeners, listeners.length + 1);
+            listeners[listeners.length - 1] = listener;
+        }
+    }
+
+    /**
+     * Removes a listener, which was registered before
+     *
+     * @param listener to be removed
+     */
+    void removeListener(TransactionListener listener) {
+        if (listeners == null) {
+            return;
+        }
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                if (listeners.length == 1) {
+                    listeners = null;
+                } else {
+                    TransactionListener[] remaining = new TransactionListener[listeners.length - 1];
+                    System.arraycopy(listeners, 0, remaining, 0, i);
+                    System.arraycopy(listeners, i + 1, remaining, i, listeners.length - i - 1);
+                    listeners = remaining;
+                }
+                return;
+            }
+        }
     }
 
     /**
@@ -110,7 +302,11 @@ public abstract class Transaction implements CalculateBill {
      * @param description is a new transaction description
      */
     public void setDescription(String description) {
+        String oldDescription = this.description;
         this.description = description;
+        if (!Objects.equals(oldDescription, description)) {
+            informListeners(listener -> listener.descriptionChanged(this, oldDescription));
+        }
     }
 }
 
@@ -0,0 +1,82 @@
+package headquarters.bank;
+
+import java.util.List;
+
+/**
+ * Columnar copy of the calculated amounts of an account, on which the bulk kernels and the sorting work.
+ * The buffers are reused and only grow, so every thread keeps one instance.
+ */
+class TransactionColumns {
+    private static final ThreadLocal<TransactionColumns> COLUMNS = ThreadLocal.withInitial(TransactionColumns::new);
+
+    long[] calculated = new long[16];
+    int[] selected = new int[16];
+    private int[] scratch = new int[16];
+    int size;
+
+    /**
+     * Returns the columns of the current thread, filled with the calculated amounts of the transactions
+     *
+     * @param transactions transactions of an account
+     * @return columns of the current thread
+     */
+    static TransactionColumns of(List<Transaction> transactions) {
+        TransactionColumns columns = COLUMNS.get();
+        columns.size = transactions.size();
+        columns.ensureCapacity(columns.size);
+        CalculateBill.calculateAll(transactions, columns.calculated);
+        return columns;
+    }
+
+    /**
+     * Writes the indices of all rows, sorted by their calculated amount, to the selected column.
+     * The sort is a stable merge sort on primitives, so equal amounts keep their order.
+     *
+     * @param asc selects if the indices are sorted in ascending or descending order
+     */
+    void sortIndices(boolean asc) {
+        for (int i = 0; i < size; i++) {
+            selected[i] = i;
+        }
+        int[] from = selected;
+        int[] to = scratch;
+        for (int width = 1; width < size; width *= 2) {
+            for (int low = 0; low < size; low += 2 * width) {
+                int middle = Math.min(low + width, size);
+                int high = Math.min(low + 2 * width, size);
+                merge(from, to, low, middle, high, asc);
+            }
+            int[] swap = from;
+            from = to;
+            to = swap;
+        }
+        if (from != selected) {
+            System.arraycopy(from, 0, selected, 0, size);
+        }
+    }
+
+    private void merge(int[] from, int[] to, int low, int middle, int high, boolean asc) {
+        int left = low;
+        int right = middle;
+        for (int i = low; i < high; i++) {
+            if (left < middle && (right >= high || inOrder(from[left], from[right], asc))) {
+                to[i] = from[left++];
+            } else {
+                to[i] = from[right++];
+            }
+        }
+    }
+
+    private boolean inOrder(int first, int second, boolean asc) {
+        return asc ? calculated[first] <= calculated[second] : calculated[first] >= calculated[second];
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (calculated.length < capacity) {
+            int length = Math.max(capacity, calculated.length * 2);
+            calculated = new long[length];
+            selected = new int[length];
+            scratch = new int[length];
+        }
+    }
+}
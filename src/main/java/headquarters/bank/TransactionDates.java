@@ -0,0 +1,85 @@
+package headquarters.bank;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * Utility class, which reads the date strings of the transactions. The ledger contains dates as "DD.MM.YYYY"
+ * and as "YYYY.MM.DD", both are accepted with '.', '-' or '/' as separator.
+ */
+final class TransactionDates {
+    /**
+     * returned for dates, which cannot be read
+     */
+    static final int NO_MONTH = Integer.MIN_VALUE;
+    /**
+     * returned for dates, which cannot be read
+     */
+    static final long NO_DAY = Long.MIN_VALUE;
+
+    private TransactionDates() {
+    }
+
+    /**
+     * Reads a date string
+     *
+     * @param date date of a transaction
+     * @return the date, or null if the date cannot be read
+     */
+    static LocalDate parse(String date) {
+        if (date == null) {
+            return null;
+        }
+        String[] parts = date.trim().split("[./-]");
+        if (parts.length != 3) {
+            return null;
+        }
+        try {
+            if (parts[0].length() == 4) {
+                return LocalDate.of(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+            }
+            return LocalDate.of(Integer.parseInt(parts[2]), Integer.parseInt(parts[1]), Integer.parseInt(parts[0]));
+        } catch (NumberFormatException | DateTimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the day of a date string as a number, which keeps the order of the days
+     *
+     * @param date date of a transaction
+     * @return days since 01.01.1970, or NO_DAY if the date cannot be read
+     */
+    static long dayOf(String date) {
+        LocalDate localDate = parse(date);
+        return localDate == null ? NO_DAY : localDate.toEpochDay();
+    }
+
+    /**
+     * Returns the month of a date string as a number, which keeps the order of the months
+     *
+     * @param date date of a transaction
+     * @return months since year 0, or NO_MONTH if the date cannot be read
+     */
+    static int monthOf(String date) {
+        LocalDate localDate = parse(date);
+        return localDate == null ? NO_MONTH : monthOf(YearMonth.from(localDate));
+    }
+
+    /**
+     * @param month a month
+     * @return months since year 0
+     */
+    static int monthOf(YearMonth month) {
+        return month.getYear() * 12 + month.getMonthValue() - 1;
+    }
+
+    /**
+     * @param month months since year 0
+     * @return the month
+     */
+    static YearMonth toYearMonth(int month) {
+        return YearMonth.of(Math.floorDiv(month, 12), Math.floorMod(month, 12) + 1);
+    }
+}
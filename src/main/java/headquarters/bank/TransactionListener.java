@@ -0,0 +1,45 @@
+package headquarters.bank;
+
+/**
+ * Listener, which is informed by a transaction about changes of its calculated amount and its other indexed
+ * attributes. The bank registers its indexes as listeners to keep them up to date.
+ */
+interface TransactionListener {
+    /**
+     * Is called after the calculated amount of a transaction changed
+     *
+     * @param transaction the changed transaction
+     * @param oldCents    calculated amount before the change in cents
+     * @param newCents    calculated amount after the change in cents
+     */
+    default void amountChanged(Transaction transaction, long oldCents, long newCents) {
+    }
+
+    /**
+     * Is called after the date of a transaction changed
+     *
+     * @param transaction the changed transaction
+     * @param oldDate     date before the change
+     */
+    default void dateChanged(Transaction transaction, String oldDate) {
+    }
+
+    /**
+     * Is called after the description of a transaction changed
+     *
+     * @param transaction    the changed transaction
+     * @param oldDescription description before the change
+     */
+    default void descriptionChanged(Transaction transaction, String oldDescription) {
+    }
+
+    /**
+     * Is called after the sender or the recipient of a transfer changed
+     *
+     * @param transfer     the changed transfer
+     * @param oldSender    sender before the change
+     * @param oldRecipient recipient before the change
+     */
+    default void counterpartiesChanged(Transfer transfer, String oldSender, String oldRecipient) {
+    }
+}
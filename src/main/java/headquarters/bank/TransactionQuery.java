@@ -0,0 +1,364 @@
+package headquarters.bank;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Conjunctive query over the transactions of one account or of all accounts of a bank. All filters, which are
+ * set, have to match. The query is built step by step and executed with {@link Bank#query(TransactionQuery)},
+ * {@link Bank#explain(TransactionQuery)} shows how a bank executes it.
+ *
+ * <pre>
+ * TransactionQuery query = TransactionQuery.onAccount("Eve").positive(false).orderBy(Order.AMOUNT_ASC).limit(20);
+ * </pre>
+ */
+public class TransactionQuery {
+    /**
+     * Order of the results
+     */
+    public enum Order {
+        /**
+         * ascending by calculated amount, the largest debits first
+         */
+        AMOUNT_ASC,
+        /**
+         * descending by calculated amount, the largest credits first
+         */
+        AMOUNT_DESC,
+        /**
+         * ascending by date, transactions with dates, which cannot be read, last
+         */
+        DATE_ASC,
+        /**
+         * descending by date, transactions with dates, which cannot be read, last
+         */
+        DATE_DESC
+    }
+
+    /**
+     * Filters of a query, used by the executors to tell which filters are answered by an index
+     */
+    enum Filter {
+        TYPE, AMOUNT, DATE, COUNTERPARTY, DESCRIPTION
+    }
+
+    private final String account;
+    private Class<? extends Transaction> type;
+    private long minCents = Long.MIN_VALUE;
+    private long maxCents = Long.MAX_VALUE;
+    private LocalDate fromDate;
+    private LocalDate toDate;
+    private String counterparty;
+    private String description;
+    private List<String> descriptionTerms;
+    private Order order;
+    private int limit = Integer.MAX_VALUE;
+
+    private TransactionQuery(String account) {
+        this.account = account;
+    }
+
+    /**
+     * Starts a query over the transactions of one account
+     *
+     * @param account the selected account
+     * @return new query without filters
+     */
+    public static TransactionQuery onAccount(String account) {
+        if (account == null) {
+            throw new IllegalArgumentException("Account must not be null");
+        }
+        return new TransactionQuery(account);
+    }
+
+    /**
+     * Starts a query over the transactions of all accounts
+     *
+     * @return new query without filters
+     */
+    public static TransactionQuery onAllAccounts() {
+        return new TransactionQuery(null);
+    }
+
+    /**
+     * Only transactions of the given class or its subclasses match
+     *
+     * @param type e.g. Payment.class or OutgoingTransfer.class
+     * @return this query
+     */
+    public TransactionQuery type(Class<? extends Transaction> type) {
+        this.type = type;
+        return this;
+    }
+
+    /**
+     * Only transactions with a calculated amount between min and max (inclusive) match
+     *
+     * @param min smallest calculated amount
+     * @param max largest calculated amount
+     * @return this query
+     */
+    public TransactionQuery amountBetween(double min, double max) {
+        return amountBetweenCents(Money.toCents(min), Money.toCents(max));
+    }
+
+    /**
+     * Only transactions with a calculated amount between min and max cents (inclusive) match
+     *
+     * @param min smallest calculated amount in cents
+     * @param max largest calculated amount in cents
+     * @return this query
+     */
+    public TransactionQuery amountBetweenCents(long min, long max) {
+        minCents = Math.max(minCents, min);
+        maxCents = Math.min(maxCents, max);
+        return this;
+    }
+
+    /**
+     * Only positive (including zero) or only negative transactions match, like
+     * {@link Bank#getTransactionsByType(String, boolean)}
+     *
+     * @param positive selects if positive or negative transactions match
+     * @return this query
+     */
+    public TransactionQuery positive(boolean positive) {
+        return positive ? amountBetweenCents(0, Long.MAX_VALUE) : amountBetweenCents(Long.MIN_VALUE, -1);
+    }
+
+    /**
+     * Only transactions between two dates (inclusive) match, transactions with dates, which cannot be read,
+     * never match
+     *
+     * @param from first day, or null for no lower bound
+     * @param to   last day, or null for no upper bound
+     * @return this query
+     */
+    public TransactionQuery dateBetween(LocalDate from, LocalDate to) {
+        this.fromDate = from;
+        this.toDate = to;
+        return this;
+    }
+
+    /**
+     * Only transfers, in which the counterparty is sender or recipient, match
+     *
+     * @param counterparty name of the sender or recipient
+     * @return this query
+     */
+    public TransactionQuery counterparty(String counterparty) {
+        this.counterparty = counterparty;
+        return this;
+    }
+
+    /**
+     * Only transactions, whose description contains all terms, match, see
+     * {@link Bank#searchTransactions(String, String)}
+     *
+     * @param terms terms separated by spaces, "term*" for a prefix
+     * @return this query
+     */
+    public TransactionQuery descriptionContains(String terms) {
+        this.description = terms;
+        this.descriptionTerms = DescriptionIndex.parse(terms);
+        return this;
+    }
+
+    /**
+     * Sorts the results
+     *
+     * @param order order of the results
+     * @return this query
+     */
+    public TransactionQuery orderBy(Order order) {
+        this.order = order;
+        return this;
+    }
+
+    /**
+     * Returns at most the given number of results
+     *
+     * @param limit maximal number of results
+     * @return this query
+     */
+    public TransactionQuery limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must not be negative");
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * @return the selected account, or null for all accounts
+     */
+    public String getAccount() {
+        return account;
+    }
+
+    Class<? extends Transaction> getType() {
+        return type;
+    }
+
+    long getMinCents() {
+        return minCents;
+    }
+
+    long getMaxCents() {
+        return maxCents;
+    }
+
+    LocalDate getFromDate() {
+        return fromDate;
+    }
+
+    LocalDate getToDate() {
+        return toDate;
+    }
+
+    String getCounterparty() {
+        return counterparty;
+    }
+
+    String getDescription() {
+        return description;
+    }
+
+    Order getOrder() {
+        return order;
+    }
+
+    int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return the filters, which are set
+     */
+    Set<Filter> filters() {
+        Set<Filter> filters = EnumSet.noneOf(Filter.class);
+        if (type != null) {
+            filters.add(Filter.TYPE);
+        }
+        if (minCents != Long.MIN_VALUE || maxCents != Long.MAX_VALUE) {
+            filters.add(Filter.AMOUNT);
+        }
+        if (fromDate != null || toDate != null) {
+            filters.add(Filter.DATE);
+        }
+        if (counterparty != null) {
+            filters.add(Filter.COUNTERPARTY);
+        }
+        if (description != null) {
+            filters.add(Filter.DESCRIPTION);
+        }
+        return filters;
+    }
+
+    /**
+     * Checks the given filters in one pass over a transaction, the other filters are skipped
+     *
+     * @param transaction checked transaction
+     * @param filters     filters to be checked
+     * @return true, if all given filters match
+     */
+    boolean matches(Transaction transaction, Set<Filter> filters) {
+        for (Filter filter : filters) {
+            boolean matches = switch (filter) {
+                case TYPE -> type.isInstance(transaction);
+                case AMOUNT -> {
+                    long cents = transaction.calculateCents();
+                    yield cents >= minCents && cents <= maxCents;
+                }
+                case DATE -> {
+                    LocalDate date = TransactionDates.parse(transaction.getDate());
+                    yield date != null && (fromDate == null || !date.isBefore(fromDate))
+                            && (toDate == null || !date.isAfter(toDate));
+                }
+                case COUNTERPARTY -> transaction instanceof Transfer transfer
+                        && (counterparty.equals(transfer.getSender()) || counterparty.equals(transfer.getRecipient()));
+                case DESCRIPTION -> DescriptionIndex.matches(transaction.getDescription(), descriptionTerms);
+            };
+            if (!matches) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return comparator of the order, or null if the results are not sorted
+     */
+    Comparator<Transaction> comparator() {
+        if (order == null) {
+            return null;
+        }
+        return switch (order) {
+            case AMOUNT_ASC -> Comparator.comparingLong(Transaction::calculateCents);
+            case AMOUNT_DESC -> Comparator.comparingLong(Transaction::calculateCents).reversed();
+            case DATE_ASC -> Comparator.comparing((Transaction t) -> TransactionDates.parse(t.getDate()),
+                    Comparator.nullsLast(Comparator.naturalOrder()));
+            case DATE_DESC -> Comparator.comparing((Transaction t) -> TransactionDates.parse(t.getDate()),
+                    Comparator.nullsLast(Comparator.<LocalDate>reverseOrder()));
+        };
+    }
+
+    /**
+     * Executes the query as one fused scan over the given transactions, used by banks without indexes
+     *
+     * @param transactions all transactions, which are candidates
+     * @return the sorted and limited results
+     */
+    List<Transaction> scan(Iterable<Transaction> transactions) {
+        Set<Filter> filters = filters();
+        List<Transaction> result = new ArrayList<>();
+        Comparator<Transaction> comparator = comparator();
+        for (Transaction transaction : transactions) {
+            if (matches(transaction, filters)) {
+                result.add(transaction);
+                if (comparator == null && result.size() == limit) {
+                    return result;
+                }
+            }
+        }
+        if (comparator != null) {
+            result.sort(comparator);
+        }
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    /**
+     * Describes the filters of the query, which are not answered by an index
+     *
+     * @param filters filters to be described
+     * @return e.g. "type = Payment, amount in [0, 100]"
+     */
+    String describe(Set<Filter> filters) {
+        List<String> descriptions = new ArrayList<>();
+        for (Filter filter : filters) {
+            descriptions.add(switch (filter) {
+                case TYPE -> "type = " + type.getSimpleName();
+                case AMOUNT -> "amount in [" + describeCents(minCents) + ", " + describeCents(maxCents) + "]";
+                case DATE -> "date in [" + (fromDate == null ? "-inf" : fromDate) + ", "
+                        + (toDate == null ? "+inf" : toDate) + "]";
+                case COUNTERPARTY -> "counterparty = " + counterparty;
+                case DESCRIPTION -> "description contains \"" + description + "\"";
+            });
+        }
+        return descriptions.isEmpty() ? "none" : String.join(", ", descriptions);
+    }
+
+    private static String describeCents(long cents) {
+        if (cents == Long.MIN_VALUE) {
+            return "-inf";
+        }
+        if (cents == Long.MAX_VALUE) {
+            return "+inf";
+        }
+        return String.valueOf(Money.toDouble(cents));
+    }
+}
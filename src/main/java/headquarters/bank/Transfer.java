@@ -60,15 +60,15 @@ public class Transfer extends Transaction {
     /**
      * Method from the Transaction class in order to accept only positive input
      *
-     * @param amount new amount
+     * @param amountCents new amount in cents
      */
     @Override
-    public void setAmount(double amount) throws TransactionAttributeException {
-        if (amount < 0) {
-            super.setAmount(0);
+    public void setAmountCents(long amountCents) throws TransactionAttributeException {
+        if (amountCents < 0) {
+            super.setAmountCents(0);
             throw new TransactionAttributeException("Negative transfers are illegal.");
         } else {
-            super.setAmount(amount);
+            super.setAmountCents(amountCents);
         }
     }
 
@@ -97,7 +97,11 @@ public class Transfer extends Transaction {
      * @param sender sets the name of the member
      */
     public void setSender(String sender) {
+        String oldSender = this.sender;
         this.sender = sender;
+        if (!Objects.equals(oldSender, sender)) {
+            informListeners(listener -> listener.counterpartiesChanged(this, oldSender, recipient));
+        }
     }
 
     /**
@@ -115,7 +119,11 @@ public class Transfer extends Transaction {
      * @param recipient sets the name of the recipient
      */
     public void setRecipient(String recipient) {
+        String oldRecipient = this.recipient;
         this.recipient = recipient;
+        if (!Objects.equals(oldRecipient, recipient)) {
+            informListeners(listener -> listener.counterpartiesChanged(this, sender, oldRecipient));
+        }
     }
 
 
@@ -125,8 +133,4 @@ public class Transfer extends Transaction {
                 ", sender= " + sender +
                 ", recipient= " + recipient;
     }
-
-    public double calculate() {
-        return getAmount();
-    }
 }
@@ -0,0 +1,104 @@
+package headquarters.bank.kernel;
+
+/**
+ * Bulk kernels over columns of amounts in cents. The columns are primitive arrays, of which only the
+ * first length elements are used, so the buffers can be reused between calls.
+ * <p>
+ * There is a scalar implementation, which is always available, and an implementation based on the
+ * incubating Vector API. The vector kernels are only compiled with the Maven profile "vector" and only
+ * used, if the JVM is started with "--add-modules jdk.incubator.vector". The system property
+ * "ubs.kernels=scalar" forces the scalar kernels.
+ */
+public interface AmountKernels {
+
+    /**
+     * Kernels, which are used by the bank: the vector kernels if available, the scalar kernels otherwise
+     */
+    AmountKernels PREFERRED = select();
+
+    /**
+     * Sums up all values
+     *
+     * @param values column of amounts in cents
+     * @param length number of used elements
+     * @return sum of the values
+     */
+    long sum(long[] values, int length);
+
+    /**
+     * Sums up all positive values
+     *
+     * @param values column of amounts in cents
+     * @param length number of used elements
+     * @return sum of the credits
+     */
+    long sumCredits(long[] values, int length);
+
+    /**
+     * Sums up all negative values
+     *
+     * @param values column of amounts in cents
+     * @param length number of used elements
+     * @return sum of the debits
+     */
+    long sumDebits(long[] values, int length);
+
+    /**
+     * Writes the indices of either the positive (including zero) or the negative values in ascending order
+     *
+     * @param values   column of amounts in cents
+     * @param length   number of used elements
+     * @param positive selects if positive or negative values are selected
+     * @param selected receives the selected indices, has to hold at least length elements
+     * @return number of selected indices
+     */
+    int selectBySign(long[] values, int length, boolean positive, int[] selected);
+
+    /**
+     * Calculates the amounts with account of interest tax. Positive amounts are multiplied with the credit
+     * factor, all other amounts with the debit factor, both given in basis points. Half cents are rounded
+     * away from zero, like Money.multiply does.
+     *
+     * @param amounts       column of amounts in cents
+     * @param creditFactors column of factors for positive amounts in basis points
+     * @param debitFactors  column of factors for negative amounts in basis points
+     * @param calculated    receives the calculated amounts in cents
+     * @param length        number of used elements
+     */
+    void calculate(long[] amounts, long[] creditFactors, long[] debitFactors, long[] calculated, int length);
+
+    /**
+     * Returns the scalar kernels
+     *
+     * @return scalar kernels
+     */
+    static AmountKernels scalar() {
+        return new ScalarAmountKernels();
+    }
+
+    /**
+     * Returns the kernels based on the Vector API
+     *
+     * @return vector kernels
+     * @throws UnsupportedOperationException if the vector kernels are not compiled or the module is missing
+     */
+    static AmountKernels vector() {
+        try {
+            return (AmountKernels) Class.forName("headquarters.bank.kernel.VectorAmountKernels")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new UnsupportedOperationException("Vector kernels are not available", e);
+        }
+    }
+
+    private static AmountKernels select() {
+        if (!"scalar".equals(System.getProperty("ubs.kernels"))) {
+            try {
+                return vector();
+            } catch (UnsupportedOperationException e) {
+                // fall back to the scalar kernels
+            }
+        }
+        return scalar();
+    }
+}
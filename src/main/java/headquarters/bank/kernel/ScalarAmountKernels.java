@@ -0,0 +1,59 @@
+package headquarters.bank.kernel;
+
+import headquarters.bank.Money;
+
+/**
+ * Scalar implementation of the amount kernels, which works on every JVM
+ */
+class ScalarAmountKernels implements AmountKernels {
+
+    @Override
+    public long sum(long[] values, int length) {
+        long sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public long sumCredits(long[] values, int length) {
+        long sum = 0;
+        for (int i = 0; i < length; i++) {
+            if (values[i] > 0) {
+                sum += values[i];
+            }
+        }
+        return sum;
+    }
+
+    @Override
+    public long sumDebits(long[] values, int length) {
+        long sum = 0;
+        for (int i = 0; i < length; i++) {
+            if (values[i] < 0) {
+                sum += values[i];
+            }
+        }
+        return sum;
+    }
+
+    @Override
+    public int selectBySign(long[] values, int length, boolean positive, int[] selected) {
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            if ((values[i] >= 0) == positive) {
+                selected[count++] = i;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void calculate(long[] amounts, long[] creditFactors, long[] debitFactors, long[] calculated, int length) {
+        for (int i = 0; i < length; i++) {
+            long factor = amounts[i] > 0 ? creditFactors[i] : debitFactors[i];
+            calculated[i] = Money.multiply(amounts[i], (int) factor);
+        }
+    }
+}
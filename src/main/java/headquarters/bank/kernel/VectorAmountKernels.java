@@ -0,0 +1,111 @@
+package headquarters.bank.kernel;
+
+import headquarters.bank.Money;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Implementation of the amount kernels with the incubating Vector API. Every loop processes as many
+ * lanes as the preferred species of the CPU holds and finishes the tail with scalar code.
+ * Only compiled with the Maven profile "vector".
+ */
+class VectorAmountKernels implements AmountKernels {
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    @Override
+    public long sum(long[] values, int length) {
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        LongVector sum = LongVector.zero(SPECIES);
+        for (; i < bound; i += SPECIES.length()) {
+            sum = sum.add(LongVector.fromArray(SPECIES, values, i));
+        }
+        long result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            result += values[i];
+        }
+        return result;
+    }
+
+    @Override
+    public long sumCredits(long[] values, int length) {
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        LongVector sum = LongVector.zero(SPECIES);
+        for (; i < bound; i += SPECIES.length()) {
+            LongVector v = LongVector.fromArray(SPECIES, values, i);
+            sum = sum.add(v, v.compare(VectorOperators.GT, 0));
+        }
+        long result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            if (values[i] > 0) {
+                result += values[i];
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public long sumDebits(long[] values, int length) {
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        LongVector sum = LongVector.zero(SPECIES);
+        for (; i < bound; i += SPECIES.length()) {
+            LongVector v = LongVector.fromArray(SPECIES, values, i);
+            sum = sum.add(v, v.compare(VectorOperators.LT, 0));
+        }
+        long result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            if (values[i] < 0) {
+                result += values[i];
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int selectBySign(long[] values, int length, boolean positive, int[] selected) {
+        int count = 0;
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        VectorOperators.Comparison sign = positive ? VectorOperators.GE : VectorOperators.LT;
+        for (; i < bound; i += SPECIES.length()) {
+            VectorMask<Long> mask = LongVector.fromArray(SPECIES, values, i).compare(sign, 0);
+            long lanes = mask.toLong();
+            while (lanes != 0) {
+                selected[count++] = i + Long.numberOfTrailingZeros(lanes);
+                lanes &= lanes - 1;
+            }
+        }
+        for (; i < length; i++) {
+            if ((values[i] >= 0) == positive) {
+                selected[count++] = i;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void calculate(long[] amounts, long[] creditFactors, long[] debitFactors, long[] calculated, int length) {
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        long half = Money.BASIS_POINTS_PER_UNIT / 2;
+        LongVector roundUp = LongVector.broadcast(SPECIES, half);
+        LongVector roundDown = LongVector.broadcast(SPECIES, -half);
+        for (; i < bound; i += SPECIES.length()) {
+            LongVector amount = LongVector.fromArray(SPECIES, amounts, i);
+            LongVector factor = LongVector.fromArray(SPECIES, debitFactors, i)
+                    .blend(LongVector.fromArray(SPECIES, creditFactors, i), amount.compare(VectorOperators.GT, 0));
+            LongVector product = amount.mul(factor);
+            product.add(roundUp.blend(roundDown, product.compare(VectorOperators.LT, 0)))
+                    .lanewise(VectorOperators.DIV, Money.BASIS_POINTS_PER_UNIT)
+                    .intoArray(calculated, i);
+        }
+        for (; i < length; i++) {
+            long factor = amounts[i] > 0 ? creditFactors[i] : debitFactors[i];
+            calculated[i] = Money.multiply(amounts[i], (int) factor);
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package headquarters.load;
+
+import headquarters.bank.Bank;
+import headquarters.bank.LatencyHistogram;
+import headquarters.bank.Transaction;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Replays a mixed read/write workload against a bank, which was populated by a {@link SyntheticBank}. Every
+ * thread picks accounts uniformly and runs reads or, with the configured share, writes until the duration is
+ * over. A write adds a new transaction generated by the SyntheticBank or removes one, which the same thread
+ * added before, so the accounts keep about their size. The latency of every call is recorded per operation.
+ * <p>
+ * The operations of a thread only depend on the seed of the SyntheticBank and the number of the thread, the
+ * number of operations depends on the speed of the bank.
+ */
+public class LoadDriver {
+    /**
+     * Operations of the workload
+     */
+    public enum Operation {
+        BALANCE, SORTED, BY_TYPE, CONTAINS, ADD, REMOVE
+    }
+
+    private static final Operation[] READS = {Operation.BALANCE, Operation.SORTED, Operation.BY_TYPE,
+            Operation.CONTAINS};
+
+    private final Bank bank;
+    private final SyntheticBank synthetic;
+    private int threads = 1;
+    private Duration duration = Duration.ofSeconds(10);
+    private double writeShare = 0.1;
+    /**
+     * is not null, if the calls of all threads have to be serialized, because the bank is not thread-safe
+     */
+    private Object lock;
+
+    /**
+     * Constructor for a driver with one thread, which runs for 10 seconds with 10 % writes
+     *
+     * @param bank      bank, which already contains the accounts of the SyntheticBank
+     * @param synthetic generator of the accounts and of the written transactions
+     */
+    public LoadDriver(Bank bank, SyntheticBank synthetic) {
+        this.bank = bank;
+        this.synthetic = synthetic;
+    }
+
+    /**
+     * @param threads number of threads calling the bank at the same time
+     * @return this driver
+     */
+    public LoadDriver threads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed");
+        }
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * @param duration time, after which the threads stop
+     * @return this driver
+     */
+    public LoadDriver duration(Duration duration) {
+        if (duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("Duration must be positive");
+        }
+        this.duration = duration;
+        return this;
+    }
+
+    /**
+     * @param writeShare share of the writes between 0 and 1, the rest are reads
+     * @return this driver
+     */
+    public LoadDriver writeShare(double writeShare) {
+        if (writeShare < 0 || writeShare > 1) {
+            throw new IllegalArgumentException("Write share must be between 0 and 1");
+        }
+        this.writeShare = writeShare;
+        return this;
+    }
+
+    /**
+     * Serializes the calls of all threads, e.g. for PrivateBank, which is not thread-safe. The time a call
+     * waits for the other threads is part of its latency.
+     *
+     * @param serialized true, if only one thread may call the bank at a time
+     * @return this driver
+     */
+    public LoadDriver serialized(boolean serialized) {
+        this.lock = serialized ? new Object() : null;
+        return this;
+    }
+
+    /**
+     * Runs the workload and waits until all threads are finished
+     *
+     * @return throughput and latencies of the run
+     * @throws Exception the first exception thrown by the bank, after all threads are finished
+     */
+    public Report run() throws Exception {
+        List<Map<Operation, LatencyHistogram>> histograms = new ArrayList<>();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Map<Operation, LatencyHistogram> threadHistograms = new EnumMap<>(Operation.class);
+            for (Operation operation : Operation.values()) {
+                threadHistograms.put(operation, new LatencyHistogram());
+            }
+            histograms.add(threadHistograms);
+            int number = i;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    work(number, threadHistograms);
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                }
+            }, "load-" + i);
+            workers.add(worker);
+            worker.start();
+        }
+        long started = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - started;
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+
+        Map<Operation, LatencyHistogram> combined = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            for (Map<Operation, LatencyHistogram> threadHistograms : histograms) {
+                histogram.add(threadHistograms.get(operation));
+            }
+            combined.put(operation, histogram);
+        }
+        return new Report(threads, elapsed, combined);
+    }
+
+    /**
+     * Runs the operations of one thread until the duration is over
+     */
+    private void work(int number, Map<Operation, LatencyHistogram> histograms) throws Exception {
+        SplittableRandom random = new SplittableRandom(synthetic.getSeed() * 31 + number);
+        List<String> added = new ArrayList<>();
+        List<Transaction> addedTransactions = new ArrayList<>();
+        long written = 0;
+        long deadline = System.nanoTime() + duration.toNanos();
+        while (System.nanoTime() < deadline) {
+            String account = synthetic.accountName(random.nextInt(synthetic.getAccountCount()));
+            Operation operation;
+            if (random.nextDouble() < writeShare) {
+                operation = !added.isEmpty() && random.nextBoolean() ? Operation.REMOVE : Operation.ADD;
+            } else {
+                operation = READS[random.nextInt(READS.length)];
+            }
+            Transaction transaction = null;
+            switch (operation) {
+                case ADD -> transaction = synthetic.transaction(random, account,
+                        "load " + number + " #" + written++);
+                case REMOVE -> {
+                    int index = random.nextInt(added.size());
+                    account = added.get(index);
+                    transaction = addedTransactions.get(index);
+                    int last = added.size() - 1;
+                    added.set(index, added.get(last));
+                    addedTransactions.set(index, addedTransactions.get(last));
+                    added.remove(last);
+                    addedTransactions.remove(last);
+                }
+                case CONTAINS -> transaction = synthetic.transaction(random, account, "probe");
+                default -> {
+                }
+            }
+
+            long begin = System.nanoTime();
+            if (lock == null) {
+                call(operation, account, transaction);
+            } else {
+                synchronized (lock) {
+                    call(operation, account, transaction);
+                }
+            }
+            histograms.get(operation).record(System.nanoTime() - begin);
+
+            if (operation == Operation.ADD) {
+                added.add(account);
+                addedTransactions.add(transaction);
+            }
+        }
+    }
+
+    private void call(Operation operation, String account, Transaction transaction) throws Exception {
+        switch (operation) {
+            case BALANCE -> bank.getAccountBalance(account);
+            case SORTED -> bank.getTransactionsSorted(account, ascending(account));
+            case BY_TYPE -> bank.getTransactionsByType(account, ascending(account));
+            case CONTAINS -> bank.containsTransaction(account, transaction);
+            case ADD -> bank.addTransaction(account, transaction);
+            case REMOVE -> bank.removeTransaction(account, transaction);
+        }
+    }
+
+    /**
+     * Chooses the direction of a read without another random number, so it is the same in every run
+     */
+    private static boolean ascending(String account) {
+        return (account.hashCode() & 1) == 0;
+    }
+
+    /**
+     * Throughput and latencies of a run
+     */
+    public static final class Report {
+        private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+        private final int threads;
+        private final long elapsedNanos;
+        private final Map<Operation, LatencyHistogram> latencies;
+
+        private Report(int threads, long elapsedNanos, Map<Operation, LatencyHistogram> latencies) {
+            this.threads = threads;
+            this.elapsedNanos = elapsedNanos;
+            this.latencies = latencies;
+        }
+
+        /**
+         * @return number of calls of all operations
+         */
+        public long getOperations() {
+            long operations = 0;
+            for (LatencyHistogram histogram : latencies.values()) {
+                operations += histogram.getCount();
+            }
+            return operations;
+        }
+
+        /**
+         * @return calls of all operations per second
+         */
+        public double getThroughput() {
+            return getOperations() * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * @param operation one operation of the workload
+         * @return latencies of the operation in nanoseconds
+         */
+        public LatencyHistogram getLatencies(Operation operation) {
+            return latencies.get(operation);
+        }
+
+        /**
+         * @return table of the throughput and the latency percentiles in microseconds per operation
+         */
+        @Override
+        public String toString() {
+            StringBuilder report = new StringBuilder();
+            report.append(String.format("%d thread(s), %.1f s, %d operations, %.0f operations/s%n", threads,
+                    elapsedNanos / 1e9, getOperations(), getThroughput()));
+            report.append(String.format("%-10s %10s %12s %10s %10s %10s %10s %10s%n", "operation", "count",
+                    "ops/s", "p50 us", "p90 us", "p99 us", "p99.9 us", "max us"));
+            for (Map.Entry<Operation, LatencyHistogram> entry : latencies.entrySet()) {
+                LatencyHistogram histogram = entry.getValue();
+                if (histogram.getCount() == 0) {
+                    continue;
+                }
+                report.append(String.format("%-10s %10d %12.0f", entry.getKey(), histogram.getCount(),
+                        histogram.getCount() * 1e9 / elapsedNanos));
+                for (double percentile : PERCENTILES) {
+                    report.append(String.format(" %10.1f", histogram.getPercentile(percentile) / 1e3));
+                }
+                report.append(String.format(" %10.1f%n", histogram.getMax() / 1e3));
+            }
+            return report.toString();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package headquarters.load;
+
+import headquarters.bank.Bank;
+import headquarters.bank.InstrumentedBank;
+import headquarters.bank.PrivateBank;
+import headquarters.bank.PrivateBankAlt;
+import headquarters.bank.ShardedBank;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Command line load test: generates a synthetic bank, replays a mixed workload against it and prints the
+ * throughput and the latency percentiles. All options have the form --name=value:
+ *
+ * <pre>
+ * --bank=alt|private|sharded   implementation of the bank (alt)
+ * --shards=n                   shards of the sharded bank (number of cores)
+ * --accounts=n                 generated accounts (100)
+ * --transactions=n             transactions per account (50)
+ * --payments=share             share of the payments, the rest are transfers (0.5)
+ * --median=amount              median of the log-normal amounts (50)
+ * --spread=sigma               spread of the logarithm of the amounts (1)
+ * --from=yyyy-mm-dd            first day of the dates (2015-01-01)
+ * --to=yyyy-mm-dd              last day of the dates (2022-12-31)
+ * --counterparties=n           distinct counterparties of the transfers (100)
+ * --skew=s                     Zipf exponent of the counterparties (1)
+ * --threads=n                  threads calling the bank (1)
+ * --duration=seconds           duration of the run (10)
+ * --writes=share               share of the writes (0.1)
+ * --seed=n                     seed of the generated bank and workload (42)
+ * --metrics=true|false         wraps the bank in an InstrumentedBank, whose metrics are shown by JMX (true)
+ * </pre>
+ * <p>
+ * PrivateBank and the shards of the ShardedBank write into a temporary directory, which is deleted at the
+ * end. The calls to PrivateBank and PrivateBankAlt are serialized, because they are not thread-safe.
+ */
+public class LoadTest {
+    private static final Set<String> OPTIONS = Set.of("bank", "shards", "accounts", "transactions", "payments",
+            "median", "spread", "from", "to", "counterparties", "skew", "threads", "duration", "writes", "seed",
+            "metrics");
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        SyntheticBank synthetic = SyntheticBank.withSeed(Long.parseLong(options.getOrDefault("seed", "42")))
+                .accounts(Integer.parseInt(options.getOrDefault("accounts", "100")))
+                .transactionsPerAccount(Integer.parseInt(options.getOrDefault("transactions", "50")))
+                .paymentShare(Double.parseDouble(options.getOrDefault("payments", "0.5")))
+                .amounts(Double.parseDouble(options.getOrDefault("median", "50")),
+                        Double.parseDouble(options.getOrDefault("spread", "1")))
+                .dates(LocalDate.parse(options.getOrDefault("from", "2015-01-01")),
+                        LocalDate.parse(options.getOrDefault("to", "2022-12-31")))
+                .counterparties(Integer.parseInt(options.getOrDefault("counterparties", "100")),
+                        Double.parseDouble(options.getOrDefault("skew", "1")));
+        String implementation = options.getOrDefault("bank", "alt");
+
+        Path directory = Files.createTempDirectory("load-test");
+        String directoryName = directory + File.separator;
+        Bank bank = switch (implementation) {
+            case "alt" -> new PrivateBankAlt("Load", 0.05, 0.1);
+            case "private" -> new PrivateBank("Load", 0.05, 0.1, directoryName);
+            case "sharded" -> new ShardedBank("Load", 0.05, 0.1, Integer.parseInt(options.getOrDefault("shards",
+                    String.valueOf(Runtime.getRuntime().availableProcessors()))), directoryName);
+            default -> throw new IllegalArgumentException("Unknown bank " + implementation);
+        };
+        InstrumentedBank instrumented = null;
+        if (Boolean.parseBoolean(options.getOrDefault("metrics", "true"))) {
+            instrumented = new InstrumentedBank("Load", bank);
+        }
+        Bank tested = instrumented == null ? bank : instrumented;
+        try {
+            System.out.printf("Populating %s with %d accounts of %d transactions (seed %d)%n", implementation,
+                    synthetic.getAccountCount(), synthetic.getTransactionsPerAccount(), synthetic.getSeed());
+            long started = System.nanoTime();
+            synthetic.populate(tested);
+            System.out.printf("Populated in %.1f s%n", (System.nanoTime() - started) / 1e9);
+
+            LoadDriver.Report report = new LoadDriver(tested, synthetic)
+                    .threads(Integer.parseInt(options.getOrDefault("threads", "1")))
+                    .duration(Duration.ofMillis((long) (Double.parseDouble(options.getOrDefault("duration", "10"))
+                            * 1000)))
+                    .writeShare(Double.parseDouble(options.getOrDefault("writes", "0.1")))
+                    .serialized(!(bank instanceof ShardedBank))
+                    .run();
+            System.out.print(report);
+            if (instrumented != null && !instrumented.getErrorsByType().isEmpty()) {
+                System.out.println("Errors: " + instrumented.getErrorsByType());
+            }
+        } finally {
+            if (instrumented != null) {
+                instrumented.close();
+            }
+            if (bank instanceof ShardedBank shardedBank) {
+                shardedBank.close();
+            }
+            delete(directory);
+        }
+    }
+
+    /**
+     * Reads the options of the form --name=value
+     */
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0 || !OPTIONS.contains(arg.substring(2, separator))) {
+                throw new IllegalArgumentException("Unknown option " + arg + ", expected --name=value with a name of "
+                        + OPTIONS);
+            }
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package headquarters.load;
+
+import headquarters.bank.Bank;
+import headquarters.bank.IncomingTransfer;
+import headquarters.bank.OutgoingTransfer;
+import headquarters.bank.Payment;
+import headquarters.bank.Transaction;
+import headquarters.bank.exceptions.*;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Generator of synthetic banks for load tests. The accounts, their transactions and the transactions written
+ * during a load test only depend on the seed, so every run can be repeated. The generator is configured step
+ * by step:
+ *
+ * <pre>
+ * SyntheticBank synthetic = SyntheticBank.withSeed(42).accounts(1000).transactionsPerAccount(200)
+ *         .paymentShare(0.3).counterparties(500, 1.1);
+ * synthetic.populate(bank);
+ * </pre>
+ * <p>
+ * Amounts are log-normally distributed around a median, dates are uniform in a range of days and the
+ * counterparties of the transfers follow a Zipf distribution, so a few counterparties get most transfers.
+ */
+public class SyntheticBank {
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+
+    private final long seed;
+    private int accounts = 100;
+    private int transactionsPerAccount = 50;
+    private double paymentShare = 0.5;
+    private double medianAmount = 50;
+    private double amountSpread = 1;
+    private LocalDate firstDay = LocalDate.of(2015, 1, 1);
+    private LocalDate lastDay = LocalDate.of(2022, 12, 31);
+    /**
+     * represents the cumulative probabilities of the counterparties by rank
+     */
+    private double[] counterpartyWeights = zipf(100, 1);
+
+    private SyntheticBank(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Starts a generator with the default configuration: 100 accounts with 50 transactions each, as many
+     * payments as transfers, a median amount of 50 and 100 counterparties with a Zipf skew of 1
+     *
+     * @param seed seed of all random numbers
+     * @return new generator
+     */
+    public static SyntheticBank withSeed(long seed) {
+        return new SyntheticBank(seed);
+    }
+
+    /**
+     * @param accounts number of generated accounts
+     * @return this generator
+     */
+    public SyntheticBank accounts(int accounts) {
+        if (accounts < 1) {
+            throw new IllegalArgumentException("At least one account has to be generated");
+        }
+        this.accounts = accounts;
+        return this;
+    }
+
+    /**
+     * @param transactionsPerAccount number of transactions of every generated account
+     * @return this generator
+     */
+    public SyntheticBank transactionsPerAccount(int transactionsPerAccount) {
+        if (transactionsPerAccount < 0) {
+            throw new IllegalArgumentException("Number of transactions must not be negative");
+        }
+        this.transactionsPerAccount = transactionsPerAccount;
+        return this;
+    }
+
+    /**
+     * Sets the mix of payments and transfers
+     *
+     * @param paymentShare share of the payments between 0 and 1, the rest are transfers
+     * @return this generator
+     */
+    public SyntheticBank paymentShare(double paymentShare) {
+        if (paymentShare < 0 || paymentShare > 1) {
+            throw new IllegalArgumentException("Payment share must be between 0 and 1");
+        }
+        this.paymentShare = paymentShare;
+        return this;
+    }
+
+    /**
+     * Sets the log-normal distribution of the amounts
+     *
+     * @param median median of the amounts
+     * @param spread standard deviation of the logarithm of the amounts, 0 for equal amounts
+     * @return this generator
+     */
+    public SyntheticBank amounts(double median, double spread) {
+        if (median <= 0 || spread < 0) {
+            throw new IllegalArgumentException("Median must be positive and spread must not be negative");
+        }
+        this.medianAmount = median;
+        this.amountSpread = spread;
+        return this;
+    }
+
+    /**
+     * Sets the range of the uniformly distributed dates
+     *
+     * @param first first day
+     * @param last  last day (inclusive)
+     * @return this generator
+     */
+    public SyntheticBank dates(LocalDate first, LocalDate last) {
+        if (last.isBefore(first)) {
+            throw new IllegalArgumentException("Last day must not be before the first day");
+        }
+        this.firstDay = first;
+        this.lastDay = last;
+        return this;
+    }
+
+    /**
+     * Sets the counterparties of the transfers. The counterparty of rank k is chosen with a probability
+     * proportional to 1 / k^skew.
+     *
+     * @param count number of distinct counterparties
+     * @param skew  exponent of the Zipf distribution, 0 for uniformly chosen counterparties
+     * @return this generator
+     */
+    public SyntheticBank counterparties(int count, double skew) {
+        if (count < 1 || skew < 0) {
+            throw new IllegalArgumentException("At least one counterparty and a skew of at least 0 are needed");
+        }
+        this.counterpartyWeights = zipf(count, skew);
+        return this;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getAccountCount() {
+        return accounts;
+    }
+
+    public int getTransactionsPerAccount() {
+        return transactionsPerAccount;
+    }
+
+    /**
+     * @param index index of the account between 0 and the number of accounts
+     * @return name of the account
+     */
+    public String accountName(int index) {
+        return "Account" + index;
+    }
+
+    /**
+     * @return names of all generated accounts
+     */
+    public List<String> accountNames() {
+        List<String> names = new ArrayList<>(accounts);
+        for (int i = 0; i < accounts; i++) {
+            names.add(accountName(i));
+        }
+        return names;
+    }
+
+    /**
+     * Generates the transactions of an account, the same account always gets equal transactions
+     *
+     * @param index index of the account
+     * @return new transactions of the account, all distinct
+     */
+    public List<Transaction> transactions(int index) {
+        SplittableRandom random = new SplittableRandom(seed ^ (0x9E3779B97F4A7C15L * (index + 1)));
+        String account = accountName(index);
+        List<Transaction> transactions = new ArrayList<>(transactionsPerAccount);
+        for (int i = 0; i < transactionsPerAccount; i++) {
+            transactions.add(transaction(random, account, account + " #" + i));
+        }
+        return transactions;
+    }
+
+    /**
+     * Creates all accounts with their transactions in a bank
+     *
+     * @param bank bank, which has none of the generated accounts yet
+     * @throws AccountAlreadyExistsException    if a generated account already exists
+     * @throws TransactionAlreadyExistException never, the generated transactions are distinct
+     * @throws TransactionAttributeException    if the bank does not accept the generated attributes
+     * @throws AccountDoesNotExistException     never, the accounts are created first
+     * @throws IOException                      if the bank could not write an account
+     */
+    public void populate(Bank bank) throws AccountAlreadyExistsException, TransactionAlreadyExistException,
+            TransactionAttributeException, AccountDoesNotExistException, IOException {
+        for (int i = 0; i < accounts; i++) {
+            bank.createAccount(accountName(i), transactions(i));
+        }
+    }
+
+    /**
+     * Generates one transaction of an account with the configured distributions
+     *
+     * @param random      source of the random numbers, e.g. one per thread of a load test
+     * @param account     account, which receives the transaction
+     * @param description description, which makes the transaction distinct
+     * @return new transaction
+     */
+    public Transaction transaction(SplittableRandom random, String account, String description) {
+        String date = firstDay.plusDays(random.nextLong(lastDay.toEpochDay() - firstDay.toEpochDay() + 1))
+                .format(DATE_FORMAT);
+        double amount = Math.round(medianAmount * Math.exp(amountSpread * gaussian(random)) * 100) / 100.0;
+        amount = Math.max(0.01, amount);
+        boolean incoming = random.nextBoolean();
+        try {
+            if (random.nextDouble() < paymentShare) {
+                return new Payment(date, incoming ? amount : -amount, description, 0, 0);
+            }
+            String counterparty = counterparty(random);
+            return incoming
+                    ? new IncomingTransfer(date, amount, description, counterparty, account)
+                    : new OutgoingTransfer(date, amount, description, account, counterparty);
+        } catch (TransactionAttributeException e) {
+            throw new IllegalStateException("Generated transaction is invalid", e);
+        }
+    }
+
+    /**
+     * Chooses a counterparty with the Zipf distribution
+     */
+    private String counterparty(SplittableRandom random) {
+        double[] weights = counterpartyWeights;
+        double value = random.nextDouble();
+        int low = 0;
+        int high = weights.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (weights[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return "Counterparty" + low;
+    }
+
+    /**
+     * Calculates the cumulative probabilities of a Zipf distribution
+     */
+    private static double[] zipf(int count, double skew) {
+        double[] weights = new double[count];
+        double sum = 0;
+        for (int k = 0; k < count; k++) {
+            sum += 1 / Math.pow(k + 1, skew);
+            weights[k] = sum;
+        }
+        for (int k = 0; k < count; k++) {
+            weights[k] /= sum;
+        }
+        return weights;
+    }
+
+    /**
+     * Standard normal random number (Box-Muller)
+     */
+    private static double gaussian(SplittableRandom random) {
+        return Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+}
@@ -0,0 +1,137 @@
+package headquarters.bank;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+import headquarters.load.SyntheticBank;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Budgets of the bytes allocated per call of the hot paths, measured with the allocation counter of the
+ * current thread. Every call is warmed up first, so the JIT compiler has removed the allocations, which it can
+ * prove to be local, and the smallest result of several rounds is compared with the budget.
+ * <p>
+ * The budgets assume a HotSpot JVM, whose C2 compiler scalar replaces the iterators and the flight recorder
+ * events of the hot paths. The tests are skipped, if the JVM runs interpreted (-Xint), stops at C1
+ * (-XX:TieredStopAtLevel=1 and below), has escape analysis switched off or runs a Java agent, e.g. of a
+ * coverage tool, because then the hot paths allocate without a regression.
+ */
+class AllocationBudgetTest {
+    private static final int TRANSACTIONS = 100;
+    private static final int ROUNDS = 5;
+    private static final String ACCOUNT = "Account0";
+
+    private static com.sun.management.ThreadMXBean threads;
+
+    @TempDir
+    File directory;
+
+    private PrivateBank bank;
+    private PrivateBankAlt alt;
+
+    @BeforeAll
+    static void checkSupport() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        assumeTrue(scalarReplacementActive(), "C2 with escape analysis is needed for the budgets");
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    /**
+     * Checks the flags of the JVM, which decide whether C2 removes the allocations of local objects
+     */
+    private static boolean scalarReplacementActive() {
+        HotSpotDiagnosticMXBean hotSpot = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+        if (hotSpot == null) {
+            return false;
+        }
+        try {
+            boolean tiered = Boolean.parseBoolean(hotSpot.getVMOption("TieredCompilation").getValue());
+            return Boolean.parseBoolean(hotSpot.getVMOption("UseCompiler").getValue())
+                    && (!tiered || Integer.parseInt(hotSpot.getVMOption("TieredStopAtLevel").getValue()) >= 4)
+                    && Boolean.parseBoolean(hotSpot.getVMOption("DoEscapeAnalysis").getValue())
+                    && Boolean.parseBoolean(hotSpot.getVMOption("EliminateAllocations").getValue())
+                    && ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                    .noneMatch(argument -> argument.startsWith("-javaagent") || argument.startsWith("-agentpath"));
+        } catch (IllegalArgumentException e) {
+            // one of the flags does not exist, so this is no C2 of HotSpot
+            return false;
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        SyntheticBank synthetic = SyntheticBank.withSeed(49).accounts(1).transactionsPerAccount(TRANSACTIONS);
+        bank = new PrivateBank("Allocations", 0.05, 0.1, directory.getPath() + File.separator);
+        synthetic.populate(bank);
+        alt = new PrivateBankAlt("Allocations", 0.05, 0.1);
+        synthetic.populate(alt);
+    }
+
+    @Test
+    void balanceReadsAllocateNothing() throws Exception {
+        LocalDate day = LocalDate.of(2019, 6, 30);
+        assertEquals(0, bytesPerCall(() -> bank.getAccountBalance(ACCOUNT), 20000));
+        assertEquals(0, bytesPerCall(() -> bank.getAccountBalanceCents(ACCOUNT, day), 20000));
+        assertEquals(0, bytesPerCall(() -> alt.getAccountBalance(ACCOUNT), 20000));
+    }
+
+    @Test
+    void containsTransactionAllocatesNothing() throws Exception {
+        Transaction present = bank.getTransactions(ACCOUNT).get(TRANSACTIONS / 2);
+        assertEquals(0, bytesPerCall(() -> bank.containsTransaction(ACCOUNT, present), 20000));
+    }
+
+    @Test
+    void sortedReadsAllocateAtMostACopyOfTheList() throws Exception {
+        // a header and an array of references, as a copy of the transactions would need
+        long copy = 64 + 8L * TRANSACTIONS;
+        assertTrue(bytesPerCall(() -> bank.getTransactionsSorted(ACCOUNT, true), 20000) <= copy);
+        assertTrue(bytesPerCall(() -> bank.getTransactionsSorted(ACCOUNT, false), 20000) <= copy);
+        assertTrue(bytesPerCall(() -> bank.getTransactionsByType(ACCOUNT, true), 20000) <= copy);
+        assertTrue(bytesPerCall(() -> bank.getTransactionsByType(ACCOUNT, false), 20000) <= copy);
+    }
+
+    @Test
+    void writingAnAccountStaysWithinItsBudgetPerTransaction() throws Exception {
+        Payment payment = new Payment("01.01.2020", 5, "probe", 0, 0);
+        // adding and removing writes the account twice, with all its transactions
+        long perCall = bytesPerCall(() -> {
+            bank.addTransaction(ACCOUNT, payment);
+            bank.removeTransaction(ACCOUNT, payment);
+        }, 50);
+        long perTransaction = perCall / (2 * (TRANSACTIONS + 1));
+        assertTrue(perTransaction <= 3 * 1024, perTransaction + " bytes per written transaction");
+    }
+
+    /**
+     * Returns the smallest number of bytes, which one call allocated on average in a round
+     */
+    private static long bytesPerCall(Call call, int calls) throws Exception {
+        long smallest = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int i = 0; i < calls; i++) {
+                call.run();
+            }
+            long before = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < calls; i++) {
+                call.run();
+            }
+            smallest = Math.min(smallest, (threads.getCurrentThreadAllocatedBytes() - before) / calls);
+        }
+        return smallest;
+    }
+
+    private interface Call {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,42 @@
+package headquarters.bank;
+
+import headquarters.bank.exceptions.TransactionAttributeException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CalculateBillTest {
+
+    private List<Transaction> transactions;
+
+    @BeforeEach
+    void setUp() throws TransactionAttributeException {
+        transactions = new ArrayList<>();
+        transactions.add(new Payment("22.07.2012", -76, "sport", 0.3, 0.3));
+        transactions.add(new IncomingTransfer("26.04.2021", 15, "coffee", "Alice", "Bob"));
+        transactions.add(new Payment("21.07.2022", 5054, "gehalt", 0.23, 0.12));
+        transactions.add(new OutgoingTransfer("14.08.2022", 6, "coffee", "Bob", "Alice"));
+        transactions.add(new Transfer("26.04.2021", 32, "essen", "Eve", "Adam"));
+        transactions.add(new Payment("26.07.2022", 0, "nothing", 0.5, 0.12));
+    }
+
+    @Test
+    void calculateAll() {
+        long[] calculated = new long[transactions.size() + 2];
+        CalculateBill.calculateAll(transactions, calculated);
+        for (int i = 0; i < transactions.size(); i++) {
+            assertEquals(transactions.get(i).calculateCents(), calculated[i]);
+        }
+    }
+
+    @Test
+    void calculateAllRejectsShortArray() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            CalculateBill.calculateAll(transactions, new long[2]);
+        });
+    }
+}
@@ -0,0 +1,90 @@
+package headquarters.bank;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightEventsTest {
+
+    private static final List<String> EVENTS = List.of("headquarters.bank.AccountWrite",
+            "headquarters.bank.AccountRead", "headquarters.bank.BankLoad", "headquarters.bank.AccountScan",
+            "headquarters.bank.TransactionSort");
+
+    @TempDir
+    File directory;
+
+    @Test
+    void profileEnablesAllEvents() throws Exception {
+        Configuration configuration = Configuration.create(Path.of("src/main/resources/bank.jfc"));
+        Map<String, String> settings = configuration.getSettings();
+        for (String event : EVENTS) {
+            assertEquals("true", settings.get(event + "#enabled"), event);
+        }
+    }
+
+    @Test
+    void recordsPersistenceAndQueries() throws Exception {
+        String directoryName = directory.getPath() + File.separator;
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            for (String event : EVENTS) {
+                recording.enable(event).withThreshold(Duration.ZERO);
+            }
+            recording.start();
+            PrivateBank bank = new PrivateBank("Flight", 0.5, 0.1, directoryName);
+            bank.createAccount("Nodir", List.of(new Payment("12.03.2022", 100, "rent", 0, 0),
+                    new IncomingTransfer("13.03.2022", 50, "gift", "Alice", "Nodir")));
+            new PrivateBank("Flight", 0.5, 0.1, directoryName);
+            bank.getTransactionsByType("Nodir", true);
+            bank.query(TransactionQuery.onAccount("Nodir").orderBy(TransactionQuery.Order.DATE_DESC));
+            PrivateBankAlt alt = new PrivateBankAlt("Flight", 0.5, 0.1);
+            alt.createAccount("Daniel", bank.getTransactions("Nodir"));
+            alt.getAccountBalance("Daniel");
+            alt.getTransactionsSorted("Daniel", true);
+            recording.stop();
+            Path file = directory.toPath().resolve("bank.jfr");
+            recording.dump(file);
+            events = RecordingFile.readAllEvents(file);
+        }
+
+        RecordedEvent write = events.stream()
+                .filter(e -> e.getEventType().getName().equals("headquarters.bank.AccountWrite")
+                        && e.getInt("transactions") == 2)
+                .findFirst().orElseThrow();
+        assertEquals("Nodir", write.getString("account"));
+        assertEquals(new File(directory, "Nodir.json").length(), write.getLong("bytes"));
+        RecordedEvent read = find(events, "headquarters.bank.AccountRead", "Nodir");
+        assertEquals(2, read.getInt("transactions"));
+        long loads = events.stream().filter(e -> e.getEventType().getName().equals("headquarters.bank.BankLoad"))
+                .count();
+        assertEquals(2, loads);
+        assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("headquarters.bank.BankLoad")
+                && e.getInt("accounts") == 1 && e.getLong("transactions") == 2));
+
+        RecordedEvent scan = find(events, "headquarters.bank.AccountScan", "Nodir");
+        assertEquals("getTransactionsByType", scan.getString("operation"));
+        assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("headquarters.bank.AccountScan")
+                && "getAccountBalance".equals(e.getString("operation")) && "Daniel".equals(e.getString("account"))));
+        assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("headquarters.bank.TransactionSort")
+                && "query".equals(e.getString("operation"))));
+        assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("headquarters.bank.TransactionSort")
+                && "Daniel".equals(e.getString("account"))));
+    }
+
+    private static RecordedEvent find(List<RecordedEvent> events, String type, String account) {
+        return events.stream()
+                .filter(e -> e.getEventType().getName().equals(type) && account.equals(e.getString("account")))
+                .findFirst().orElseThrow(() -> new AssertionError("No event " + type + " for " + account));
+    }
+}
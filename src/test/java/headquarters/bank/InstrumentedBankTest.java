@@ -0,0 +1,102 @@
+package headquarters.bank;
+
+import headquarters.bank.exceptions.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstrumentedBankTest {
+
+    @TempDir
+    File directory;
+
+    private PrivateBank privateBank;
+    private InstrumentedBank bank;
+
+    @BeforeEach
+    void setUp() throws TransactionAttributeException, IOException, AccountAlreadyExistsException, TransactionAlreadyExistException, AccountDoesNotExistException {
+        privateBank = new PrivateBank("Metrics", 0.5, 0.1, directory.getPath() + File.separator);
+        privateBank.createAccount("Nodir", List.of(new Payment("12.03.2022", 100, "rent", 0, 0),
+                new IncomingTransfer("13.03.2022", 50, "gift", "Alice", "Nodir")));
+        bank = new InstrumentedBank("Metrics", privateBank);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bank.close();
+    }
+
+    @Test
+    void countsOperationsAndErrors() throws TransactionAttributeException, IOException, AccountAlreadyExistsException, TransactionAlreadyExistException, AccountDoesNotExistException {
+        Payment payment = new Payment("14.03.2022", -20, "coffee", 0, 0);
+        bank.addTransaction("Nodir", payment);
+        assertThrows(TransactionAlreadyExistException.class, () -> bank.addTransaction("Nodir", payment));
+        assertThrows(AccountDoesNotExistException.class, () -> bank.addTransaction("Daniel", payment));
+        assertThrows(AccountDoesNotExistException.class, () -> bank.deleteAccount("Daniel"));
+        assertEquals(privateBank.getAccountBalance("Nodir"), bank.getAccountBalance("Nodir"));
+
+        OperationMetrics add = bank.getMetrics("addTransaction");
+        assertEquals(3, add.getCount());
+        assertEquals(2, add.getErrors());
+        assertEquals(2 / 3.0, add.getErrorRate(), 1e-9);
+        assertTrue(add.getMaxMicros() > 0);
+        assertTrue(add.getP50Micros() <= add.getP99Micros());
+        assertEquals(1, bank.getMetrics("getAccountBalance").getCount());
+        assertEquals(Map.of("AccountDoesNotExistException", 2L, "TransactionAlreadyExistException", 1L),
+                bank.getErrorsByType());
+        assertThrows(IllegalArgumentException.class, () -> bank.getMetrics("writeAccount"));
+    }
+
+    @Test
+    void exposesMetricsByJmx() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName bankName = new ObjectName("headquarters.bank:type=Bank,name=\"Metrics\"");
+        assertEquals(1, server.getAttribute(bankName, "AccountCount"));
+        assertEquals(2L, server.getAttribute(bankName, "TransactionCount"));
+
+        bank.createAccount("Daniel");
+        bank.addTransaction("Daniel", new Payment("14.03.2022", 20, "coffee", 0, 0));
+        bank.addTransaction("Nodir", new Payment("15.03.2022", 20, "coffee", 0, 0));
+        assertEquals(2, server.getAttribute(bankName, "AccountCount"));
+        assertEquals(4L, server.getAttribute(bankName, "TransactionCount"));
+        assertEquals(3, server.getAttribute(bankName, "LargestAccountSize"));
+        bank.deleteAccount("Nodir");
+        assertEquals(1L, server.getAttribute(bankName, "TransactionCount"));
+
+        ObjectName addName = new ObjectName("headquarters.bank:type=Operation,bank=\"Metrics\",name=addTransaction");
+        assertEquals(2L, server.getAttribute(addName, "Count"));
+
+        ObjectName persistenceName = new ObjectName("headquarters.bank:type=Persistence,name=\"Metrics\"");
+        long writes = (Long) server.getAttribute(persistenceName, "AccountWrites");
+        assertTrue(writes >= 3);
+        assertTrue(privateBank.getPersistenceMetrics().getMaxBytesPerWrite() >= new File(directory, "Daniel.json").length());
+        assertTrue((Long) server.getAttribute(persistenceName, "BytesWritten") > 0);
+
+        PrivateBankAlt other = new PrivateBankAlt("Alt", 0, 0);
+        assertThrows(IllegalStateException.class, () -> new InstrumentedBank("Metrics", other));
+        bank.close();
+        assertFalse(server.isRegistered(bankName));
+        assertFalse(server.isRegistered(addName));
+        assertFalse(server.isRegistered(persistenceName));
+    }
+
+    @Test
+    void persistenceMetricsOfLoad() throws TransactionAttributeException, IOException, AccountAlreadyExistsException, TransactionAlreadyExistException, AccountDoesNotExistException {
+        PrivateBank loaded = new PrivateBank("Metrics", 0.5, 0.1, directory.getPath() + File.separator);
+        assertEquals(1, loaded.getPersistenceMetrics().getAccountsRead());
+        assertTrue(loaded.getPersistenceMetrics().getReadMillis() > 0);
+        assertEquals(0, loaded.getPersistenceMetrics().getAccountWrites());
+        assertEquals(0, loaded.getPersistenceMetrics().getBytesWritten());
+    }
+}
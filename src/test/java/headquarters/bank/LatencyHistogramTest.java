@@ -0,0 +1,48 @@
+package headquarters.bank;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void bucketsAreContinuous() {
+        for (long value = 0; value < 100_000; value++) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(value <= LatencyHistogram.upperBoundOf(bucket));
+            assertTrue(bucket == 0 || value > LatencyHistogram.upperBoundOf(bucket - 1));
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.upperBoundOf(LatencyHistogram.bucketOf(Long.MAX_VALUE)));
+    }
+
+    @Test
+    void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentile(99));
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMax());
+        assertEquals(500_500, histogram.getMean(), 0.001);
+        assertEquals(500_000, histogram.getPercentile(50), 500_000 / 64.0);
+        assertEquals(990_000, histogram.getPercentile(99), 990_000 / 64.0);
+        assertEquals(1_000_000, histogram.getPercentile(100));
+        assertThrows(IllegalArgumentException.class, () -> histogram.getPercentile(101));
+    }
+
+    @Test
+    void add() {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        first.record(10);
+        second.record(20_000);
+        second.record(-5);
+        first.add(second);
+        assertEquals(3, first.getCount());
+        assertEquals(20_000, first.getMax());
+        assertEquals(0, first.getPercentile(1));
+        assertEquals(0, second.getPercentile(50));
+    }
+}
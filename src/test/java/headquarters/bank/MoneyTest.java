@@ -0,0 +1,60 @@
+package headquarters.bank;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParser;
+import headquarters.bank.exceptions.TransactionAttributeException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    void conversion() {
+        assertEquals(12345, Money.toCents(123.45));
+        assertEquals(-10, Money.toCents(-0.1));
+        assertEquals(123.45, Money.toDouble(12345));
+        assertEquals(1320, Money.toBasisPoints(0.132));
+        assertEquals(0.132, Money.toInterest(1320));
+    }
+
+    @Test
+    void multiplyRoundsHalfAwayFromZero() {
+        assertEquals(-226, Money.multiply(-200, 11320));
+        assertEquals(3741, Money.multiply(4300, 8700));
+        assertEquals(1, Money.multiply(1, 5000));
+        assertEquals(-1, Money.multiply(-1, 5000));
+        assertEquals(0, Money.multiply(1, 4999));
+    }
+
+    @Test
+    void sumIsExact() throws TransactionAttributeException {
+        long balance = 0;
+        for (int i = 0; i < 10; i++) {
+            balance += new IncomingTransfer("26.04.2021", 0.1, "coffee", "Alice", "Bob").calculateCents();
+        }
+        assertEquals(1.0, Money.toDouble(balance));
+    }
+
+    @Test
+    void serializerReadsOldFormat() {
+        Gson gson = new GsonBuilder().registerTypeAdapter(Transaction.class, new Serializer()).create();
+        String json = "{\"CLASSNAME\": \"Payment\", \"INSTANCE\": {\"incomingInterest\": 0.3, \"outgoingInterest\": 0.2," +
+                " \"date\": \"2022.12.23\", \"amount\": 345.0, \"description\": \"Abc\"}}";
+        Payment payment = (Payment) gson.fromJson(json, Transaction.class);
+        assertEquals(34500, payment.getAmountCents());
+        assertEquals(3000, payment.getIncomingInterestBasisPoints());
+        assertEquals(2000, payment.getOutgoingInterestBasisPoints());
+    }
+
+    @Test
+    void serializerRoundTrip() throws TransactionAttributeException {
+        Gson gson = new GsonBuilder().registerTypeAdapter(Transaction.class, new Serializer()).create();
+        Payment payment = new Payment("22.07.2012", -76.05, "sport", 0.1234, 0.5);
+        String json = gson.toJson(payment, Transaction.class);
+        assertEquals(-7605, JsonParser.parseString(json).getAsJsonObject().getAsJsonObject("INSTANCE")
+                .get("amountCents").getAsLong());
+        assertEquals(payment, gson.fromJson(json, Transaction.class));
+    }
+}
@@ -4,6 +4,9 @@ import headquarters.bank.exceptions.TransactionAttributeException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class PaymentTest {
@@ -29,6 +32,23 @@ class PaymentTest {
         assertEquals(output, payment.toString());
     }
 
+    @Test
+    void listenersKnowTheRepricedAmount() throws TransactionAttributeException {
+        List<long[]> changes = new ArrayList<>();
+        payment.addListener(new TransactionListener() {
+            @Override
+            public void amountChanged(Transaction transaction, long oldCents, long newCents) {
+                changes.add(new long[]{oldCents, newCents});
+            }
+        });
+        // repricing informs nobody, but the next change has to start from the repriced amount
+        assertTrue(payment.reprice(0, 0));
+        assertTrue(changes.isEmpty());
+        payment.setAmount(-10);
+        assertEquals(1, changes.size());
+        assertArrayEquals(new long[]{-7600, -1000}, changes.get(0));
+    }
+
     @Test
     void calculate() throws TransactionAttributeException {
         assertEquals(-114.0, payment.calculate());
@@ -8,8 +8,18 @@ import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -60,6 +70,13 @@ class PrivateBankTest {
         assertTrue(pB1.equals(pB2));
     }
 
+    @Test
+    void loadedBankWasNotChanged() throws TransactionAttributeException, IOException, TransactionAlreadyExistException, AccountAlreadyExistsException, AccountDoesNotExistException {
+        PrivateBank loaded = new PrivateBank(privateBank);
+        assertEquals(privateBank.getTransactions("Diogenes"), loaded.getTransactions("Diogenes"));
+        assertEquals(0, loaded.getEventSequence());
+    }
+
     @Test
     void testToString() {
         String output = "PrivateBank: name=" + privateBank.getName() + ", incomingInterest=" + privateBank.getIncomingInterest() + ", outgoingInterest=" + privateBank.getOutgoingInterest();
@@ -90,6 +107,35 @@ class PrivateBankTest {
         });
     }
 
+    @Test
+    void listAccounts() throws IOException {
+        List<String> accounts = new ArrayList<>();
+        PrivateBank.listAccounts(privateBank.directoryName, accounts::add);
+        assertEquals(Set.copyOf(privateBank.getAllAccounts()), Set.copyOf(accounts));
+    }
+
+    @Test
+    void searchAccounts() throws AccountAlreadyExistsException, IOException, AccountDoesNotExistException {
+        privateBank.createAccount("adele");
+        privateBank.createAccount("Adrian");
+        privateBank.createAccount("Adam");
+        assertEquals(List.of("Adam", "adele", "Adrian"), privateBank.searchAccounts("AD", 10));
+        assertEquals(List.of("Adam", "adele"), privateBank.searchAccounts("ad", 2));
+        assertEquals(List.of("Diogenes"), privateBank.searchAccounts("dio", 10));
+        assertEquals(List.of(), privateBank.searchAccounts("x", 10));
+
+        privateBank.deleteAccount("adele");
+        assertEquals(List.of("Adam", "Adrian"), privateBank.searchAccounts("ad", 10));
+        assertEquals(privateBank.getAllAccounts().size(), privateBank.searchAccounts("", Integer.MAX_VALUE).size());
+
+        PrivateBankAlt privateBankAlt = new PrivateBankAlt("Sparkasse", 0.5, 0.1);
+        assertDoesNotThrow(() -> {
+            privateBankAlt.createAccount("Adrian");
+            privateBankAlt.createAccount("Adam");
+        });
+        assertEquals(List.of("Adam", "Adrian"), privateBankAlt.searchAccounts("ad", 10));
+    }
+
     @Test
     void addTransaction() throws TransactionAlreadyExistException, AccountDoesNotExistException, TransactionAttributeException, IOException {
         assertEquals(privateBank.getTransactions("Eve").size(), 0);
@@ -130,11 +176,90 @@ class PrivateBankTest {
 
     @Test
     void getAccountBalance() {
-        double accountBalance = 0;
+        long accountBalance = 0;
+        for (Transaction t : privateBank.getTransactions("Diogenes")) {
+            accountBalance += t.calculateCents();
+        }
+        assertEquals(accountBalance, privateBank.getAccountBalanceCents("Diogenes"));
+        assertEquals(2533.2, privateBank.getAccountBalance("Diogenes"));
+    }
+
+    @Test
+    void changedTransactionUpdatesAccount() throws TransactionAttributeException, TransactionAlreadyExistException, AccountDoesNotExistException, IOException {
+        Payment payment = new Payment("20.07.2020", 100, "mensa", 0.13, 0.45);
+        OutgoingTransfer transfer = new OutgoingTransfer("14.08.2022", 30, "coffee", "Eve", "Alice");
+        privateBank.addTransaction("Eve", payment);
+        privateBank.addTransaction("Eve", transfer);
+        assertEquals(2000, privateBank.getAccountBalanceCents("Eve"));
+
+        transfer.setAmount(120);
+        assertEquals(-7000, privateBank.getAccountBalanceCents("Eve"));
+        assertEquals(List.of(transfer, payment), privateBank.getTransactionsSorted("Eve", true));
+
+        payment.setIncomingInterest(0);
+        payment.setAmount(-200);
+        assertEquals(-34000, privateBank.getAccountBalanceCents("Eve"));
+        assertEquals(List.of(payment, transfer), privateBank.getTransactionsSorted("Eve", true));
+        assertTrue(privateBank.getTransactionsByType("Eve", true).isEmpty());
+    }
+
+    @Test
+    void repriceTransactions() throws TransactionAttributeException, IOException {
+        privateBank.setIncomingInterest(0.2);
+        privateBank.setOutgoingInterest(0.3);
+        List<Integer> reported = new ArrayList<>();
+        privateBank.repriceTransactions((repriced, total) -> {
+            synchronized (reported) {
+                reported.add(repriced);
+            }
+            assertEquals(2, total);
+        });
+        assertTrue(reported.contains(2));
+
+        long accountBalance = 0;
         for (Transaction t : privateBank.getTransactions("Diogenes")) {
-            accountBalance += t.calculate();
+            if (t instanceof Payment payment) {
+                assertEquals(0.2, payment.getIncomingInterest());
+                assertEquals(0.3, payment.getOutgoingInterest());
+            }
+            accountBalance += t.calculateCents();
         }
-        assertEquals(accountBalance, privateBank.getAccountBalance("Diogenes"));
+        assertEquals(accountBalance, privateBank.getAccountBalanceCents("Diogenes"));
+        assertTrue(Files.readString(Path.of(privateBank.directoryName + "Diogenes.json")).contains("\"incomingInterestBp\": 2000"));
+        assertFalse(Files.exists(Path.of(privateBank.directoryName + "Diogenes.json.tmp")));
+    }
+
+    @Test
+    void repricingReplacesNoFileIfTheBatchFails() throws TransactionAttributeException, IOException {
+        Path json = Path.of(privateBank.directoryName + "Diogenes.json");
+        String written = Files.readString(json);
+        // the rollups of the batch cannot be written, where a directory is in the way
+        Files.createDirectory(Path.of(privateBank.directoryName + "Diogenes.rollups.tmp"));
+        privateBank.setIncomingInterest(0.2);
+        assertThrows(IOException.class, () -> privateBank.repriceTransactions(null));
+        assertEquals(written, Files.readString(json));
+        assertFalse(Files.exists(Path.of(privateBank.directoryName + "Diogenes.json.tmp")));
+        assertFalse(Files.exists(Path.of(privateBank.directoryName + "Diogenes.rollups.tmp")));
+    }
+
+    @Test
+    void createReport() throws TransactionAlreadyExistException, AccountDoesNotExistException, TransactionAttributeException, IOException, AccountAlreadyExistsException {
+        privateBank.createAccount("Adam");
+        privateBank.addTransaction("Adam", new OutgoingTransfer("14.08.2022", 300, "rent", "Adam", "Alice"));
+        BankReport report = privateBank.createReport(2);
+
+        assertEquals(3, report.getAccountCount());
+        assertEquals(253320, report.getTotalAssetsCents());
+        assertEquals(30000, report.getTotalLiabilitiesCents());
+        assertEquals(List.of(new BankReport.AccountBalance("Diogenes", 253320), new BankReport.AccountBalance("Eve", 0)),
+                report.getRichest());
+        assertEquals(List.of(new BankReport.AccountBalance("Adam", -30000), new BankReport.AccountBalance("Eve", 0)),
+                report.getPoorest());
+        assertArrayEquals(new long[]{0, 0, 1, 0, 1, 1, 0, 0}, report.getDistribution());
+        assertEquals(5, report.getTransactionCounts().get("Payment"));
+        assertEquals(1, report.getTransactionCounts().get("IncomingTransfer"));
+        assertEquals(2, report.getTransactionCounts().get("OutgoingTransfer"));
+        assertEquals(3, privateBank.createReport(Integer.MAX_VALUE).getRichest().size());
     }
 
     @Test
@@ -160,6 +285,310 @@ class PrivateBankTest {
             }
         }
         assertEquals(calc, descSorted.get(0).calculate());
+        for (int i = 1; i < descSorted.size(); i++) {
+            assertTrue(descSorted.get(i - 1).calculateCents() >= descSorted.get(i).calculateCents());
+        }
+    }
+
+    @Test
+    void getTopTransactions() {
+        List<Transaction> ascSorted = privateBank.getTransactionsSorted("Diogenes", true);
+        assertEquals(ascSorted.subList(0, 3), privateBank.getTopTransactions("Diogenes", 3, true));
+        List<Transaction> descSorted = privateBank.getTransactionsSorted("Diogenes", false);
+        assertEquals(descSorted.subList(0, 2), privateBank.getTopTransactions("Diogenes", 2, false));
+        assertEquals(descSorted, privateBank.getTopTransactions("Diogenes", 20, false));
+        assertTrue(privateBank.getTopTransactions("Diogenes", 0, true).isEmpty());
+        assertEquals(ascSorted, privateBank.getTopTransactions("Diogenes", Integer.MAX_VALUE, true));
+
+        PrivateBankAlt privateBankAlt = new PrivateBankAlt("Sparkasse", 0.5, 0.1);
+        assertDoesNotThrow(() -> privateBankAlt.createAccount("Diogenes", new ArrayList<>(transactionList)));
+        assertEquals(ascSorted.subList(0, 3), privateBankAlt.getTopTransactions("Diogenes", 3, true));
+        assertEquals(descSorted.subList(0, 2), privateBankAlt.getTopTransactions("Diogenes", 2, false));
+        assertEquals(descSorted, privateBankAlt.getTopTransactions("Diogenes", Integer.MAX_VALUE, false));
+    }
+
+    @Test
+    void searchTransactions() throws TransactionAlreadyExistException, AccountDoesNotExistException, TransactionAttributeException, IOException, TransactionDoesNotExistException {
+        assertEquals(2, privateBank.searchTransactions("Diogenes", "SPORT").size());
+        assertEquals(List.of(p1), privateBank.searchTransactions("Diogenes", "mens*"));
+        assertTrue(privateBank.searchTransactions("Diogenes", "mens").isEmpty());
+        assertTrue(privateBank.searchTransactions("Diogenes", "mens *").isEmpty());
+        assertTrue(privateBank.searchTransactions("Eve", "sport").isEmpty());
+
+        OutgoingTransfer hotel = new OutgoingTransfer("14.08.2022", 300, "Hotel Berlin, 2 nights", "Eve", "Alice");
+        privateBank.addTransaction("Eve", hotel);
+        assertEquals(List.of(hotel), privateBank.searchTransactions("Eve", "hot* berlin"));
+        assertTrue(privateBank.searchTransactions("Eve", "hotel munich").isEmpty());
+        assertEquals(Set.of("Diogenes"), privateBank.searchTransactions("coffee").keySet());
+        assertEquals(Set.of("Eve"), privateBank.searchTransactions("hot*").keySet());
+
+        hotel.setDescription("Hostel Munich");
+        assertTrue(privateBank.searchTransactions("berlin").isEmpty());
+        assertEquals(List.of(hotel), privateBank.searchTransactions("Eve", "munich"));
+        privateBank.removeTransaction("Eve", hotel);
+        assertTrue(privateBank.searchTransactions("ho*").isEmpty());
+
+        PrivateBankAlt privateBankAlt = new PrivateBankAlt("Sparkasse", 0.5, 0.1);
+        assertDoesNotThrow(() -> privateBankAlt.createAccount("Diogenes", new ArrayList<>(transactionList)));
+        assertEquals(privateBank.searchTransactions("Diogenes", "co*"), privateBankAlt.searchTransactions("Diogenes", "co*"));
+        assertTrue(privateBankAlt.searchTransactions("Diogenes", "mens *").isEmpty());
+    }
+
+    @Test
+    void getTransfersByCounterparty() throws TransactionAlreadyExistException, AccountDoesNotExistException, TransactionAttributeException, IOException, TransactionDoesNotExistException, AccountAlreadyExistsException {
+        OutgoingTransfer rent = new OutgoingTransfer("14.08.2022", 300, "rent", "Eve", "STW Aachen");
+        privateBank.addTransaction("Eve", rent);
+        assertEquals(Map.of("Eve", List.of(rent)), privateBank.getTransfersByCounterparty("STW Aachen"));
+        assertEquals(Set.of("Diogenes"), privateBank.getTransfersByCounterparty("Alice").keySet());
+
+        rent.setRecipient("Vonovia");
+        assertTrue(privateBank.getTransfersByCounterparty("STW Aachen").isEmpty());
+        assertEquals(Map.of("Eve", List.of(rent)), privateBank.getTransfersByCounterparty("Vonovia"));
+        privateBank.removeTransaction("Eve", rent);
+        assertTrue(privateBank.getTransfersByCounterparty("Vonovia").isEmpty());
+
+        PrivateBank reloaded = new PrivateBank(privateBank);
+        assertEquals(privateBank.getTransfersByCounterparty("Bob"), reloaded.getTransfersByCounterparty("Bob"));
+        assertEquals(2, reloaded.getTransfersByCounterparty("Bob").get("Diogenes").size());
+    }
+
+    @Test
+    void getMonthlyRollups() throws TransactionAlreadyExistException, AccountDoesNotExistException, TransactionAttributeException, IOException, TransactionDoesNotExistException, AccountAlreadyExistsException {
+        Payment salary = new Payment("01.07.2022", 1000, "gehalt", 0, 0);
+        OutgoingTransfer rent = new OutgoingTransfer("2022.07.03", 300, "rent", "Eve", "STW Aachen");
+        OutgoingTransfer coffee = new OutgoingTransfer("15.09.2022", 5, "coffee", "Eve", "Alice");
+        privateBank.addTransaction("Eve", salary);
+        privateBank.addTransaction("Eve", rent);
+        privateBank.addTransaction("Eve", coffee);
+
+        YearMonth from = YearMonth.of(2022, 6);
+        YearMonth to = YearMonth.of(2022, 12);
+        assertEquals(List.of(new MonthlyRollup(YearMonth.of(2022, 7), 50000, 30000),
+                new MonthlyRollup(YearMonth.of(2022, 9), 0, 500)), privateBank.getMonthlyRollups("Eve", from, to));
+        assertEquals(List.of(new MonthlyRollup(YearMonth.of(2022, 7), 50000, 30000)),
+                privateBank.getMonthlyRollups("Eve", from, YearMonth.of(2022, 8)));
+
+        coffee.setDate("15.07.2022");
+        rent.setAmount(400);
+        privateBank.removeTransaction("Eve", salary);
+        List<MonthlyRollup> rollups = privateBank.getMonthlyRollups("Eve", from, to);
+        assertEquals(List.of(new MonthlyRollup(YearMonth.of(2022, 7), 0, 40500)), rollups);
+        assertEquals(-405, rollups.get(0).net());
+
+        privateBank.setIncomingInterest(0.2);
+        privateBank.repriceTransactions(null);
+        MonthlyRollups expected = new MonthlyRollups();
+        expected.rebuild(privateBank.getTransactions("Diogenes"));
+        assertEquals(expected.range(YearMonth.of(2000, 1), to),
+                privateBank.getMonthlyRollups("Diogenes", YearMonth.of(2000, 1), to));
+
+        PrivateBank reloaded = new PrivateBank(privateBank);
+        assertEquals(rollups, reloaded.getMonthlyRollups("Eve", from, to));
+        assertTrue(new File(privateBank.directoryName + "Eve.rollups").exists());
+
+        // a ledger changed without its rollups keeps the number of transactions and the balance
+        Path ledger = Path.of(privateBank.directoryName + "Eve.json");
+        Files.writeString(ledger, Files.readString(ledger).replace("15.07.2022", "15.08.2022"));
+        reloaded = new PrivateBank(privateBank);
+        assertEquals(List.of(new MonthlyRollup(YearMonth.of(2022, 7), 0, 40000),
+                new MonthlyRollup(YearMonth.of(2022, 8), 0, 500)), reloaded.getMonthlyRollups("Eve", from, to));
+    }
+
+    @Test
+    void getAccountBalanceAsOfDate() throws TransactionAlreadyExistException, AccountDoesNotExistException, TransactionAttributeException, IOException, TransactionDoesNotExistException {
+        Payment salary = new Payment("01.07.2022", 1000, "gehalt", 0, 0);
+        OutgoingTransfer rent = new OutgoingTransfer("03.07.2022", 300, "rent", "Eve", "STW Aachen");
+        OutgoingTransfer coffee = new OutgoingTransfer("2022-09-15", 5, "coffee", "Eve", "Alice");
+        privateBank.addTransaction("Eve", salary);
+        privateBank.addTransaction("Eve", rent);
+        privateBank.addTransaction("Eve", coffee);
+
+        assertEquals(0, privateBank.getAccountBalance("Eve", LocalDate.of(2022, 6, 30)));
+        assertEquals(500, privateBank.getAccountBalance("Eve", LocalDate.of(2022, 7, 2)));
+        assertEquals(200, privateBank.getAccountBalance("Eve", LocalDate.of(2022, 7, 31)));
+        assertEquals(privateBank.getAccountBalance("Eve"), privateBank.getAccountBalance("Eve", LocalDate.of(2022, 9, 15)));
+
+        privateBank.addTransaction("Eve", new IncomingTransfer("01.01.2022", 50, "back-dated", "Alice", "Eve"));
+        assertEquals(50, privateBank.getAccountBalance("Eve", LocalDate.of(2022, 6, 30)));
+        assertEquals(250, privateBank.getAccountBalance("Eve", LocalDate.of(2022, 7, 31)));
+
+        coffee.setDate("01.07.2022");
+        rent.setAmount(400);
+        privateBank.removeTransaction("Eve", salary);
+        assertEquals(45, privateBank.getAccountBalanceCents("Eve", LocalDate.of(2022, 7, 2)) / 100);
+        assertEquals(-355, privateBank.getAccountBalance("Eve", LocalDate.of(2022, 7, 31)));
+
+        privateBank.setIncomingInterest(0.2);
+        privateBank.repriceTransactions(null);
+        LocalDate asOf = LocalDate.of(2021, 12, 31);
+        long expected = 0;
+        for (Transaction t : privateBank.getTransactions("Diogenes")) {
+            if (!TransactionDates.parse(t.getDate()).isAfter(asOf)) {
+                expected += t.calculateCents();
+            }
+        }
+        assertEquals(expected, privateBank.getAccountBalanceCents("Diogenes", asOf));
+    }
+
+    @Test
+    void query() throws TransactionAlreadyExistException, AccountDoesNotExistException, TransactionAttributeException, IOException {
+        OutgoingTransfer rent = new OutgoingTransfer("14.08.2022", 300, "rent", "Eve", "Alice");
+        privateBank.addTransaction("Eve", rent);
+
+        TransactionQuery debits = TransactionQuery.onAccount("Diogenes").positive(false)
+                .orderBy(TransactionQuery.Order.AMOUNT_ASC).limit(2);
+        assertEquals(privateBank.getTransactionsByType("Diogenes", false).subList(0, 2), privateBank.query(debits));
+        assertTrue(privateBank.explain(debits).contains("access: amount index"));
+        assertTrue(privateBank.explain(debits).contains("AMOUNT_ASC (from index)"));
+        assertTrue(privateBank.explain(debits).contains("limit: 2 (stops early)"));
+        TransactionQuery sorted = TransactionQuery.onAllAccounts().positive(false)
+                .orderBy(TransactionQuery.Order.AMOUNT_ASC).limit(2);
+        assertTrue(privateBank.explain(sorted).contains("limit: 2\n"));
+
+        TransactionQuery alice = TransactionQuery.onAllAccounts().counterparty("Alice").type(OutgoingTransfer.class)
+                .orderBy(TransactionQuery.Order.AMOUNT_ASC);
+        assertEquals(List.of(rent, transactionList.get(5)), privateBank.query(alice));
+        assertTrue(privateBank.explain(alice).contains("access: counterparty index"));
+        assertTrue(privateBank.explain(alice).contains("filter: type = OutgoingTransfer"));
+
+        // Alice is the counterparty of three transfers in the bank, but of one in the two rows of Eve
+        privateBank.addTransaction("Eve", new Payment("15.08.2022", 20, "mensa", 0, 0));
+        TransactionQuery aliceOfEve = TransactionQuery.onAccount("Eve").counterparty("Alice")
+                .dateBetween(LocalDate.of(2022, 1, 1), null);
+        assertEquals(List.of(rent), privateBank.query(aliceOfEve));
+        assertTrue(privateBank.explain(aliceOfEve).contains("access: counterparty index"));
+        assertTrue(privateBank.explain(aliceOfEve).contains("(estimated 1 of 2 rows)"));
+
+        TransactionQuery sport = TransactionQuery.onAccount("Diogenes").descriptionContains("sport")
+                .dateBetween(LocalDate.of(2022, 1, 1), null);
+        assertEquals(List.of(transactionList.get(3)), privateBank.query(sport));
+        assertEquals(List.of("26.07.2022"), privateBank.query(sport, Transaction::getDate));
+        assertTrue(privateBank.explain(sport).contains("access: description index"));
+
+        TransactionQuery dated = TransactionQuery.onAccount("Diogenes").dateBetween(null, LocalDate.of(2020, 12, 31));
+        assertEquals(2, privateBank.query(dated).size());
+        assertTrue(privateBank.explain(dated).contains("access: date index"));
+
+        TransactionQuery latest = TransactionQuery.onAccount("Diogenes").dateBetween(LocalDate.of(2022, 1, 1), null)
+                .orderBy(TransactionQuery.Order.DATE_DESC).limit(1);
+        assertEquals(List.of(transactionList.get(5)), privateBank.query(latest));
+        assertTrue(privateBank.explain(latest).contains("DATE_DESC (from index)"));
+
+        PrivateBankAlt privateBankAlt = new PrivateBankAlt("Sparkasse", 0.5, 0.1);
+        assertDoesNotThrow(() -> privateBankAlt.createAccount("Diogenes", new ArrayList<>(transactionList)));
+        assertEquals(privateBank.query(debits), privateBankAlt.query(debits));
+        assertEquals(privateBank.query(sport), privateBankAlt.query(sport));
+    }
+
+    @Test
+    void queryBreaksTiesInTheOrderOfTheAccount() throws TransactionAlreadyExistException, AccountDoesNotExistException, TransactionAttributeException, IOException, AccountAlreadyExistsException {
+        IncomingTransfer first = new IncomingTransfer("01.08.2022", 100, "first", "Alice", "Adam");
+        IncomingTransfer second = new IncomingTransfer("02.08.2022", 100, "second", "Alice", "Adam");
+        IncomingTransfer small = new IncomingTransfer("03.08.2022", 50, "small", "Alice", "Adam");
+        privateBank.createAccount("Adam", List.of(first, second, small));
+        // the changed amount must not move the first transfer behind the second
+        first.setAmount(60);
+        first.setAmount(100);
+
+        TransactionQuery fromIndex = TransactionQuery.onAccount("Adam").amountBetween(0, 1000)
+                .orderBy(TransactionQuery.Order.AMOUNT_DESC);
+        TransactionQuery fromSort = TransactionQuery.onAccount("Adam").orderBy(TransactionQuery.Order.AMOUNT_DESC);
+        assertTrue(privateBank.explain(fromIndex).contains("AMOUNT_DESC (from index)"));
+        assertTrue(privateBank.explain(fromSort).contains("AMOUNT_DESC (sort)"));
+        assertEquals(List.of(first, second, small), privateBank.query(fromIndex));
+        assertEquals(List.of(first, second, small), privateBank.query(fromSort));
+        assertEquals(List.of(first, second, small), privateBank.getTransactionsSorted("Adam", false));
+        assertEquals(List.of(small, first, second), privateBank.getTransactionsSorted("Adam", true));
+    }
+
+    @Test
+    void subscribe() throws Exception {
+        BlockingQueue<BankEvent> received = new LinkedBlockingQueue<>();
+        CountDownLatch blocked = new CountDownLatch(1);
+        List<Integer> batchSizes = new ArrayList<>();
+        BankListener slow = events -> {
+            try {
+                blocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            batchSizes.add(events.size());
+            received.addAll(events);
+        };
+        privateBank.subscribe(slow);
+        long start = privateBank.getEventSequence();
+
+        Payment salary = new Payment("01.07.2022", 1000, "gehalt", 0, 0);
+        privateBank.createAccount("Adam");
+        privateBank.addTransaction("Adam", salary);
+        privateBank.removeTransaction("Adam", salary);
+        privateBank.setIncomingInterest(0.2);
+        privateBank.deleteAccount("Adam");
+        assertEquals(start + 5, privateBank.getEventSequence());
+        assertTrue(received.isEmpty());
+        blocked.countDown();
+
+        List<BankEvent> events = new ArrayList<>();
+        while (events.size() < 5) {
+            BankEvent event = received.poll(10, TimeUnit.SECONDS);
+            assertNotNull(event);
+            events.add(event);
+        }
+        assertEquals(new BankEvent(start + 1, BankEvent.Type.ACCOUNT_CREATED, "Adam", null, 0), events.get(0));
+        assertEquals(new BankEvent(start + 2, BankEvent.Type.TRANSACTION_ADDED, "Adam", salary, salary.calculateCents()), events.get(1));
+        // the listeners receive copies, the bank may still change its own transaction
+        assertNotSame(salary, events.get(1).transaction());
+        assertEquals(new BankEvent(start + 3, BankEvent.Type.TRANSACTION_REMOVED, "Adam", salary, salary.calculateCents()), events.get(2));
+        assertEquals(new BankEvent(start + 4, BankEvent.Type.RATES_CHANGED, null, null, 0), events.get(3));
+        assertEquals(new BankEvent(start + 5, BankEvent.Type.ACCOUNT_DELETED, "Adam", null, 0), events.get(4));
+        assertTrue(batchSizes.size() < 5);
+
+        privateBank.unsubscribe(slow);
+        privateBank.createAccount("Adam");
+        assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void subscribeAlt() throws Exception {
+        PrivateBankAlt privateBankAlt = new PrivateBankAlt("Sparkasse", 0.5, 0.1);
+        BlockingQueue<BankEvent> received = new LinkedBlockingQueue<>();
+        privateBankAlt.subscribe(received::addAll);
+
+        Payment salary = new Payment("01.07.2022", 1000, "gehalt", 0, 0);
+        privateBankAlt.createAccount("Adam", new ArrayList<>(List.of(salary)));
+        privateBankAlt.removeTransaction("Adam", salary);
+        privateBankAlt.setOutgoingInterest(0.2);
+        privateBankAlt.deleteAccount("Adam");
+        assertEquals(5, privateBankAlt.getEventSequence());
+
+        List<BankEvent> events = new ArrayList<>();
+        while (events.size() < 5) {
+            BankEvent event = received.poll(10, TimeUnit.SECONDS);
+            assertNotNull(event);
+            events.add(event);
+        }
+        assertEquals(new BankEvent(1, BankEvent.Type.ACCOUNT_CREATED, "Adam", null, 0), events.get(0));
+        assertEquals(new BankEvent(2, BankEvent.Type.TRANSACTION_ADDED, "Adam", salary, salary.calculateCents()), events.get(1));
+        assertEquals(new BankEvent(3, BankEvent.Type.TRANSACTION_REMOVED, "Adam", salary, salary.calculateCents()), events.get(2));
+        assertEquals(new BankEvent(4, BankEvent.Type.RATES_CHANGED, null, null, 0), events.get(3));
+        assertEquals(new BankEvent(5, BankEvent.Type.ACCOUNT_DELETED, "Adam", null, 0), events.get(4));
+    }
+
+    @Test
+    void repricingPublishesTheChangedAccounts() throws Exception {
+        BlockingQueue<BankEvent> received = new LinkedBlockingQueue<>();
+        privateBank.setIncomingInterest(0.2);
+        privateBank.subscribe(received::addAll);
+        long start = privateBank.getEventSequence();
+
+        privateBank.repriceTransactions(null);
+        // Eve has no payments, so only Diogenes changed
+        assertEquals(start + 1, privateBank.getEventSequence());
+        assertEquals(new BankEvent(start + 1, BankEvent.Type.ACCOUNT_REPRICED, "Diogenes", null, 0),
+                received.poll(10, TimeUnit.SECONDS));
+
+        privateBank.repriceTransactions(null);
+        assertEquals(start + 1, privateBank.getEventSequence());
     }
 
     @Test
@@ -0,0 +1,192 @@
+package headquarters.bank;
+
+import headquarters.bank.exceptions.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedBankTest {
+
+    @TempDir
+    File directory;
+
+    private ShardedBank shardedBank;
+
+    @BeforeEach
+    void setUp() throws TransactionAttributeException, IOException, AccountAlreadyExistsException, TransactionAlreadyExistException, AccountDoesNotExistException {
+        shardedBank = new ShardedBank("Sparkasse", 0.5, 0.1, 4, directory.getPath() + File.separator);
+        for (int i = 0; i < 20; i++) {
+            shardedBank.createAccount("Account" + i);
+            shardedBank.addTransaction("Account" + i, new IncomingTransfer("26.04.2021", 10 * i, "coffee", "Alice", "Account" + i));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        shardedBank.close();
+    }
+
+    @Test
+    void getAllAccounts() {
+        List<String> accounts = shardedBank.getAllAccounts();
+        assertEquals(20, accounts.size());
+        for (int i = 0; i < 20; i++) {
+            assertTrue(accounts.contains("Account" + i));
+        }
+    }
+
+    @Test
+    void accountsAreSpreadOverShards() {
+        for (int i = 0; i < shardedBank.getShardCount(); i++) {
+            File[] files = new File(directory, "shard-" + i).listFiles();
+            assertNotNull(files);
+        }
+        int shard = shardedBank.shardOf("Account7");
+        assertTrue(new File(directory, "shard-" + shard + File.separator + "Account7.json").exists());
+    }
+
+    @Test
+    void exceptionsArePropagated() {
+        assertThrows(AccountAlreadyExistsException.class, () -> {
+            shardedBank.createAccount("Account3");
+        });
+        assertThrows(AccountDoesNotExistException.class, () -> {
+            shardedBank.addTransaction("Maria", new IncomingTransfer("26.04.2021", 15, "essen", "Eve", "Maria"));
+        });
+        assertThrows(TransactionAlreadyExistException.class, () -> {
+            shardedBank.addTransaction("Account2", new IncomingTransfer("26.04.2021", 20, "coffee", "Alice", "Account2"));
+        });
+        assertThrows(TransactionDoesNotExistException.class, () -> {
+            shardedBank.removeTransaction("Account2", new IncomingTransfer("26.04.2021", 21, "coffee", "Alice", "Account2"));
+        });
+    }
+
+    @Test
+    void getAccountBalance() throws TransactionAlreadyExistException, AccountDoesNotExistException, TransactionAttributeException, IOException {
+        shardedBank.addTransaction("Account5", new Payment("20.07.2020", 100, "mensa", 0.13, 0.45));
+        assertEquals(100, shardedBank.getAccountBalance("Account5"));
+        assertEquals(0, shardedBank.getAccountBalance("Account5", LocalDate.of(2020, 7, 19)));
+        assertEquals(50, shardedBank.getAccountBalance("Account5", LocalDate.of(2021, 4, 25)));
+        assertEquals(2, shardedBank.getTransactions("Account5").size());
+    }
+
+    @Test
+    void getTotalBalance() {
+        double totalBalance = 0;
+        for (String account : shardedBank.getAllAccounts()) {
+            totalBalance += shardedBank.getAccountBalance(account);
+        }
+        assertEquals(1900, totalBalance);
+        assertEquals(totalBalance, shardedBank.getTotalBalance());
+    }
+
+    @Test
+    void createReport() {
+        BankReport report = shardedBank.createReport(3);
+        assertEquals(20, report.getAccountCount());
+        assertEquals(190000, report.getTotalAssetsCents());
+        assertEquals(0, report.getTotalLiabilitiesCents());
+        assertEquals(List.of("Account19", "Account18", "Account17"),
+                report.getRichest().stream().map(BankReport.AccountBalance::account).toList());
+        assertEquals(List.of("Account0", "Account1", "Account2"),
+                report.getPoorest().stream().map(BankReport.AccountBalance::account).toList());
+        assertEquals(20, report.getTransactionCounts().get("IncomingTransfer"));
+    }
+
+    @Test
+    void query() {
+        TransactionQuery query = TransactionQuery.onAllAccounts().amountBetween(50, 150)
+                .orderBy(TransactionQuery.Order.AMOUNT_DESC).limit(3);
+        assertEquals(List.of(150.0, 140.0, 130.0), shardedBank.query(query, Transaction::calculate));
+        assertTrue(shardedBank.explain(query).startsWith("Scatter to 4 shards"));
+        assertEquals(List.of(70.0), shardedBank.query(TransactionQuery.onAccount("Account7"), Transaction::calculate));
+    }
+
+    @Test
+    void subscribe() throws Exception {
+        // the changes are numbered when they happen, also without listeners
+        long start = shardedBank.getEventSequence();
+        assertEquals(40, start);
+        BlockingQueue<BankEvent> received = new LinkedBlockingQueue<>();
+        shardedBank.subscribe(received::addAll);
+        for (int i = 0; i < 20; i++) {
+            shardedBank.addTransaction("Account" + i, new Payment("20.07.2020", i, "mensa", 0.13, 0.45));
+            assertEquals(start + i + 1, shardedBank.getEventSequence());
+        }
+        shardedBank.setIncomingInterest(0.2);
+        assertEquals(start + 21, shardedBank.getEventSequence());
+
+        Set<String> accounts = new HashSet<>();
+        for (long sequence = start + 1; sequence <= start + 21; sequence++) {
+            BankEvent event = received.poll(10, TimeUnit.SECONDS);
+            assertNotNull(event);
+            assertEquals(sequence, event.sequence());
+            if (event.type() == BankEvent.Type.TRANSACTION_ADDED) {
+                accounts.add(event.account());
+            }
+        }
+        assertEquals(20, accounts.size());
+        assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void searchAccounts() {
+        assertEquals(List.of("Account1", "Account10", "Account11"), shardedBank.searchAccounts("account1", 3));
+        assertEquals(11, shardedBank.searchAccounts("Account1", 20).size());
+    }
+
+    @Test
+    void getTransactionsReturnsCopy() {
+        List<Transaction> transactions = shardedBank.getTransactions("Account1");
+        transactions.clear();
+        assertEquals(1, shardedBank.getTransactions("Account1").size());
+    }
+
+    @Test
+    void transactionsAreNotShared() throws TransactionAlreadyExistException, AccountDoesNotExistException, TransactionAttributeException, IOException {
+        Payment payment = new Payment("20.07.2020", 100, "mensa", 0.13, 0.45);
+        shardedBank.addTransaction("Account5", payment);
+        payment.setAmount(1000);
+        assertEquals(100, shardedBank.getAccountBalance("Account5"));
+
+        for (Transaction transaction : shardedBank.getTransactionsByType("Account5", true)) {
+            transaction.setAmount(1000);
+        }
+        assertEquals(100, shardedBank.getAccountBalance("Account5"));
+        assertEquals(2, shardedBank.getTransactionsByType("Account5", true).size());
+        assertTrue(shardedBank.containsTransaction("Account5", new Payment("20.07.2020", 100, "mensa", 0.5, 0.1)));
+    }
+
+    @Test
+    void deleteAccount() throws AccountDoesNotExistException, IOException {
+        shardedBank.deleteAccount("Account4");
+        assertFalse(shardedBank.getAllAccounts().contains("Account4"));
+        assertThrows(AccountDoesNotExistException.class, () -> {
+            shardedBank.deleteAccount("Account4");
+        });
+    }
+
+    @Test
+    void accountsAreReloaded() throws TransactionAttributeException, IOException, AccountAlreadyExistsException, TransactionAlreadyExistException, AccountDoesNotExistException {
+        shardedBank.close();
+        shardedBank = new ShardedBank("Sparkasse", 0.5, 0.1, 4, directory.getPath() + File.separator);
+        assertEquals(20, shardedBank.getAllAccounts().size());
+        assertEquals(new ArrayList<>(List.of(new IncomingTransfer("26.04.2021", 30, "coffee", "Alice", "Account3"))),
+                shardedBank.getTransactions("Account3"));
+        assertEquals(0, shardedBank.getEventSequence());
+    }
+}
@@ -0,0 +1,69 @@
+package headquarters.bank.kernel;
+
+import headquarters.bank.Money;
+import headquarters.bank.Payment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AmountKernelsTest {
+
+    private static final int LENGTH = 1003;
+
+    private final AmountKernels scalar = AmountKernels.scalar();
+    private final AmountKernels preferred = AmountKernels.PREFERRED;
+    private long[] amounts, creditFactors, debitFactors;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(42);
+        amounts = new long[LENGTH];
+        creditFactors = new long[LENGTH];
+        debitFactors = new long[LENGTH];
+        for (int i = 0; i < LENGTH; i++) {
+            amounts[i] = random.nextInt(2_000_001) - 1_000_000;
+            creditFactors[i] = Money.BASIS_POINTS_PER_UNIT - random.nextInt(Money.BASIS_POINTS_PER_UNIT + 1);
+            debitFactors[i] = Money.BASIS_POINTS_PER_UNIT + random.nextInt(Money.BASIS_POINTS_PER_UNIT + 1);
+        }
+        amounts[7] = 0;
+    }
+
+    @Test
+    void sums() {
+        assertEquals(Arrays.stream(amounts).sum(), preferred.sum(amounts, LENGTH));
+        assertEquals(scalar.sum(amounts, LENGTH), preferred.sum(amounts, LENGTH));
+        assertEquals(scalar.sumCredits(amounts, LENGTH), preferred.sumCredits(amounts, LENGTH));
+        assertEquals(scalar.sumDebits(amounts, LENGTH), preferred.sumDebits(amounts, LENGTH));
+        assertEquals(preferred.sum(amounts, LENGTH),
+                preferred.sumCredits(amounts, LENGTH) + preferred.sumDebits(amounts, LENGTH));
+        assertEquals(amounts[0] + amounts[1], preferred.sum(amounts, 2));
+    }
+
+    @Test
+    void selectBySign() {
+        int[] expected = new int[LENGTH];
+        int[] actual = new int[LENGTH];
+        for (boolean positive : new boolean[]{true, false}) {
+            int count = scalar.selectBySign(amounts, LENGTH, positive, expected);
+            assertEquals(count, preferred.selectBySign(amounts, LENGTH, positive, actual));
+            assertArrayEquals(Arrays.copyOf(expected, count), Arrays.copyOf(actual, count));
+        }
+        assertEquals(LENGTH, scalar.selectBySign(amounts, LENGTH, true, expected)
+                + scalar.selectBySign(amounts, LENGTH, false, expected));
+    }
+
+    @Test
+    void calculateMatchesPayment() {
+        long[] calculated = new long[LENGTH];
+        preferred.calculate(amounts, creditFactors, debitFactors, calculated, LENGTH);
+        for (int i = 0; i < LENGTH; i++) {
+            int incomingInterest = (int) (Money.BASIS_POINTS_PER_UNIT - creditFactors[i]);
+            int outgoingInterest = (int) (debitFactors[i] - Money.BASIS_POINTS_PER_UNIT);
+            assertEquals(Payment.calculateCents(amounts[i], incomingInterest, outgoingInterest), calculated[i]);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package headquarters.load;
+
+import headquarters.bank.PrivateBankAlt;
+import headquarters.bank.Payment;
+import headquarters.bank.Transaction;
+import headquarters.bank.Transfer;
+import headquarters.bank.exceptions.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyntheticBankTest {
+
+    @Test
+    void sameSeedGeneratesSameTransactions() {
+        SyntheticBank first = SyntheticBank.withSeed(7).transactionsPerAccount(100);
+        SyntheticBank second = SyntheticBank.withSeed(7).transactionsPerAccount(100);
+        assertEquals(first.transactions(3), second.transactions(3));
+        assertNotEquals(first.transactions(3), first.transactions(4));
+        assertNotEquals(first.transactions(3), SyntheticBank.withSeed(8).transactionsPerAccount(100).transactions(3));
+    }
+
+    @Test
+    void distributions() {
+        SyntheticBank synthetic = SyntheticBank.withSeed(42).transactionsPerAccount(10000).paymentShare(0.2)
+                .dates(LocalDate.of(2020, 1, 1), LocalDate.of(2020, 1, 31)).counterparties(50, 2);
+        List<Transaction> transactions = synthetic.transactions(0);
+        int payments = 0;
+        Map<String, Integer> counterparties = new HashMap<>();
+        for (Transaction transaction : transactions) {
+            assertTrue(transaction.getDate().endsWith(".01.2020"));
+            assertTrue(Math.abs(transaction.getAmount()) >= 0.01);
+            if (transaction instanceof Payment) {
+                payments++;
+            } else {
+                Transfer transfer = (Transfer) transaction;
+                String counterparty = transfer.getSender().equals("Account0") ? transfer.getRecipient()
+                        : transfer.getSender();
+                counterparties.merge(counterparty, 1, Integer::sum);
+            }
+        }
+        assertEquals(0.2, payments / 10000.0, 0.02);
+        // with a skew of 2 the first counterparty gets about 60 % of the transfers
+        assertEquals(0.6, counterparties.get("Counterparty0") / (double) (10000 - payments), 0.05);
+        assertTrue(counterparties.get("Counterparty0") > counterparties.get("Counterparty1"));
+    }
+
+    @Test
+    void populateAndRun() throws Exception {
+        SyntheticBank synthetic = SyntheticBank.withSeed(1).accounts(20).transactionsPerAccount(30);
+        PrivateBankAlt bank = new PrivateBankAlt("Load", 0.05, 0.1);
+        synthetic.populate(bank);
+        assertEquals(20, bank.getAllAccounts().size());
+        assertEquals(30, bank.getTransactions("Account19").size());
+        assertThrows(AccountAlreadyExistsException.class, () -> synthetic.populate(bank));
+
+        // loads the classes used by the reads, so that the short run is not spent loading them
+        bank.getAccountBalance("Account0");
+        bank.getTransactionsSorted("Account0", true);
+        bank.getTransactionsByType("Account0", true);
+        LoadDriver.Report report = new LoadDriver(bank, synthetic).threads(2).duration(Duration.ofMillis(200))
+                .writeShare(0.5).serialized(true).run();
+        assertTrue(report.getOperations() > 0);
+        assertTrue(report.getLatencies(LoadDriver.Operation.ADD).getCount() > 0);
+        assertTrue(report.getLatencies(LoadDriver.Operation.BALANCE).getCount() > 0);
+        int transactions = 0;
+        for (String account : bank.getAllAccounts()) {
+            transactions += bank.getTransactions(account).size();
+        }
+        assertEquals(20 * 30 + report.getLatencies(LoadDriver.Operation.ADD).getCount()
+                - report.getLatencies(LoadDriver.Operation.REMOVE).getCount(), transactions);
+        assertTrue(report.toString().contains("BALANCE"));
+    }
+
+    @Test
+    void invalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> SyntheticBank.withSeed(1).accounts(0));
+        assertThrows(IllegalArgumentException.class, () -> SyntheticBank.withSeed(1).paymentShare(1.5));
+        assertThrows(IllegalArgumentException.class, () -> SyntheticBank.withSeed(1).amounts(0, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> SyntheticBank.withSeed(1).dates(LocalDate.of(2020, 2, 1), LocalDate.of(2020, 1, 1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> new LoadDriver(new PrivateBankAlt("Load", 0, 0), SyntheticBank.withSeed(1)).writeShare(-1));
+    }
+}